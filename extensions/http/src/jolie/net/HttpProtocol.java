@@ -63,6 +63,7 @@ import jolie.lang.Constants;
 import jolie.lang.NativeType;
 import jolie.net.http.HttpMessage;
 import jolie.net.http.HttpParser;
+import jolie.net.http.HttpResponseCache;
 import jolie.net.http.HttpUtils;
 import jolie.net.http.Method;
 import jolie.net.http.MultiPartFormDataParser;
@@ -202,20 +203,31 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private static final String CONTENT_DISPOSITION = "contentDisposition";
 		private static final String DROP_URI_PATH = "dropURIPath";
 		private static final String CACHE_CONTROL = "cacheControl";
+		private static final String CACHE = "cache";
 
 		private static class MultiPartHeaders {
 			private static final String FILENAME = "filename";
 		}
+
+		private static class Cache {
+			private static final String MAX_ENTRIES = "maxEntries";
+			private static final String MAX_BYTES = "maxBytes";
+		}
 	}
 
 	private static class Headers {
 		private static final String JOLIE_MESSAGE_ID = "X-Jolie-MessageID";
+		private static final String JOLIE_TIMEOUT = "X-Jolie-Timeout";
 	}
 
 	private static class ContentTypes {
 		private static final String APPLICATION_JSON = "application/json";
 	}
 
+	private static final int DEFAULT_CACHE_MAX_ENTRIES = 1000;
+	private static final long DEFAULT_CACHE_MAX_BYTES = 16L * 1024L * 1024L;
+	private static final int NOT_MODIFIED_STATUS_CODE = 304;
+
 	private String inputId = null;
 	private final Transformer transformer;
 	private final DocumentBuilderFactory docBuilderFactory;
@@ -223,6 +235,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	private final URI uri;
 	private final boolean inInputPort;
 	private MultiPartFormDataParser multiPartFormDataParser = null;
+	private final Map< String, HttpResponseCache > responseCaches;
 
 	@Override
 	public String name()
@@ -242,7 +255,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		boolean inInputPort,
 		TransformerFactory transformerFactory,
 		DocumentBuilderFactory docBuilderFactory,
-		DocumentBuilder docBuilder
+		DocumentBuilder docBuilder,
+		Map< String, HttpResponseCache > responseCaches
 	)
 		throws TransformerConfigurationException
 	{
@@ -252,6 +266,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		this.transformer = transformerFactory.newTransformer();
 		this.docBuilderFactory = docBuilderFactory;
 		this.docBuilder = docBuilder;
+		this.responseCaches = responseCaches;
 
 		transformer.setOutputProperty( OutputKeys.OMIT_XML_DECLARATION, "yes" );
 		transformer.setOutputProperty( OutputKeys.INDENT, "no" );
@@ -344,6 +359,13 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	private String responseFormat = null;
 	private boolean headRequest = false;
 
+	// State of the response cache for the pending request of an output port
+	private HttpResponseCache responseCache = null;
+	private String cacheRequest = null;
+	private String cacheRequestHeader = null;
+	private HttpResponseCache.Entry revalidatedResponse = null;
+	private HttpResponseCache.Entry cachedResponse = null;
+
 	private static void send_appendQuerystring( Value value, StringBuilder headerBuilder )
 		throws IOException
 	{
@@ -806,6 +828,11 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		if ( checkBooleanParameter( Parameters.CONCURRENT, true ) ) {
 			headerBuilder.append( Headers.JOLIE_MESSAGE_ID ).append( ": " ).append( message.id() ).append( HttpUtils.CRLF );
 		}
+		if ( message.deadline() > 0 ) {
+			// Milliseconds left, so that clocks do not need to be synchronized
+			final long timeout = Math.max( 1L, message.deadline() - System.currentTimeMillis() );
+			headerBuilder.append( Headers.JOLIE_TIMEOUT ).append( ": " ).append( timeout ).append( HttpUtils.CRLF );
+		}
 
 		String contentType = getStringParameter( Parameters.CONTENT_TYPE );
 		if ( contentType.length() > 0 ) {
@@ -849,6 +876,58 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
+	/*
+	 * Returns the response cache of the output port of this protocol, if
+	 * the cache parameter is set. Caching requires a response to follow each
+	 * request, so it is not available to concurrent channels.
+	 */
+	private HttpResponseCache send_getResponseCache()
+	{
+		if ( inInputPort || hasParameter( Parameters.CACHE ) == false || checkBooleanParameter( Parameters.CONCURRENT ) ) {
+			return null;
+		}
+		Value cacheParameter = getParameterFirstValue( Parameters.CACHE );
+		if ( cacheParameter.hasChildren() == false && cacheParameter.boolValue() == false ) {
+			return null;
+		}
+		String portId = channel().parentOutputPort() != null ? channel().parentOutputPort().id() : uri.toString();
+		return responseCaches.computeIfAbsent( portId, k -> new HttpResponseCache(
+			cacheParameter.hasChildren( Parameters.Cache.MAX_ENTRIES ) ? cacheParameter.getFirstChild( Parameters.Cache.MAX_ENTRIES ).intValue() : DEFAULT_CACHE_MAX_ENTRIES,
+			cacheParameter.hasChildren( Parameters.Cache.MAX_BYTES ) ? cacheParameter.getFirstChild( Parameters.Cache.MAX_BYTES ).longValue() : DEFAULT_CACHE_MAX_BYTES
+		) );
+	}
+
+	/*
+	 * Looks up the response to a GET request in the cache. Returns true if a
+	 * fresh response can be served without sending the request; otherwise,
+	 * adds the headers for revalidating a stale response, if any.
+	 */
+	private boolean send_checkResponseCache( int requestLineStart, StringBuilder headerBuilder )
+	{
+		responseCache = send_getResponseCache();
+		if ( responseCache == null ) {
+			return false;
+		}
+		cacheRequest = uri.getAuthority() + " "
+			+ headerBuilder.substring( requestLineStart, headerBuilder.indexOf( HttpUtils.CRLF, requestLineStart ) );
+		cacheRequestHeader = headerBuilder.toString();
+		HttpResponseCache.Entry entry = responseCache.get( cacheRequest, cacheRequestHeader );
+		if ( entry != null ) {
+			if ( entry.isFresh() ) {
+				cachedResponse = entry;
+				return true;
+			}
+			if ( entry.etag() != null ) {
+				headerBuilder.append( "If-None-Match: " ).append( entry.etag() ).append( HttpUtils.CRLF );
+			}
+			if ( entry.lastModified() != null ) {
+				headerBuilder.append( "If-Modified-Since: " ).append( entry.lastModified() ).append( HttpUtils.CRLF );
+			}
+			revalidatedResponse = entry;
+		}
+		return false;
+	}
+
 	private void send_logDebugInfo( CharSequence header, EncodedContent encodedContent, String charset )
 		throws IOException
 	{
@@ -874,6 +953,11 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		String format = send_getFormat();
 		String contentType = null;
 		StringBuilder headerBuilder = new StringBuilder();
+		int requestLineStart = -1;
+
+		responseCache = null;
+		cacheRequest = cacheRequestHeader = null;
+		revalidatedResponse = cachedResponse = null;
 
 		if ( inInputPort ) {
 			// We're responding to a request
@@ -889,6 +973,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 				}
 			}
                         send_appendRequestUserHeader(message, headerBuilder);
+			requestLineStart = headerBuilder.length();
 			send_appendRequestHeaders( message, method, qsFormat, headerBuilder );
 		}
 		EncodedContent encodedContent = send_encodeContent( message, method, charset, format );
@@ -896,10 +981,16 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			encodedContent.contentType = contentType;
 		}
 		send_appendGenericHeaders( message, encodedContent, charset, headerBuilder );
+		inputId = message.operationName();
+		if ( method == Method.GET && requestLineStart >= 0 && send_checkResponseCache( requestLineStart, headerBuilder ) ) {
+			if ( checkBooleanParameter( Parameters.DEBUG ) ) {
+				Interpreter.getInstance().logInfo( "[HTTP debug] Using cached response for:\n" + cacheRequest );
+			}
+			return; // recv will return the cached response
+		}
 		headerBuilder.append( HttpUtils.CRLF );
 
 		send_logDebugInfo( headerBuilder, encodedContent, charset );
-		inputId = message.operationName();
 
 		ostream.write( headerBuilder.toString().getBytes( HttpUtils.URL_DECODER_ENC ) );
 		if ( encodedContent.content != null && !headRequest ) {
@@ -1276,6 +1367,16 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
+	private static void recv_checkForTimeout( HttpMessage message, CommMessage commMessage )
+	{
+		final String timeout = message.getProperty( Headers.JOLIE_TIMEOUT );
+		if ( timeout != null ) {
+			try {
+				commMessage.setDeadline( System.currentTimeMillis() + Math.max( 1L, Long.parseLong( timeout.trim() ) ) );
+			} catch( NumberFormatException e ) {}
+		}
+	}
+
 	private static class DecodedMessage {
 		private String operationName = null;
 		private Value value = Value.create();
@@ -1293,6 +1394,13 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	public CommMessage recv_internal( InputStream istream, OutputStream ostream )
 		throws IOException
 	{
+		if ( cachedResponse != null ) {
+			// Fresh response from the cache: nothing was sent, so there is nothing to read
+			CommMessage response = new CommMessage( CommMessage.GENERIC_ID, inputId, "/", cachedResponse.value(), null );
+			cachedResponse = null;
+			return response;
+		}
+
 		HttpMessage message = new HttpParser( istream ).parse();
 		String charset = HttpUtils.getCharset( null, message );
 		CommMessage retVal = null;
@@ -1340,6 +1448,10 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 
 		if ( message.isResponse() ) {
+			if ( revalidatedResponse != null && message.statusCode() == NOT_MODIFIED_STATUS_CODE ) {
+				responseCache.refresh( revalidatedResponse, message );
+				decodedMessage.value = revalidatedResponse.value();
+			}
 			String responseHeader = "";
 			if ( hasParameter( Parameters.RESPONSE_HEADER ) || hasOperationSpecificParameter( inputId, Parameters.RESPONSE_HEADER ) ) {
 				if ( hasOperationSpecificParameter( inputId, Parameters.RESPONSE_HEADER ) ) {
@@ -1359,6 +1471,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			recv_checkReceivingOperation( message, decodedMessage );
 			recv_checkForMessageProperties( message, decodedMessage );
 			retVal = new CommMessage( decodedMessage.id, decodedMessage.operationName, decodedMessage.resourcePath, decodedMessage.value, null );
+			recv_checkForTimeout( message, retVal );
 		}
 
 		if ( retVal != null && "/".equals( retVal.resourcePath() ) && channel().parentPort() != null
@@ -1415,6 +1528,15 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			}
 		}
 
+		if ( responseCache != null && message.isResponse() ) {
+			if ( retVal != null && message.statusCode() != NOT_MODIFIED_STATUS_CODE ) {
+				responseCache.put( cacheRequest, cacheRequestHeader, message, retVal.value() );
+			}
+			responseCache = null;
+			cacheRequest = cacheRequestHeader = null;
+			revalidatedResponse = null;
+		}
+
 		return retVal;
 	}
 
@@ -23,12 +23,15 @@ package jolie.net;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import jolie.net.ext.CommProtocolFactory;
+import jolie.net.http.HttpResponseCache;
 import jolie.net.protocols.CommProtocol;
 import jolie.runtime.AndJarDeps;
 import jolie.runtime.CanUseJars;
@@ -41,6 +44,8 @@ public class HttpProtocolFactory extends CommProtocolFactory
 	private final TransformerFactory transformerFactory;
 	private final DocumentBuilderFactory docBuilderFactory;
 	private final DocumentBuilder docBuilder;
+	// The response caches of the output ports, by port name
+	private final Map< String, HttpResponseCache > responseCaches = new ConcurrentHashMap<>();
 
 	public HttpProtocolFactory( CommCore commCore )
 		throws ParserConfigurationException, TransformerConfigurationException
@@ -63,7 +68,8 @@ public class HttpProtocolFactory extends CommProtocolFactory
 				true,
 				transformerFactory,
 				docBuilderFactory,
-				docBuilder
+				docBuilder,
+				responseCaches
 			);
 		} catch( TransformerConfigurationException e ) {
 			throw new IOException( e );
@@ -81,7 +87,8 @@ public class HttpProtocolFactory extends CommProtocolFactory
 				false,
 				transformerFactory,
 				docBuilderFactory,
-				docBuilder
+				docBuilder,
+				responseCaches
 			);
 		} catch( TransformerConfigurationException e ) {
 			throw new IOException( e );
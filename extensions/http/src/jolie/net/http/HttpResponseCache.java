@@ -0,0 +1,259 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.http;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jolie.runtime.Value;
+
+/**
+ * A client-side cache of the responses received by the HTTP output protocols
+ * of a port, following the Cache-Control, ETag, Last-Modified and Vary
+ * response headers.
+ *
+ * Responses are stored already decoded, keyed by the request they answer
+ * (method and URI) and by the values of the request headers listed in their
+ * Vary header. A response is served directly while it is fresh, i.e. within
+ * its <code>max-age</code>; once stale, it is revalidated by sending its
+ * ETag and Last-Modified as If-None-Match and If-Modified-Since, and served
+ * again if the server replies with 304 (Not Modified).
+ * Responses marked <code>no-store</code> are never stored, and the least
+ * recently used responses are evicted when the number or the size of the
+ * stored ones exceeds the limits of the cache.
+ */
+public class HttpResponseCache
+{
+	private static final int STATUS_OK = 200;
+
+	public static class Entry
+	{
+		private final Value value;
+		private final String etag;
+		private final String lastModified;
+		private final long size;
+		private volatile long expirationTime;
+
+		private Entry( Value value, String etag, String lastModified, long size, long expirationTime )
+		{
+			this.value = value;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.size = size;
+			this.expirationTime = expirationTime;
+		}
+
+		/**
+		 * Returns a copy of the cached response value.
+		 * @return a copy of the cached response value
+		 */
+		public Value value()
+		{
+			return Value.createDeepCopy( value );
+		}
+
+		public boolean isFresh()
+		{
+			return System.currentTimeMillis() < expirationTime;
+		}
+
+		public String etag()
+		{
+			return etag;
+		}
+
+		public String lastModified()
+		{
+			return lastModified;
+		}
+	}
+
+	private final int maxEntries;
+	private final long maxBytes;
+	private final Map< String, Entry > entries = new LinkedHashMap<>( 16, 0.75f, true );
+	// The request headers each cached request varies on
+	private final Map< String, String[] > varyHeaders;
+	private long bytes = 0;
+
+	public HttpResponseCache( final int maxEntries, long maxBytes )
+	{
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.varyHeaders = new LinkedHashMap< String, String[] >( 16, 0.75f, true ) {
+			@Override
+			protected boolean removeEldestEntry( Map.Entry< String, String[] > eldest )
+			{
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached response to a request, fresh or not.
+	 * @param request the method and URI of the request
+	 * @param requestHeader the header of the request
+	 * @return the cached response, or <code>null</code> if there is none
+	 */
+	public synchronized Entry get( String request, CharSequence requestHeader )
+	{
+		return entries.get( key( request, varyHeaders.get( request ), requestHeader ) );
+	}
+
+	/**
+	 * Stores the response to a request, if its Cache-Control, Vary and
+	 * status code allow it.
+	 * @param request the method and URI of the request
+	 * @param requestHeader the header of the request
+	 * @param response the received response
+	 * @param value the decoded response
+	 */
+	public synchronized void put( String request, CharSequence requestHeader, HttpMessage response, Value value )
+	{
+		final String cacheControl = response.getPropertyOrEmptyString( "cache-control" ).toLowerCase();
+		final String vary = response.getPropertyOrEmptyString( "vary" ).trim();
+		if ( response.statusCode() != STATUS_OK || hasDirective( cacheControl, "no-store" ) || vary.equals( "*" ) ) {
+			remove( key( request, varyHeaders.get( request ), requestHeader ) );
+			return;
+		}
+
+		final String etag = response.getProperty( "etag" );
+		final String lastModified = response.getProperty( "last-modified" );
+		final long maxAge = maxAge( cacheControl );
+		final long size = response.size();
+		if ( ( maxAge <= 0 && etag == null && lastModified == null ) || size > maxBytes ) {
+			return; // Nothing worth keeping
+		}
+
+		final String[] headerNames = vary.isEmpty() ? null : vary.toLowerCase().split( "\\s*,\\s*" );
+		if ( headerNames == null ) {
+			varyHeaders.remove( request );
+		} else {
+			varyHeaders.put( request, headerNames );
+		}
+		final String key = key( request, headerNames, requestHeader );
+		remove( key );
+		entries.put( key, new Entry(
+			Value.createDeepCopy( value ),
+			etag,
+			lastModified,
+			size,
+			System.currentTimeMillis() + maxAge * 1000L
+		) );
+		bytes += size;
+
+		final Iterator< Entry > it = entries.values().iterator();
+		while( ( entries.size() > maxEntries || bytes > maxBytes ) && it.hasNext() ) {
+			bytes -= it.next().size;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Updates the freshness of a cached response after the server replied
+	 * that it has not been modified.
+	 * @param entry the revalidated response
+	 * @param notModified the 304 (Not Modified) response of the server
+	 */
+	public void refresh( Entry entry, HttpMessage notModified )
+	{
+		final long maxAge = maxAge( notModified.getPropertyOrEmptyString( "cache-control" ).toLowerCase() );
+		entry.expirationTime = System.currentTimeMillis() + maxAge * 1000L;
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	private void remove( String key )
+	{
+		final Entry entry = entries.remove( key );
+		if ( entry != null ) {
+			bytes -= entry.size;
+		}
+	}
+
+	private static String key( String request, String[] headerNames, CharSequence requestHeader )
+	{
+		if ( headerNames == null ) {
+			return request;
+		}
+		final StringBuilder builder = new StringBuilder( request );
+		for( String name : headerNames ) {
+			builder.append( '\n' ).append( name ).append( ": " );
+			final String value = headerValue( requestHeader, name );
+			if ( value != null ) {
+				builder.append( value );
+			}
+		}
+		return builder.toString();
+	}
+
+	/*
+	 * Returns the values of a header in a request header, joined by commas.
+	 */
+	private static String headerValue( CharSequence requestHeader, String name )
+	{
+		final List< String > values = new ArrayList<>();
+		for( String line : requestHeader.toString().split( HttpUtils.CRLF ) ) {
+			final int colon = line.indexOf( ':' );
+			if ( colon > 0 && line.substring( 0, colon ).trim().equalsIgnoreCase( name ) ) {
+				values.add( line.substring( colon + 1 ).trim() );
+			}
+		}
+		return values.isEmpty() ? null : String.join( ",", values );
+	}
+
+	private static boolean hasDirective( String cacheControl, String directive )
+	{
+		for( String d : cacheControl.split( "," ) ) {
+			if ( d.trim().equals( directive ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Returns the seconds a response stays fresh for, 0 if it must always
+	 * be revalidated.
+	 */
+	private static long maxAge( String cacheControl )
+	{
+		if ( hasDirective( cacheControl, "no-cache" ) ) {
+			return 0;
+		}
+		for( String d : cacheControl.split( "," ) ) {
+			final String[] pair = d.trim().split( "=", 2 );
+			if ( pair.length == 2 && pair[0].trim().equals( "max-age" ) ) {
+				try {
+					return Math.max( 0L, Long.parseLong( pair[1].trim().replace( "\"", "" ) ) );
+				} catch( NumberFormatException e ) {
+					return 0;
+				}
+			}
+		}
+		return 0;
+	}
+}
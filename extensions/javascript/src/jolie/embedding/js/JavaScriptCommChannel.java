@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.script.Invocable;
 import javax.script.ScriptException;
 import jolie.Interpreter;
@@ -37,13 +38,12 @@ import jolie.runtime.typing.Type;
 
 /**
  * @author Fabrizio Montesi
- * 
- * TODO: this shouldn't be polled
  */
 public class JavaScriptCommChannel extends CommChannel implements PollableCommChannel
 {
 	private final Invocable invocable;
 	private final Map< Long, CommMessage > messages = new ConcurrentHashMap< Long, CommMessage >();
+	private final AtomicReference< Runnable > readyListener = new AtomicReference< Runnable >();
 	private final Object json;
 	
 	private final static class JsonMethods {
@@ -109,6 +109,7 @@ public class JavaScriptCommChannel extends CommChannel implements PollableCommCh
 		}
 		
 		messages.put( message.id(), response );
+		notifyReady();
 	}
 	
 	@Override
@@ -141,4 +142,19 @@ public class JavaScriptCommChannel extends CommChannel implements PollableCommCh
 	{
 		return( !messages.isEmpty() );
 	}
+
+	@Override
+	public boolean setReadyListener( Runnable listener )
+	{
+		readyListener.set( listener );
+		return true;
+	}
+
+	private void notifyReady()
+	{
+		final Runnable listener = readyListener.getAndSet( null );
+		if ( listener != null ) {
+			listener.run();
+		}
+	}
 }
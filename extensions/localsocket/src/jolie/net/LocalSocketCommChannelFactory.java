@@ -26,7 +26,6 @@ import cx.ath.matthew.unix.UnixSocketAddress;
 import java.io.IOException;
 import java.io.FileNotFoundException;
 import java.net.URI;
-import java.net.URISyntaxException;
 import jolie.net.ext.CommChannelFactory;
 import jolie.runtime.AndJarDeps;
 
@@ -41,17 +40,15 @@ public class LocalSocketCommChannelFactory extends CommChannelFactory
 	public CommChannel createChannel( URI location, OutputPort port )
 		throws IOException
 	{
+		if ( UnixDomainSockets.supports( location ) ) {
+			return new SocketCommChannel( UnixDomainSockets.connect( location ), location, port.getProtocol( location ) );
+		}
+
 		String path = location.getPath();
 		if ( path == null || path.isEmpty() ) {
 			throw new FileNotFoundException( "Local socket path not specified!" );
 		}
 		UnixSocket socket = new UnixSocket( new UnixSocketAddress( path, location.getHost() != null ? location.getHost().equals( "abs" ) : false ) );
-		CommChannel ret = null;
-		try {
-			ret = new LocalSocketCommChannel( socket, location, port.getProtocol() );
-		} catch( URISyntaxException e ) {
-			throw new IOException( e );
-		}
-		return ret;
+		return new LocalSocketCommChannel( socket, location, port.getProtocol( location ) );
 	}
 }
@@ -42,6 +42,9 @@ public class LocalSocketListenerFactory extends CommListenerFactory
 						)
 		throws IOException
 	{
+		if ( UnixDomainSockets.supports( inputPort.location() ) ) {
+			return new UnixDomainSocketListener( interpreter, protocolFactory, inputPort );
+		}
 		return new LocalSocketListener( interpreter, protocolFactory, inputPort );
 	}
 }
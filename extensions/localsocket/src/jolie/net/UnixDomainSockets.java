@@ -0,0 +1,156 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Opens the Unix domain socket channels of the JDK, which are available
+ * from Java 16. They are looked up by reflection, so that the localsocket
+ * extension can fall back to the native sockets of libmatthew on older
+ * platforms. Abstract sockets (locations with host <code>abs</code>) are
+ * not supported by the JDK, so they always use the native sockets.
+ */
+final class UnixDomainSockets
+{
+	private UnixDomainSockets() {}
+
+	private static class LazyMethodsHolder {
+		private LazyMethodsHolder() {}
+		private static final ProtocolFamily family;
+		private static final Method addressOf;
+		private static final Method openChannel;
+		private static final Method openServerChannel;
+
+		static {
+			ProtocolFamily f = null;
+			Method a = null, c = null, s = null;
+			try {
+				f = StandardProtocolFamily.valueOf( "UNIX" );
+				a = Class.forName( "java.net.UnixDomainSocketAddress" ).getMethod( "of", String.class );
+				c = SocketChannel.class.getMethod( "open", ProtocolFamily.class );
+				s = ServerSocketChannel.class.getMethod( "open", ProtocolFamily.class );
+			} catch( IllegalArgumentException | ReflectiveOperationException e ) {
+				// Not supported by this platform
+				f = null;
+				a = c = s = null;
+			}
+			family = f;
+			addressOf = a;
+			openChannel = c;
+			openServerChannel = s;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given location can be reached with
+	 * the Unix domain socket channels of the JDK.
+	 * @param location a localsocket location
+	 * @return <code>true</code> if the JDK supports the given location
+	 */
+	static boolean supports( URI location )
+	{
+		return LazyMethodsHolder.family != null && "abs".equals( location.getHost() ) == false;
+	}
+
+	static String path( URI location )
+		throws FileNotFoundException
+	{
+		final String path = location.getPath();
+		if ( path == null || path.isEmpty() ) {
+			throw new FileNotFoundException( "Local socket path not specified!" );
+		}
+		return path;
+	}
+
+	/**
+	 * Opens a channel connected to the socket at the given location.
+	 * @param location the location of the socket
+	 * @return a blocking channel connected to the socket
+	 * @throws IOException if the socket cannot be connected
+	 */
+	static SocketChannel connect( URI location )
+		throws IOException
+	{
+		final SocketChannel channel = (SocketChannel) invoke( LazyMethodsHolder.openChannel, LazyMethodsHolder.family );
+		try {
+			channel.connect( address( location ) );
+		} catch( IOException e ) {
+			channel.close();
+			throw e;
+		}
+		return channel;
+	}
+
+	/**
+	 * Creates a server channel bound to a new socket file at the given location.
+	 * @param location the location of the socket
+	 * @param backlog the maximum number of pending connections
+	 * @return the bound server channel
+	 * @throws IOException if the socket file cannot be created
+	 */
+	static ServerSocketChannel bind( URI location, int backlog )
+		throws IOException
+	{
+		final ServerSocketChannel serverChannel = (ServerSocketChannel) invoke( LazyMethodsHolder.openServerChannel, LazyMethodsHolder.family );
+		try {
+			serverChannel.bind( address( location ), backlog );
+		} catch( IOException e ) {
+			serverChannel.close();
+			final IOException exception = new IOException( e.getMessage() + " [with location: " + location.toString() + "]" );
+			exception.setStackTrace( e.getStackTrace() );
+			throw exception;
+		}
+		return serverChannel;
+	}
+
+	private static SocketAddress address( URI location )
+		throws IOException
+	{
+		return (SocketAddress) invoke( LazyMethodsHolder.addressOf, path( location ) );
+	}
+
+	private static Object invoke( Method method, Object argument )
+		throws IOException
+	{
+		try {
+			return method.invoke( null, argument );
+		} catch( InvocationTargetException e ) {
+			if ( e.getCause() instanceof IOException ) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException( e.getCause() );
+		} catch( IllegalAccessException e ) {
+			throw new IOException( e );
+		}
+	}
+}
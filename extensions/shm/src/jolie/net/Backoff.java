@@ -0,0 +1,69 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The waiting strategy of the threads waiting for the other end of a
+ * shared memory connection, which cannot be notified across processes.
+ * A waiting thread first spins, so that it reacts at once to busy peers
+ * (unless there is a single processor, which the peer needs), then yields
+ * and finally parks for increasing times, up to
+ * {@link #MAX_PARK_NANOS}, so that idle connections cost little processor time.
+ */
+final class Backoff
+{
+	private static final int SPINS = ( Runtime.getRuntime().availableProcessors() > 1 ) ? 200 : 0;
+	private static final int YIELDS = 50;
+	private static final long MIN_PARK_NANOS = 1000L;
+	static final long MAX_PARK_NANOS = 1000000L;
+
+	private int round = 0;
+	private long parkNanos = MIN_PARK_NANOS;
+
+	/**
+	 * Restarts this backoff after some progress was made.
+	 */
+	void reset()
+	{
+		round = 0;
+		parkNanos = MIN_PARK_NANOS;
+	}
+
+	/**
+	 * Waits for the next round.
+	 */
+	void idle()
+	{
+		if ( round < SPINS ) {
+			round++;
+		} else if ( round < SPINS + YIELDS ) {
+			round++;
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos( this, parkNanos );
+			parkNanos = Math.min( parkNanos * 2, MAX_PARK_NANOS );
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Ordered accesses to the longs of a memory mapped file, which is shared
+ * with other processes. Stores with release semantics make all the bytes
+ * written before them visible to the loads with acquire semantics that
+ * read the stored value.
+ * These accesses are provided by the byte buffer view handles of
+ * <code>java.lang.invoke.VarHandle</code> (Java 9), which are looked up by
+ * reflection since Jolie is built for Java 8.
+ * The index of each long must be a multiple of 8.
+ */
+final class MappedMemory
+{
+	private MappedMemory() {}
+
+	private static class LazyHandlesHolder {
+		private LazyHandlesHolder() {}
+		private static final MethodHandle getAcquire;
+		private static final MethodHandle setRelease;
+
+		@SuppressWarnings( { "unchecked", "rawtypes" } )
+		private static MethodHandle handle( Object varHandle, Class< ? > varHandleClass, String accessMode )
+			throws ReflectiveOperationException
+		{
+			final Class modeClass = Class.forName( "java.lang.invoke.VarHandle$AccessMode" );
+			return (MethodHandle) varHandleClass.getMethod( "toMethodHandle", modeClass )
+				.invoke( varHandle, Enum.valueOf( modeClass, accessMode ) );
+		}
+
+		static {
+			MethodHandle get = null, set = null;
+			try {
+				final Class< ? > varHandleClass = Class.forName( "java.lang.invoke.VarHandle" );
+				final Object varHandle = MethodHandles.class
+					.getMethod( "byteBufferViewVarHandle", Class.class, ByteOrder.class )
+					.invoke( null, long[].class, ByteOrder.nativeOrder() );
+				get = handle( varHandle, varHandleClass, "GET_ACQUIRE" );
+				set = handle( varHandle, varHandleClass, "SET_RELEASE" );
+			} catch( ReflectiveOperationException e ) {
+				// Not supported by this platform
+				get = set = null;
+			}
+			getAcquire = get;
+			setRelease = set;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if this platform supports ordered accesses
+	 * to memory mapped files.
+	 * @return <code>true</code> if ordered accesses are supported
+	 */
+	static boolean isSupported()
+	{
+		return LazyHandlesHolder.getAcquire != null;
+	}
+
+	static long getAcquire( ByteBuffer buffer, int index )
+	{
+		try {
+			return (long) LazyHandlesHolder.getAcquire.invokeExact( buffer, index );
+		} catch( Throwable t ) {
+			throw new IllegalStateException( t );
+		}
+	}
+
+	static void setRelease( ByteBuffer buffer, int index, long value )
+	{
+		try {
+			LazyHandlesHolder.setRelease.invokeExact( buffer, index, value );
+		} catch( Throwable t ) {
+			throw new IllegalStateException( t );
+		}
+	}
+}
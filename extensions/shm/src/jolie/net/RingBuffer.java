@@ -0,0 +1,171 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One end of a single-producer, single-consumer ring of bytes, laid out in a
+ * memory mapped file that is shared by the two ends of a shared memory
+ * connection.
+ * The producer and the consumer publish how many bytes they have written and
+ * read in separate cache lines, with release stores; positions grow forever
+ * and are mapped to the ring modulo its capacity, which is a power of two.
+ * Each end caches the last position published by the other one, so that it
+ * reads shared memory only when the ring looks full (or empty).
+ */
+final class RingBuffer
+{
+	// Each field has its own cache line
+	private static final int HEAD = 0;
+	private static final int TAIL = 64;
+	private static final int WRITER_CLOSED = 128;
+	private static final int READER_CLOSED = 136;
+	static final int HEADER_SIZE = 192;
+
+	private final ByteBuffer buffer;
+	private final int offset;
+	private final ByteBuffer data;
+	private final int capacity;
+	private final int mask;
+	// The position of this end and the last one seen of the other end
+	private long position;
+	private long peerPosition;
+
+	/**
+	 * Constructor.
+	 * @param buffer the whole mapped file
+	 * @param offset the offset of this ring in the file, a multiple of 64
+	 * @param capacity the size of the ring, a power of two
+	 * @param producer <code>true</code> for the writing end
+	 */
+	RingBuffer( ByteBuffer buffer, int offset, int capacity, boolean producer )
+	{
+		this.buffer = buffer;
+		this.offset = offset;
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		final ByteBuffer b = buffer.duplicate();
+		b.position( offset + HEADER_SIZE );
+		b.limit( offset + HEADER_SIZE + capacity );
+		this.data = b.slice();
+		if ( producer ) {
+			position = MappedMemory.getAcquire( buffer, offset + TAIL );
+			peerPosition = MappedMemory.getAcquire( buffer, offset + HEAD );
+		} else {
+			position = MappedMemory.getAcquire( buffer, offset + HEAD );
+			peerPosition = MappedMemory.getAcquire( buffer, offset + TAIL );
+		}
+	}
+
+	static int size( int capacity )
+	{
+		return HEADER_SIZE + capacity;
+	}
+
+	/**
+	 * Writes as many bytes as there is room for, without publishing them.
+	 * @return the number of bytes written
+	 */
+	int offer( byte[] b, int off, int len )
+	{
+		if ( position - peerPosition + len > capacity ) {
+			peerPosition = MappedMemory.getAcquire( buffer, offset + HEAD );
+		}
+		final int n = Math.min( len, capacity - (int) ( position - peerPosition ) );
+		if ( n > 0 ) {
+			final int i = (int) ( position & mask );
+			final int first = Math.min( n, capacity - i );
+			data.position( i );
+			data.put( b, off, first );
+			if ( first < n ) {
+				data.position( 0 );
+				data.put( b, off + first, n - first );
+			}
+			position += n;
+		}
+		return n;
+	}
+
+	/**
+	 * Makes the bytes written so far available to the consumer.
+	 */
+	void publish()
+	{
+		MappedMemory.setRelease( buffer, offset + TAIL, position );
+	}
+
+	/**
+	 * Reads as many bytes as are available, up to <code>len</code>.
+	 * @return the number of bytes read
+	 */
+	int poll( byte[] b, int off, int len )
+	{
+		if ( peerPosition - position < len ) {
+			peerPosition = MappedMemory.getAcquire( buffer, offset + TAIL );
+		}
+		final int n = (int) Math.min( len, peerPosition - position );
+		if ( n > 0 ) {
+			final int i = (int) ( position & mask );
+			final int first = Math.min( n, capacity - i );
+			data.position( i );
+			data.get( b, off, first );
+			if ( first < n ) {
+				data.position( 0 );
+				data.get( b, off + first, n - first );
+			}
+			position += n;
+			MappedMemory.setRelease( buffer, offset + HEAD, position );
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the number of bytes that can be read, reading only shared
+	 * memory: it can be called by any thread.
+	 */
+	int available()
+	{
+		return (int) ( MappedMemory.getAcquire( buffer, offset + TAIL ) - MappedMemory.getAcquire( buffer, offset + HEAD ) );
+	}
+
+	void closeWriter()
+	{
+		MappedMemory.setRelease( buffer, offset + WRITER_CLOSED, 1L );
+	}
+
+	void closeReader()
+	{
+		MappedMemory.setRelease( buffer, offset + READER_CLOSED, 1L );
+	}
+
+	boolean isWriterClosed()
+	{
+		return MappedMemory.getAcquire( buffer, offset + WRITER_CLOSED ) != 0L;
+	}
+
+	boolean isReaderClosed()
+	{
+		return MappedMemory.getAcquire( buffer, offset + READER_CLOSED ) != 0L;
+	}
+}
@@ -0,0 +1,149 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import jolie.Interpreter;
+import jolie.net.protocols.CommProtocol;
+
+/**
+ * A CommChannel using a shared memory connection, for services running
+ * on the same host.
+ * Messages are encoded in memory and then copied to the memory of the
+ * connection, where they are made available to the other end when they
+ * are complete. They are not encoded straight into the connection: while
+ * the connection is full, a writer waits for the other end to read, and the
+ * streams used by protocols (e.g., DataOutputStream) may hold a monitor
+ * meanwhile, pinning the carrier of a virtual thread, which may be the one
+ * that should run the reader.
+ */
+public class ShmCommChannel extends StreamingCommChannel implements PollableCommChannel
+{
+	private final ShmConnection connection;
+	private final ShmPoller poller;
+	private final InputStream istream;
+	private final OutputStream ostream;
+	private static final int BUFFER_SIZE = 8192;
+	// Guarded by the lock of the channel, like sendImpl
+	private MessageBuffer messageBuffer = null;
+
+	private static class MessageBuffer extends ByteArrayOutputStream
+	{
+		private MessageBuffer()
+		{
+			super( BUFFER_SIZE );
+		}
+
+		// Unlike ByteArrayOutputStream.writeTo, does not hold the monitor of this buffer
+		private void copyTo( OutputStream out )
+			throws IOException
+		{
+			out.write( buf, 0, count );
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * @param connection the shared memory connection of this channel
+	 * @param location the location of this channel
+	 * @param protocol the CommProtocol to use to send and receive messages
+	 * @param poller the thread notifying when this channel becomes ready,
+	 * or <code>null</code> if it should be polled by the CommCore
+	 */
+	ShmCommChannel( ShmConnection connection, URI location, CommProtocol protocol, ShmPoller poller )
+	{
+		super( location, protocol );
+		this.connection = connection;
+		this.poller = poller;
+		this.istream = connection.inputStream();
+		this.ostream = connection.outputStream();
+		setToBeClosed( false ); // Shared memory connections are kept open by default
+	}
+
+	@Override
+	protected void sendImpl( CommMessage message )
+		throws IOException
+	{
+		if ( messageBuffer == null ) {
+			messageBuffer = new MessageBuffer();
+		}
+		try {
+			protocol().send( messageBuffer, message, istream );
+			messageBuffer.copyTo( ostream );
+			ostream.flush();
+		} finally {
+			if ( messageBuffer.size() > ShmConnection.DEFAULT_CAPACITY ) {
+				messageBuffer = null; // Do not keep large buffers for idle channels
+			} else {
+				messageBuffer.reset();
+			}
+		}
+	}
+
+	@Override
+	protected CommMessage recvImpl()
+		throws IOException
+	{
+		return protocol().recv( istream, ostream );
+	}
+
+	@Override
+	protected void closeImpl()
+		throws IOException
+	{
+		connection.close();
+	}
+
+	@Override
+	protected boolean isOpenImpl()
+	{
+		return connection.isOpen();
+	}
+
+	@Override
+	public boolean isReady()
+	{
+		return connection.isReadable();
+	}
+
+	@Override
+	public boolean setReadyListener( Runnable listener )
+	{
+		if ( poller == null ) {
+			return false;
+		}
+		poller.register( this, listener );
+		return true;
+	}
+
+	@Override
+	protected void disposeForInputImpl()
+		throws IOException
+	{
+		Interpreter.getInstance().commCore().registerForPolling( this );
+	}
+}
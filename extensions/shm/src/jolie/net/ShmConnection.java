@@ -0,0 +1,407 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A connection between two processes on the same host, made of two
+ * {@link RingBuffer} objects (one for each direction) in a memory mapped file.
+ *
+ * A listener for location <code>shm://name</code> owns directory
+ * <code>jolie-shm-name</code> in <code>/dev/shm</code> (or in the temporary
+ * directory, if there is no <code>/dev/shm</code>), and holds a lock on the
+ * file {@link #LOCK_FILE} in it while it is running.
+ * A client connects by creating a file in that directory and renaming it so
+ * that its name ends with {@link #CONNECTION_SUFFIX} once it is ready. The
+ * listener maps the file and then deletes it, so that the memory is released
+ * as soon as both ends are closed.
+ *
+ * Each end locks a byte of the file for as long as it is open, so that the
+ * other end can tell whether it has gone without closing the connection.
+ */
+final class ShmConnection
+{
+	static final String LOCK_FILE = "listener.lock";
+	static final String CONNECTION_SUFFIX = ".conn";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final String DIRECTORY_PREFIX = "jolie-shm-";
+	static final int DEFAULT_CAPACITY = 256 * 1024;
+
+	private static final int MAGIC = 0x4a534d31;
+	private static final int MAGIC_INDEX = 0;
+	private static final int CAPACITY_INDEX = 4;
+	private static final int ACCEPTED_INDEX = 8;
+	private static final int HEADER_SIZE = 64;
+
+	private static final int CLIENT_LOCK = 0;
+	private static final int SERVER_LOCK = 1;
+	private static final long PEER_CHECK_INTERVAL_NANOS = 100000000L;
+
+	// The directories of the listeners of this process
+	private static final Set< Path > listening = ConcurrentHashMap.newKeySet();
+
+	private final Path directory;
+	private final FileChannel fileChannel;
+	private final ByteBuffer buffer;
+	private final FileLock lock;
+	private final boolean client;
+	private final RingBuffer in;
+	private final RingBuffer out;
+	private final InputStream istream = new RingInputStream();
+	private final OutputStream ostream = new RingOutputStream();
+	private volatile boolean closed = false;
+	private volatile boolean peerGone = false;
+	private volatile long nextPeerCheck = 0;
+
+	private ShmConnection( Path directory, FileChannel fileChannel, ByteBuffer buffer, int capacity, boolean client )
+		throws IOException
+	{
+		this.directory = directory;
+		this.fileChannel = fileChannel;
+		this.buffer = buffer;
+		this.client = client;
+		this.lock = fileChannel.lock( client ? CLIENT_LOCK : SERVER_LOCK, 1, false );
+		final RingBuffer clientToServer = new RingBuffer( buffer, HEADER_SIZE, capacity, client );
+		final RingBuffer serverToClient = new RingBuffer( buffer, HEADER_SIZE + RingBuffer.size( capacity ), capacity, !client );
+		this.in = client ? serverToClient : clientToServer;
+		this.out = client ? clientToServer : serverToClient;
+	}
+
+	/**
+	 * Returns the directory of the listener for the given location.
+	 * @param location a location like <code>shm://name</code>
+	 * @return the directory of the listener
+	 * @throws IOException if the location does not name a listener
+	 */
+	static Path directory( URI location )
+		throws IOException
+	{
+		if ( !MappedMemory.isSupported() ) {
+			throw new IOException( "Shared memory channels require Java 9 or later" );
+		}
+		final String name = location.getAuthority();
+		if ( name == null || name.isEmpty() ) {
+			throw new FileNotFoundException( "Shared memory segment name not specified!" );
+		}
+		Path base = Paths.get( "/dev/shm" );
+		if ( !Files.isDirectory( base ) || !Files.isWritable( base ) ) {
+			base = Paths.get( System.getProperty( "java.io.tmpdir" ) );
+		}
+		return base.resolve( DIRECTORY_PREFIX + name );
+	}
+
+	/**
+	 * Records that this process is listening on the given directory.
+	 * Other processes find out by trying to lock {@link #LOCK_FILE}; this one
+	 * must not do that, since closing the file would release the lock of the
+	 * listener.
+	 */
+	static void setListening( Path directory, boolean isListening )
+	{
+		if ( isListening ) {
+			listening.add( directory );
+		} else {
+			listening.remove( directory );
+		}
+	}
+
+	static boolean isListening( Path directory )
+		throws IOException
+	{
+		if ( listening.contains( directory ) ) {
+			return true;
+		}
+		try( FileChannel c = FileChannel.open( directory.resolve( LOCK_FILE ), StandardOpenOption.WRITE ) ) {
+			final FileLock l = c.tryLock();
+			if ( l == null ) {
+				return true;
+			}
+			l.release();
+			return false;
+		} catch( OverlappingFileLockException e ) {
+			return true;
+		} catch( NoSuchFileException e ) {
+			return false;
+		}
+	}
+
+	/**
+	 * Connects to the listener for the given location.
+	 * @param location a location like <code>shm://name</code>
+	 * @param capacity the capacity of the ring of each direction, a power of two
+	 * @return the client end of the new connection
+	 * @throws IOException if there is no listener for the location
+	 */
+	static ShmConnection connect( URI location, int capacity )
+		throws IOException
+	{
+		final Path directory = directory( location );
+		if ( !isListening( directory ) ) {
+			throw new ConnectException( "No shared memory listener for " + location.toString() );
+		}
+		final String id = UUID.randomUUID().toString();
+		final Path file = directory.resolve( id + TEMPORARY_SUFFIX );
+		final FileChannel fileChannel = FileChannel.open(
+			file,
+			StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE
+		);
+		try {
+			final ByteBuffer buffer = fileChannel.map(
+				FileChannel.MapMode.READ_WRITE, 0,
+				HEADER_SIZE + 2 * RingBuffer.size( capacity )
+			).order( ByteOrder.nativeOrder() );
+			buffer.putInt( MAGIC_INDEX, MAGIC );
+			buffer.putInt( CAPACITY_INDEX, capacity );
+			final ShmConnection connection = new ShmConnection( directory, fileChannel, buffer, capacity, true );
+			Files.move( file, directory.resolve( id + CONNECTION_SUFFIX ), StandardCopyOption.ATOMIC_MOVE );
+			return connection;
+		} catch( IOException e ) {
+			fileChannel.close();
+			Files.deleteIfExists( file );
+			throw e;
+		}
+	}
+
+	/**
+	 * Accepts the connection of a client.
+	 * @param file the connection file created by the client, which is deleted
+	 * @return the server end of the connection
+	 * @throws IOException if the file does not contain a valid connection
+	 */
+	static ShmConnection accept( Path file )
+		throws IOException
+	{
+		final FileChannel fileChannel = FileChannel.open( file, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		try {
+			final long size = fileChannel.size();
+			if ( size < HEADER_SIZE ) {
+				throw new IOException( "Invalid shared memory connection: " + file.toString() );
+			}
+			final ByteBuffer buffer = fileChannel.map( FileChannel.MapMode.READ_WRITE, 0, size ).order( ByteOrder.nativeOrder() );
+			final int capacity = buffer.getInt( CAPACITY_INDEX );
+			if ( buffer.getInt( MAGIC_INDEX ) != MAGIC || Integer.bitCount( capacity ) != 1
+				|| size != HEADER_SIZE + 2L * RingBuffer.size( capacity ) ) {
+				throw new IOException( "Invalid shared memory connection: " + file.toString() );
+			}
+			final ShmConnection connection = new ShmConnection( file.getParent(), fileChannel, buffer, capacity, false );
+			MappedMemory.setRelease( buffer, ACCEPTED_INDEX, 1L );
+			return connection;
+		} catch( IOException e ) {
+			fileChannel.close();
+			throw e;
+		} finally {
+			Files.deleteIfExists( file );
+		}
+	}
+
+	InputStream inputStream()
+	{
+		return istream;
+	}
+
+	OutputStream outputStream()
+	{
+		return ostream;
+	}
+
+	boolean isOpen()
+	{
+		return !closed && !in.isWriterClosed() && isPeerAlive();
+	}
+
+	/**
+	 * Returns <code>true</code> if reading from this connection would not wait,
+	 * either because there are bytes to read or because the other end is closed.
+	 */
+	boolean isReadable()
+	{
+		return closed || in.available() > 0 || in.isWriterClosed() || !isPeerAlive();
+	}
+
+	/**
+	 * Checks, at most every {@link #PEER_CHECK_INTERVAL_NANOS}, whether the
+	 * other end still holds its lock.
+	 */
+	private boolean isPeerAlive()
+	{
+		if ( peerGone ) {
+			return false;
+		}
+		final long now = System.nanoTime();
+		if ( now - nextPeerCheck < 0 ) {
+			return true;
+		}
+		nextPeerCheck = now + PEER_CHECK_INTERVAL_NANOS;
+		try {
+			if ( client && MappedMemory.getAcquire( buffer, ACCEPTED_INDEX ) == 0L ) {
+				// Not accepted yet: the listener must be running
+				peerGone = !isListening( directory );
+			} else {
+				final FileLock l = fileChannel.tryLock( client ? SERVER_LOCK : CLIENT_LOCK, 1, false );
+				if ( l != null ) {
+					l.release();
+					peerGone = true;
+				}
+			}
+		} catch( OverlappingFileLockException e ) {
+			// Held by this process
+		} catch( IOException e ) {
+			peerGone = true;
+		}
+		return !peerGone;
+	}
+
+	private void await( Backoff backoff )
+		throws IOException
+	{
+		if ( closed ) {
+			throw new IOException( "Shared memory connection closed" );
+		}
+		if ( !isPeerAlive() ) {
+			throw new IOException( "Shared memory connection peer is gone" );
+		}
+		if ( Thread.currentThread().isInterrupted() ) {
+			throw new InterruptedIOException();
+		}
+		backoff.idle();
+	}
+
+	void close()
+		throws IOException
+	{
+		if ( closed ) {
+			return;
+		}
+		closed = true;
+		out.publish();
+		out.closeWriter();
+		in.closeReader();
+		try {
+			lock.release();
+		} finally {
+			fileChannel.close();
+		}
+	}
+
+	private class RingInputStream extends InputStream
+	{
+		private final Backoff backoff = new Backoff();
+		private final byte[] single = new byte[ 1 ];
+
+		@Override
+		public int read()
+			throws IOException
+		{
+			return ( read( single, 0, 1 ) == -1 ) ? -1 : ( single[ 0 ] & 0xFF );
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len )
+			throws IOException
+		{
+			if ( len == 0 ) {
+				return 0;
+			}
+			backoff.reset();
+			int n;
+			while( (n = in.poll( b, off, len )) == 0 ) {
+				if ( in.isWriterClosed() ) {
+					// Bytes may have been published right before closing
+					n = in.poll( b, off, len );
+					return ( n > 0 ) ? n : -1;
+				}
+				await( backoff );
+			}
+			return n;
+		}
+
+		@Override
+		public int available()
+		{
+			return closed ? 0 : in.available();
+		}
+	}
+
+	private class RingOutputStream extends OutputStream
+	{
+		private final Backoff backoff = new Backoff();
+		private final byte[] single = new byte[ 1 ];
+
+		@Override
+		public void write( int b )
+			throws IOException
+		{
+			single[ 0 ] = (byte) b;
+			write( single, 0, 1 );
+		}
+
+		@Override
+		public void write( byte[] b, int off, int len )
+			throws IOException
+		{
+			backoff.reset();
+			while( len > 0 ) {
+				final int n = out.offer( b, off, len );
+				if ( n > 0 ) {
+					off += n;
+					len -= n;
+					backoff.reset();
+				} else {
+					// The ring is full: let the other end read it
+					out.publish();
+					if ( out.isReaderClosed() ) {
+						throw new IOException( "Shared memory connection closed by peer" );
+					}
+					await( backoff );
+				}
+			}
+		}
+
+		@Override
+		public void flush()
+		{
+			out.publish();
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import jolie.Interpreter;
+import jolie.net.ext.CommProtocolFactory;
+import jolie.net.ports.InputPort;
+
+/**
+ * A listener accepting shared memory connections (see {@link ShmConnection}).
+ * New connection files are noticed through a WatchService on the directory
+ * of the listener, which is also scanned every {@link #SCAN_INTERVAL} seconds
+ * in case some event is lost.
+ */
+public class ShmListener extends CommListener
+{
+	private static final long SCAN_INTERVAL = 1;
+
+	private final Path directory;
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private final WatchService watchService;
+	private final ShmPoller poller;
+
+	public ShmListener(
+				Interpreter interpreter,
+				CommProtocolFactory protocolFactory,
+				InputPort inputPort
+			)
+		throws IOException
+	{
+		super( interpreter, protocolFactory, inputPort );
+
+		directory = ShmConnection.directory( inputPort.location() );
+		Files.createDirectories( directory );
+		lockChannel = FileChannel.open( directory.resolve( ShmConnection.LOCK_FILE ), StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+		FileLock l;
+		try {
+			l = lockChannel.tryLock();
+		} catch( OverlappingFileLockException e ) {
+			l = null;
+		}
+		if ( l == null ) {
+			lockChannel.close();
+			throw new IOException( "Address already in use [with location: " + inputPort.location().toString() + "]" );
+		}
+		lock = l;
+		ShmConnection.setListening( directory, true );
+
+		// Connections left by processes that are gone
+		try( DirectoryStream< Path > files = Files.newDirectoryStream( directory ) ) {
+			for( Path file : files ) {
+				if ( !file.getFileName().toString().equals( ShmConnection.LOCK_FILE ) ) {
+					Files.deleteIfExists( file );
+				}
+			}
+		}
+
+		watchService = directory.getFileSystem().newWatchService();
+		directory.register( watchService, StandardWatchEventKinds.ENTRY_CREATE );
+		poller = new ShmPoller( interpreter, getName() + "-Poller" );
+		poller.start();
+	}
+
+	@Override
+	public void shutdown()
+	{
+		ShmConnection.setListening( directory, false );
+		poller.shutdown();
+		try {
+			watchService.close();
+			lock.release();
+			lockChannel.close();
+			Files.deleteIfExists( directory.resolve( ShmConnection.LOCK_FILE ) );
+			Files.deleteIfExists( directory );
+		} catch( IOException e ) {
+			// Another listener may be using the directory already
+		}
+	}
+
+	private void acceptAll()
+		throws IOException
+	{
+		try( DirectoryStream< Path > files = Files.newDirectoryStream( directory, "*" + ShmConnection.CONNECTION_SUFFIX ) ) {
+			for( Path file : files ) {
+				final ShmConnection connection;
+				try {
+					connection = ShmConnection.accept( file );
+				} catch( IOException e ) {
+					interpreter().logWarning( e );
+					continue;
+				}
+				final ShmCommChannel channel = new ShmCommChannel(
+					connection,
+					inputPort().location(),
+					createProtocol(),
+					poller
+				);
+				channel.setParentInputPort( inputPort() );
+				interpreter().commCore().scheduleReceive( channel, inputPort() );
+			}
+		}
+	}
+
+	@Override
+	public void run()
+	{
+		try {
+			while( true ) {
+				acceptAll();
+				final WatchKey key = watchService.poll( SCAN_INTERVAL, TimeUnit.SECONDS );
+				if ( key != null ) {
+					key.pollEvents();
+					key.reset();
+				}
+			}
+		} catch( ClosedWatchServiceException | InterruptedException e ) {
+			// Closed by shutdown
+		} catch( IOException e ) {
+			if ( lockChannel.isOpen() ) {
+				interpreter().logWarning( e );
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import jolie.Interpreter;
+import jolie.NativeJolieThread;
+
+/**
+ * Watches the shared memory channels accepted by a {@link ShmListener}
+ * that are waiting for input, and runs their ready listeners as soon as
+ * they can be read. Since the processes writing to the channels cannot
+ * notify this thread, it waits with a {@link Backoff} whenever no channel
+ * is ready.
+ */
+final class ShmPoller extends NativeJolieThread
+{
+	private final Map< ShmCommChannel, Runnable > waiting = new ConcurrentHashMap<>();
+	private volatile boolean active = true;
+	// Channels are registered after sending a response: the next request may come soon
+	private volatile boolean registered = false;
+
+	ShmPoller( Interpreter interpreter, String name )
+	{
+		super( interpreter, interpreter.commCore().threadGroup(), name );
+		setDaemon( true );
+	}
+
+	void register( ShmCommChannel channel, Runnable listener )
+	{
+		waiting.put( channel, listener );
+		registered = true;
+		LockSupport.unpark( this );
+	}
+
+	void shutdown()
+	{
+		active = false;
+		LockSupport.unpark( this );
+	}
+
+	@Override
+	public void run()
+	{
+		final Backoff backoff = new Backoff();
+		while( active ) {
+			if ( registered ) {
+				registered = false;
+				backoff.reset();
+			}
+			boolean ready = false;
+			final Iterator< Map.Entry< ShmCommChannel, Runnable > > it = waiting.entrySet().iterator();
+			while( it.hasNext() ) {
+				final Map.Entry< ShmCommChannel, Runnable > entry = it.next();
+				if ( entry.getKey().isReady() ) {
+					it.remove();
+					entry.getValue().run();
+					ready = true;
+				}
+			}
+			if ( ready ) {
+				backoff.reset();
+			} else if ( waiting.isEmpty() ) {
+				LockSupport.park( this );
+			} else {
+				backoff.idle();
+			}
+		}
+	}
+}
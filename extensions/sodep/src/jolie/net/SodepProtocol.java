@@ -21,6 +21,7 @@
 
 package jolie.net;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
@@ -31,12 +32,21 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Pattern;
+import jolie.Interpreter;
+import jolie.net.ports.InputPort;
+import jolie.net.ports.NotificationCredits;
 import jolie.net.protocols.ConcurrentCommProtocol;
+import jolie.net.protocols.FrameDecoder;
 import jolie.runtime.ByteArray;
 import jolie.runtime.FaultException;
 import jolie.runtime.Value;
@@ -55,11 +65,34 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		private static final int LONG = 6;
 	}
 	
+	private static final int DEFAULT_MAX_OUTSTANDING_REQUESTS = 100;
+	// Not a valid operation name, so it can not clash with real operations
+	private static final String BATCH_OPERATION_NAME = "#batch";
+	private static final Pattern pathSplitPattern = Pattern.compile( "/" );
+
 	public String name()
 	{
 		return "sodep";
 	}
 
+	/**
+	 * Output channels are shared by concurrent requests if parameter
+	 * <code>multiplex</code> is set to <code>true</code>. The maximum number of
+	 * outstanding requests per channel can be set with <code>multiplex.maxOutstanding</code>.
+	 */
+	@Override
+	public int maxOutstandingRequests()
+	{
+		if ( checkBooleanParameter( "multiplex" ) && checkBooleanParameter( "keepAlive", true ) ) {
+			final Value multiplex = getParameterFirstValue( "multiplex" );
+			if ( multiplex.hasChildren( "maxOutstanding" ) ) {
+				return Math.max( 1, multiplex.getFirstChild( "maxOutstanding" ).intValue() );
+			}
+			return DEFAULT_MAX_OUTSTANDING_REQUESTS;
+		}
+		return 1;
+	}
+
 	private Charset stringCharset = Charset.forName( "UTF8" );
 	
 	private String readString( DataInput in )
@@ -169,20 +202,64 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		}
 	}
 	
-	private void writeMessage( DataOutput out, CommMessage message )
+	/*
+	 * If parameter deadlines is set to true, each message ends with the time
+	 * left before the deadline of the request (0 if there is none), so that
+	 * the receiver does not wait for downstream services beyond it.
+	 * If parameter credits is set, each message then ends with the credits
+	 * granted to the other end (-1 for none, see NotificationCredits).
+	 * These change the message format, so both sides must set them.
+	 */
+	private void writeMessage( DataOutput out, CommMessage message, boolean withDeadline, int credits )
 		throws IOException
 	{
 		out.writeLong( message.id() );
 		writeString( out, message.resourcePath() );
 		writeString( out, message.operationName() );
-		FaultException fault = message.fault();
-		if ( fault == null ) {
-			out.writeBoolean( false );
+		final CommMessage.EncodedContent content = message.encodedContent();
+		if ( content instanceof EncodedSodepContent && ((EncodedSodepContent)content).charset.equals( stringCharset ) ) {
+			((EncodedSodepContent)content).writeTo( out );
 		} else {
-			out.writeBoolean( true );
-			writeFault( out, fault );
+			FaultException fault = message.fault();
+			if ( fault == null ) {
+				out.writeBoolean( false );
+			} else {
+				out.writeBoolean( true );
+				writeFault( out, fault );
+			}
+			writeValue( out, message.value() );
+		}
+		if ( withDeadline ) {
+			// Milliseconds left, so that clocks do not need to be synchronized
+			out.writeLong( message.deadline() > 0 ? Math.max( 1L, message.deadline() - System.currentTimeMillis() ) : 0L );
+		}
+		if ( usesCredits() ) {
+			out.writeInt( credits );
+		}
+	}
+
+	private boolean usesCredits()
+	{
+		return getIntParameter( NotificationCredits.PARAMETER ) > 0;
+	}
+
+	/*
+	 * The messages sent by an input port grant the room left in the queues
+	 * of the sessions of its interpreter.
+	 */
+	private int grantedCredits()
+	{
+		final Interpreter interpreter = Interpreter.getInstance();
+		if ( channel().parentInputPort() == null || interpreter == null ) {
+			return -1;
 		}
-		writeValue( out, message.value() );
+		return Math.max( 0, getIntParameter( NotificationCredits.PARAMETER ) - interpreter.queuedMessages() );
+	}
+
+	// The length of the fields following the value of a message
+	private int trailerLength()
+	{
+		return ( checkBooleanParameter( "deadlines" ) ? 8 : 0 ) + ( usesCredits() ? 4 : 0 );
 	}
 	
 	private Value readValue( DataInput in )
@@ -243,7 +320,7 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		return new FaultException( faultName, value );
 	}
 	
-	private CommMessage readMessage( DataInput in )
+	private CommMessage readMessage( DataInput in, boolean withDeadline, boolean withCredits )
 		throws IOException
 	{
 		Long id = in.readLong();
@@ -254,14 +331,316 @@ public class SodepProtocol extends ConcurrentCommProtocol
 			fault = readFault( in );
 		}
 		Value value = readValue( in );
-		return new CommMessage( id, operationName, resourcePath, value, fault );
+		CommMessage message = new CommMessage( id, operationName, resourcePath, value, fault );
+		if ( withDeadline ) {
+			long timeout = in.readLong();
+			if ( timeout > 0 ) {
+				message.setDeadline( System.currentTimeMillis() + timeout );
+			}
+		}
+		if ( withCredits ) {
+			message.setCredits( in.readInt() );
+		}
+		return message;
 	}
 	
+	/*
+	 * Sodep messages do not declare their length, so this decoder follows
+	 * their structure as bytes arrive, keeping track of the values being
+	 * scanned.
+	 */
+	private class SodepFrameDecoder implements FrameDecoder
+	{
+		private static final int MESSAGE_ID = 0;
+		private static final int RESOURCE_PATH = 1;
+		private static final int OPERATION_NAME = 2;
+		private static final int FAULT_FLAG = 3;
+		private static final int FAULT_NAME = 4;
+		private static final int VALUE_TYPE = 5;
+		private static final int VALUE_LENGTH = 6;
+		private static final int CHILDREN = 7;
+		private static final int CHILD_NAME = 8;
+		private static final int CHILD_SIZE = 9;
+		private static final int NEXT = 10;
+		private static final int TRAILER = 11;
+
+		private int state = MESSAGE_ID;
+		private int offset = 0; // Bytes of the current message scanned so far
+		private int skip = 0; // Bytes to be skipped before going on with state
+		// For each value being scanned: children and vector elements left
+		private final Deque< int[] > values = new ArrayDeque< int[] >();
+
+		private int readLength( ByteBuffer buffer )
+		{
+			final int length = buffer.getInt( buffer.position() + offset );
+			offset += 4;
+			return Math.max( 0, length );
+		}
+
+		private int requiredBytes()
+		{
+			switch( state ) {
+				case MESSAGE_ID:
+					return 8;
+				case TRAILER:
+					return trailerLength();
+				case FAULT_FLAG:
+				case VALUE_TYPE:
+					return 1;
+				case NEXT:
+					return 0;
+				default:
+					return 4;
+			}
+		}
+
+		public byte[] nextFrame( ByteBuffer buffer )
+		{
+			while( true ) {
+				if ( skip > 0 ) {
+					final int n = Math.min( skip, buffer.remaining() - offset );
+					offset += n;
+					skip -= n;
+					if ( skip > 0 ) {
+						return null;
+					}
+				}
+				if ( buffer.remaining() - offset < requiredBytes() ) {
+					return null;
+				}
+
+				switch( state ) {
+					case MESSAGE_ID:
+						offset += 8;
+						state = RESOURCE_PATH;
+						break;
+					case RESOURCE_PATH:
+						skip = readLength( buffer );
+						state = OPERATION_NAME;
+						break;
+					case OPERATION_NAME:
+						skip = readLength( buffer );
+						state = FAULT_FLAG;
+						break;
+					case FAULT_FLAG:
+						final boolean isFault = buffer.get( buffer.position() + offset ) != 0;
+						offset++;
+						// A fault carries its own value before the message value
+						values.push( new int[] { 0, isFault ? 2 : 1 } );
+						state = isFault ? FAULT_NAME : NEXT;
+						break;
+					case FAULT_NAME:
+						skip = readLength( buffer );
+						state = NEXT;
+						break;
+					case VALUE_TYPE:
+						final byte type = buffer.get( buffer.position() + offset );
+						offset++;
+						state = CHILDREN;
+						switch( type ) {
+							case DataTypeHeaderId.STRING:
+							case DataTypeHeaderId.BYTE_ARRAY:
+								state = VALUE_LENGTH;
+								break;
+							case DataTypeHeaderId.INT:
+								skip = 4;
+								break;
+							case DataTypeHeaderId.LONG:
+							case DataTypeHeaderId.DOUBLE:
+								skip = 8;
+								break;
+							case DataTypeHeaderId.BOOL:
+								skip = 1;
+								break;
+							default:
+								break;
+						}
+						break;
+					case VALUE_LENGTH:
+						skip = readLength( buffer );
+						state = CHILDREN;
+						break;
+					case CHILDREN:
+						values.push( new int[] { readLength( buffer ), 0 } );
+						state = NEXT;
+						break;
+					case CHILD_NAME:
+						skip = readLength( buffer );
+						state = CHILD_SIZE;
+						break;
+					case CHILD_SIZE:
+						values.peek()[1] = readLength( buffer );
+						state = NEXT;
+						break;
+					case NEXT:
+					default:
+						final int[] value = values.peek();
+						if ( value[1] > 0 ) {
+							value[1]--;
+							state = VALUE_TYPE;
+						} else if ( value[0] > 0 ) {
+							value[0]--;
+							state = CHILD_NAME;
+						} else {
+							values.pop();
+							if ( values.isEmpty() ) {
+								// Read like in recv: the configuration of an input port
+								// may be assigned only after its first connections are accepted
+								state = TRAILER;
+							}
+						}
+						break;
+					case TRAILER:
+						offset += trailerLength();
+						return readFrame( buffer );
+				}
+			}
+		}
+
+		private byte[] readFrame( ByteBuffer buffer )
+		{
+			final byte[] frame = new byte[ offset ];
+			buffer.get( frame );
+			state = MESSAGE_ID;
+			offset = 0;
+			return frame;
+		}
+	}
+	
+	/*
+	 * The fault and value of a received frame, from the fault flag to the
+	 * trailer (excluded).
+	 */
+	private class EncodedSodepContent implements CommMessage.EncodedContent
+	{
+		private final byte[] frame;
+		private final int offset;
+		private final int length;
+		private final Charset charset = stringCharset;
+		private FaultException fault = null;
+		private Value value = null;
+
+		private EncodedSodepContent( byte[] frame, int offset, int length )
+		{
+			this.frame = frame;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		private synchronized void decode()
+		{
+			if ( value == null ) {
+				final DataInputStream in = new DataInputStream( new ByteArrayInputStream( frame, offset, length ) );
+				try {
+					if ( in.readBoolean() ) {
+						fault = readFault( in );
+					}
+					value = readValue( in );
+				} catch( IOException e ) {
+					// The frame decoder has checked that the content is complete
+					throw new IllegalStateException( e );
+				}
+			}
+		}
+
+		@Override
+		public FaultException fault()
+		{
+			decode();
+			return fault;
+		}
+
+		@Override
+		public Value value()
+		{
+			decode();
+			return value;
+		}
+
+		private void writeTo( DataOutput out )
+			throws IOException
+		{
+			out.write( frame, offset, length );
+		}
+	}
+
+	/*
+	 * Returns true if the input port of the channel forwards the request to
+	 * another service without reading its content: the request is redirected,
+	 * or is for an operation aggregated without a courier.
+	 */
+	private boolean isForwarded( String resourcePath, String operationName )
+	{
+		final InputPort port = channel().parentInputPort();
+		if ( port == null || BATCH_OPERATION_NAME.equals( operationName ) ) {
+			return false;
+		} else if ( pathSplitPattern.split( resourcePath ).length > 1 ) {
+			return true;
+		} else if ( port.canHandleInputOperationDirectly( operationName ) ) {
+			return false;
+		}
+		final AggregatedOperation operation = port.getAggregatedOperation( operationName );
+		return operation != null && operation.forwardsRequests();
+	}
+
+	/*
+	 * A batch is sent as a message for BATCH_OPERATION_NAME, whose value
+	 * has a child message for each request in the batch.
+	 */
+	private void writeBatch( DataOutput out, CommMessage batch, boolean withDeadline, int credits )
+		throws IOException
+	{
+		final Value envelope = Value.create();
+		final ValueVector messages = envelope.getChildren( "message" );
+		for( CommMessage message : batch.batch() ) {
+			final Value m = Value.create();
+			m.setFirstChild( "id", message.id() );
+			m.setFirstChild( "resourcePath", message.resourcePath() );
+			m.setFirstChild( "operationName", message.operationName() );
+			m.getChildren( "value" ).add( message.value() );
+			messages.add( m );
+		}
+		writeMessage( out, new CommMessage( batch.id(), BATCH_OPERATION_NAME, batch.resourcePath(), envelope, null ), withDeadline, credits );
+	}
+
+	private CommMessage unpackBatch( CommMessage envelope )
+	{
+		final ValueVector messages = envelope.value().getChildren( "message" );
+		final List< CommMessage > batch = new ArrayList< CommMessage >( messages.size() );
+		for( Value m : messages ) {
+			batch.add( new CommMessage(
+				m.getFirstChild( "id" ).longValue(),
+				m.getFirstChild( "operationName" ).strValue(),
+				m.getFirstChild( "resourcePath" ).strValue(),
+				m.getFirstChild( "value" ),
+				null
+			) );
+		}
+		return CommMessage.createBatch( envelope.id(), batch );
+	}
+
 	public SodepProtocol( VariablePath configurationPath )
 	{
 		super( configurationPath );
 	}
 
+	/**
+	 * Sodep messages are assembled as their bytes are received, so that
+	 * input ports need no thread for channels that have not received
+	 * a whole message yet.
+	 */
+	@Override
+	public FrameDecoder frameDecoder()
+	{
+		return new SodepFrameDecoder();
+	}
+
+	@Override
+	public boolean canSendBatches()
+	{
+		return true;
+	}
+
 	public void send( OutputStream ostream, CommMessage message, InputStream istream )
 		throws IOException
 	{
@@ -273,11 +652,54 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		}
 		
 		final DataOutputStream oos = new DataOutputStream( ostream );
-		writeMessage( oos, message );
+		final int credits = usesCredits() ? grantedCredits() : -1;
+		if ( message.isBatch() ) {
+			writeBatch( oos, message, checkBooleanParameter( "deadlines" ), credits );
+		} else {
+			writeMessage( oos, message, checkBooleanParameter( "deadlines" ), credits );
+		}
 	}
 
-	public CommMessage recv( InputStream istream, OutputStream ostream )
+	/**
+	 * Requests that the input port forwards to other services are read only
+	 * up to their operation name: their fault and value are left encoded,
+	 * so that they can be sent again as they are if the receiving output port
+	 * uses sodep with the same charset.
+	 */
+	@Override
+	public CommMessage recvFrame( byte[] frame, OutputStream ostream )
 		throws IOException
+	{
+		final ByteArrayInputStream bytes = new ByteArrayInputStream( frame );
+		final DataInputStream ios = new DataInputStream( bytes );
+		prepareRecv();
+		final long id = ios.readLong();
+		final String resourcePath = readString( ios );
+		final String operationName = readString( ios );
+		if ( !isForwarded( resourcePath, operationName ) ) {
+			return recv( new ByteArrayInputStream( frame ), ostream );
+		}
+
+		final int offset = frame.length - bytes.available();
+		final int end = frame.length - trailerLength();
+		final CommMessage message = CommMessage.createEncoded(
+			id, operationName, resourcePath,
+			new EncodedSodepContent( frame, offset, end - offset )
+		);
+		final ByteBuffer trailer = ByteBuffer.wrap( frame, end, frame.length - end );
+		if ( checkBooleanParameter( "deadlines" ) ) {
+			final long timeout = trailer.getLong();
+			if ( timeout > 0 ) {
+				message.setDeadline( System.currentTimeMillis() + timeout );
+			}
+		}
+		if ( usesCredits() ) {
+			message.setCredits( trailer.getInt() );
+		}
+		return message;
+	}
+
+	private void prepareRecv()
 	{
 		channel().setToBeClosed( !checkBooleanParameter( "keepAlive", true ) );
 
@@ -285,8 +707,18 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		if ( !charset.isEmpty() ) {
 			stringCharset = Charset.forName( charset );
 		}
+	}
+
+	public CommMessage recv( InputStream istream, OutputStream ostream )
+		throws IOException
+	{
+		prepareRecv();
 		
 		final DataInputStream ios = new DataInputStream( istream );
-		return readMessage( ios );
+		final CommMessage message = readMessage( ios, checkBooleanParameter( "deadlines" ), usesCredits() );
+		if ( BATCH_OPERATION_NAME.equals( message.operationName() ) ) {
+			return unpackBatch( message );
+		}
+		return message;
 	}
 }
\ No newline at end of file
@@ -26,19 +26,34 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.lang.Constants.EmbeddedServiceType;
+import jolie.net.BufferPool;
+import jolie.net.CircuitBreaker;
+import jolie.net.CommChannelPool;
+import jolie.net.DispatchExecutor;
 import jolie.net.CommListener;
 import jolie.net.LocalCommChannel;
+import jolie.net.ports.InputPort;
 import jolie.net.ports.OutputPort;
+import jolie.net.ports.RequestCoalescing;
+import jolie.net.ports.RequestHedging;
+import jolie.net.ports.ResponseCache;
 import jolie.runtime.FaultException;
 import jolie.runtime.InvalidIdException;
 import jolie.runtime.JavaService;
 import jolie.runtime.Value;
 import jolie.runtime.ValuePrettyPrinter;
+import jolie.runtime.ValueVector;
 import jolie.runtime.VariablePath;
 import jolie.runtime.VariablePathBuilder;
 import jolie.runtime.embedding.EmbeddedServiceLoader;
@@ -117,6 +132,7 @@ public class RuntimeService extends JavaService
 		r.getFirstChild( name ).getFirstChild( Constants.PROTOCOL_NODE_NAME ).deepCopy( protocolValue );
 
 		interpreter.register( name, port );
+		port.prewarm();
 	}
 
 	@RequestResponse
@@ -308,14 +324,179 @@ public class RuntimeService extends JavaService
 		}
 		Runtime.getRuntime().halt( status );
 	}
+
+	@RequestResponse
+	public void invalidateResponseCache( Value request )
+		throws FaultException
+	{
+		final String inputPortName = request.hasChildren( "inputPort" ) ? request.getFirstChild( "inputPort" ).strValue() : null;
+		final String operationName = request.hasChildren( "operation" ) ? request.getFirstChild( "operation" ).strValue() : null;
+		if ( inputPortName != null && interpreter.commCore().getListenerByInputPortName( inputPortName ) == null ) {
+			throw new FaultException( "RuntimeException", "Unknown inputPort: " + inputPortName );
+		}
+		for( InputPort port : interpreter.commCore().inputPorts() ) {
+			if ( inputPortName == null || inputPortName.equals( port.name() ) ) {
+				for( ResponseCache cache : port.responseCaches() ) {
+					if ( operationName == null || operationName.equals( cache.operationName() ) ) {
+						if ( request.hasChildren( "request" ) ) {
+							cache.invalidate( request.getFirstChild( "request" ) );
+						} else {
+							cache.invalidate();
+						}
+					}
+				}
+			}
+		}
+	}
 	
 	public Value stats()
 	{
 		final Value stats = Value.create();
 		stats_files( stats.getFirstChild( "files" ) );
 		stats_os( stats.getFirstChild( "os" ) );
+		stats_memory( stats.getFirstChild( "memory" ) );
+		stats_threads( stats.getFirstChild( "threads" ) );
+		stats_timers( stats.getFirstChild( "timers" ) );
+		stats_comm( stats.getFirstChild( "comm" ) );
 		return stats;
 	}
+
+	private void stats_comm( Value stats )
+	{
+		final CommChannelPool pool = interpreter.commCore().channelPool();
+		final Value poolStats = stats.getFirstChild( "channelPool" );
+		poolStats.setFirstChild( "hits", pool.hits() );
+		poolStats.setFirstChild( "misses", pool.misses() );
+		poolStats.setFirstChild( "waits", pool.waits() );
+		poolStats.setFirstChild( "prewarmed", pool.prewarmed() );
+		poolStats.setFirstChild( "idle", pool.idleCount() );
+		poolStats.setFirstChild( "leased", pool.leasedCount() );
+		poolStats.setFirstChild( "shared", pool.sharedCount() );
+
+		final DispatchExecutor dispatcher = interpreter.commCore().dispatchExecutor();
+		final Value dispatchStats = stats.getFirstChild( "dispatch" );
+		if ( dispatcher == null ) {
+			dispatchStats.setFirstChild( "limit", -1 );
+			dispatchStats.setFirstChild( "active", 0 );
+			dispatchStats.setFirstChild( "queued", 0 );
+			dispatchStats.setFirstChild( "rejected", 0L );
+			dispatchStats.setFirstChild( "shed", 0L );
+			dispatchStats.setFirstChild( "blocked", 0L );
+		} else {
+			dispatchStats.setFirstChild( "limit", dispatcher.getMaximumPoolSize() );
+			dispatchStats.setFirstChild( "active", dispatcher.getActiveCount() );
+			dispatchStats.setFirstChild( "queued", dispatcher.queueDepth() );
+			dispatchStats.setFirstChild( "rejected", dispatcher.rejectedCount() );
+			dispatchStats.setFirstChild( "shed", dispatcher.shedCount() );
+			dispatchStats.setFirstChild( "blocked", dispatcher.blockedCount() );
+		}
+
+		final BufferPool bufferPool = interpreter.commCore().bufferPool();
+		final Value bufferStats = stats.getFirstChild( "buffers" );
+		bufferStats.setFirstChild( "allocated", bufferPool.allocatedCount() );
+		bufferStats.setFirstChild( "acquired", bufferPool.acquiredCount() );
+		bufferStats.setFirstChild( "idle", bufferPool.idleCount() );
+		bufferStats.setFirstChild( "leaked", bufferPool.leakedCount() );
+
+		final ValueVector breakerStats = stats.getFirstChild( "circuitBreakers" ).getChildren( "breaker" );
+		for( CircuitBreaker breaker : interpreter.commCore().circuitBreakers() ) {
+			final Value v = Value.create();
+			v.setFirstChild( "outputPort", breaker.outputPortId() );
+			v.setFirstChild( "location", breaker.location().toString() );
+			v.setFirstChild( "state", breaker.state().toString() );
+			v.setFirstChild( "rejected", breaker.rejectedCount() );
+			breakerStats.add( v );
+		}
+
+		final ValueVector hedgeStats = stats.getFirstChild( "hedges" ).getChildren( "operation" );
+		for( OutputPort port : interpreter.outputPorts() ) {
+			for( RequestHedging hedging : port.requestHedgings() ) {
+				final Value v = Value.create();
+				v.setFirstChild( "outputPort", port.id() );
+				v.setFirstChild( "name", hedging.operationName() );
+				v.setFirstChild( "issued", hedging.issuedCount() );
+				v.setFirstChild( "won", hedging.wonCount() );
+				hedgeStats.add( v );
+			}
+		}
+
+		final ValueVector coalescingStats = stats.getFirstChild( "coalescing" ).getChildren( "operation" );
+		for( OutputPort port : interpreter.outputPorts() ) {
+			for( RequestCoalescing coalescing : port.requestCoalescings() ) {
+				final Value v = Value.create();
+				v.setFirstChild( "outputPort", port.id() );
+				v.setFirstChild( "name", coalescing.operationName() );
+				v.setFirstChild( "requests", coalescing.requestCount() );
+				v.setFirstChild( "coalesced", coalescing.coalescedCount() );
+				coalescingStats.add( v );
+			}
+		}
+
+		final ValueVector cacheStats = stats.getFirstChild( "responseCaches" ).getChildren( "cache" );
+		for( InputPort port : interpreter.commCore().inputPorts() ) {
+			for( ResponseCache cache : port.responseCaches() ) {
+				final Value v = Value.create();
+				final long hits = cache.hitCount();
+				final long requests = hits + cache.missCount();
+				v.setFirstChild( "inputPort", port.name() );
+				v.setFirstChild( "name", cache.operationName() );
+				v.setFirstChild( "hits", hits );
+				v.setFirstChild( "misses", requests - hits );
+				v.setFirstChild( "hitRatio", ( requests > 0 ) ? (double) hits / requests : 0.0 );
+				v.setFirstChild( "entries", cache.size() );
+				v.setFirstChild( "bytes", cache.bytes() );
+				v.setFirstChild( "evictions", cache.evictionCount() );
+				cacheStats.add( v );
+			}
+		}
+
+		final Value creditStats = stats.getFirstChild( "credits" );
+		creditStats.setFirstChild( "queued", interpreter.queuedMessages() );
+		long creditWaits = 0L;
+		for( OutputPort port : interpreter.outputPorts() ) {
+			if ( port.usedNotificationCredits() != null ) {
+				creditWaits += port.usedNotificationCredits().waits();
+			}
+		}
+		creditStats.setFirstChild( "waits", creditWaits );
+
+		final Value writeStats = stats.getFirstChild( "writes" );
+		writeStats.setFirstChild( "messages", interpreter.commCore().writtenMessages() );
+		writeStats.setFirstChild( "writes", interpreter.commCore().writes() );
+
+		final Value acceptStats = stats.getFirstChild( "accept" );
+		acceptStats.setFirstChild( "acceptors", interpreter.commCore().acceptors() );
+		acceptStats.setFirstChild( "accepted", interpreter.commCore().acceptedConnections() );
+		acceptStats.setFirstChild( "batches", interpreter.commCore().acceptBatches() );
+		stats_listenQueue( acceptStats );
+	}
+
+	// Reads the (system-wide) listen queue overflow counters of Linux
+	private void stats_listenQueue( Value stats )
+	{
+		final Path netstat = Paths.get( "/proc/net/netstat" );
+		if ( Files.isReadable( netstat ) == false ) {
+			return;
+		}
+		try {
+			final List< String > lines = Files.readAllLines( netstat );
+			for( int i = 0; i + 1 < lines.size(); i += 2 ) {
+				if ( lines.get( i ).startsWith( "TcpExt:" ) ) {
+					final String[] names = lines.get( i ).split( " " );
+					final String[] values = lines.get( i + 1 ).split( " " );
+					for( int k = 1; k < names.length && k < values.length; k++ ) {
+						if ( "ListenOverflows".equals( names[ k ] ) ) {
+							stats.setFirstChild( "listenOverflows", Long.parseLong( values[ k ] ) );
+						} else if ( "ListenDrops".equals( names[ k ] ) ) {
+							stats.setFirstChild( "listenDrops", Long.parseLong( values[ k ] ) );
+						}
+					}
+				}
+			}
+		} catch( IOException | NumberFormatException e ) {
+			// Leave the counters undefined
+		}
+	}
 	
 	private void stats_os( Value stats )
 	{
@@ -327,6 +508,27 @@ public class RuntimeService extends JavaService
 		stats.setFirstChild( "version", osBean.getVersion() );
 	}
 	
+	private void stats_memory( Value stats )
+	{
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		stats.setFirstChild( "used", heap.getUsed() );
+		stats.setFirstChild( "committed", heap.getCommitted() );
+		stats.setFirstChild( "max", heap.getMax() );
+	}
+
+	private void stats_threads( Value stats )
+	{
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		stats.setFirstChild( "live", threadBean.getThreadCount() );
+		stats.setFirstChild( "peak", threadBean.getPeakThreadCount() );
+		stats.setFirstChild( "virtual", interpreter.usesVirtualThreads() );
+	}
+
+	private void stats_timers( Value stats )
+	{
+		stats.setFirstChild( "pending", interpreter.pendingTimeoutHandlers() );
+	}
+
 	private void stats_files( Value stats )
 	{
 		OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
@@ -48,6 +48,7 @@ import java.util.regex.Pattern;
 import jolie.jap.JapURLConnection;
 import jolie.lang.Constants;
 import jolie.lang.parse.Scanner;
+import jolie.net.DispatchExecutor;
 import jolie.runtime.correlation.CorrelationEngine;
 import jolie.util.Helpers;
 
@@ -62,7 +63,15 @@ public class CommandLineParser implements Closeable
 	private final static Pattern OPTION_SEPARATOR_PATTERN = Pattern.compile( " " );
 
 	private final int connectionsLimit;
+	private final int connectionsQueue;
+	private final DispatchExecutor.OverloadPolicy overloadPolicy;
+	private final boolean virtualThreads;
+	private final int acceptors;
+	private final int acceptQueue;
+	private final int writeBatch;
+	private final long writeDelay;
 	private final int connectionsCache;
+	private final int connectionsCacheMinimum;
 	private final CorrelationEngine.Type correlationAlgorithmType;
 	private final String[] includePaths;
 	private final String[] optionArgs;
@@ -197,15 +206,98 @@ public class CommandLineParser implements Closeable
 		return connectionsLimit;
 	}
 
+	/**
+	 * Returns the maximum number of incoming messages waiting for a free
+	 * connection thread, passed by command line with the --connqueue option.
+	 * @return the connection queue parameter passed by command line
+	 */
+	public int connectionsQueue()
+	{
+		return connectionsQueue;
+	}
+
+	/**
+	 * Returns the policy for incoming messages exceeding the connection queue,
+	 * passed by command line with the --overload option.
+	 * @return the overload policy passed by command line
+	 */
+	public DispatchExecutor.OverloadPolicy overloadPolicy()
+	{
+		return overloadPolicy;
+	}
+
+	/**
+	 * Returns the number of threads accepting connections for each socket
+	 * input port, passed by command line with the --acceptors option.
+	 * @return the number of acceptor threads for each socket input port
+	 */
+	public int acceptors()
+	{
+		return acceptors;
+	}
+
+	/**
+	 * Returns the maximum number of connections waiting to be accepted by
+	 * a socket input port, passed by command line with the --acceptqueue option.
+	 * @return the accept queue parameter passed by command line
+	 */
+	public int acceptQueue()
+	{
+		return acceptQueue;
+	}
+
+	/**
+	 * Returns the maximum number of messages that a socket channel may
+	 * write at once, passed by command line with the --writebatch option.
+	 * @return the write batch parameter passed by command line
+	 */
+	public int writeBatch()
+	{
+		return writeBatch;
+	}
+
+	/**
+	 * Returns how long (in milliseconds) a socket channel may wait for
+	 * other messages to write together with the last one, passed by
+	 * command line with the --writedelay option.
+	 * @return the write delay parameter passed by command line
+	 */
+	public long writeDelay()
+	{
+		return writeDelay;
+	}
+
+	/**
+	 * Returns <code>true</code> if sessions and connection handlers should run
+	 * on virtual threads, as requested with the --threads option.
+	 * @return <code>true</code> if virtual threads were requested
+	 */
+	public boolean virtualThreads()
+	{
+		return virtualThreads;
+	}
+
 	/**
 	 * Returns the connection cache parameter
 	 * passed by command line with the --conncache option.
+	 * This is a soft limit, see {@link jolie.net.CommChannelPool}.
 	 * @return the connection cache parameter passed by command line
 	 */
 	public int connectionsCache()
 	{
 		return connectionsCache;
 	}
+
+	/**
+	 * Returns the minimum number of idle persistent output connections to keep
+	 * for each location, passed by command line with the --conncachemin option.
+	 * Idle connections are only kept, never opened, to reach this number.
+	 * @return the connection cache minimum parameter passed by command line
+	 */
+	public int connectionsCacheMinimum()
+	{
+		return connectionsCacheMinimum;
+	}
 	
 	private static String getOptionString( String option, String description )
 	{
@@ -245,7 +337,23 @@ public class CommandLineParser implements Closeable
 		helpBuilder.append(
 				getOptionString( "--connlimit [number]", "Set the maximum number of active connection threads" ) );
 		helpBuilder.append(
-				getOptionString( "--conncache [number]", "Set the maximum number of cached persistent output connections" ) );
+				getOptionString( "--connqueue [number]", "Set the maximum number of incoming messages waiting for a connection thread, when --connlimit is set (default: 100)" ) );
+		helpBuilder.append(
+				getOptionString( "--overload [reject|shed|block]", "Set what to do with incoming messages exceeding --connqueue: refuse them, refuse the oldest waiting ones, or stop reading until there is room (default: block)" ) );
+		helpBuilder.append(
+				getOptionString( "--acceptors [number]", "Set the number of threads accepting connections for each socket input port (default: 1)" ) );
+		helpBuilder.append(
+				getOptionString( "--acceptqueue [number]", "Set the maximum number of connections waiting to be accepted by each socket input port (default: 1024)" ) );
+		helpBuilder.append(
+				getOptionString( "--writebatch [number]", "Set the maximum number of outgoing messages written at once on a socket connection (default: 16)" ) );
+		helpBuilder.append(
+				getOptionString( "--writedelay [milliseconds]", "Set how long a socket connection may wait for more outgoing messages before writing, 0 for not waiting (default: 0)" ) );
+		helpBuilder.append(
+				getOptionString( "--threads [platform|virtual]", "Set the kind of threads running sessions and connection handlers; virtual threads require Java 21 (default: platform)" ) );
+		helpBuilder.append(
+				getOptionString( "--conncache [number]", "Set the number of persistent output connections per location that are lent and cached; this is a soft limit, since requests waiting too long for a connection open an extra one, which is closed when released (0 disables the cache)" ) );
+		helpBuilder.append(
+				getOptionString( "--conncachemin [number]", "Set the number of idle persistent output connections per location that are not closed when idle for too long; connections are not opened to reach it (default: 0)" ) );
 		helpBuilder.append(
 				getOptionString( "--correlationAlgorithm [simple|hash]", "Set the algorithm to use for message correlation" ) );
 		helpBuilder.append(
@@ -375,7 +483,15 @@ public class CommandLineParser implements Closeable
 		LinkedList< String > includeList = new LinkedList<>();
 		List< String > libList = new ArrayList<>();
 		int cLimit = -1;
+		int cQueue = 100;
+		String overloadPolicyName = "block";
+		boolean bVirtualThreads = false;
+		int nAcceptors = 1;
+		int aQueue = 1024;
+		int wBatch = 16;
+		long wDelay = 0;
 		int cCache = 100;
+		int cCacheMin = 0;
 		String pwd = new File( "" ).getCanonicalPath();
 		includeList.add( pwd );
 		includeList.add( "include" );
@@ -421,11 +537,64 @@ public class CommandLineParser implements Closeable
 				i++;
 				cLimit = Integer.parseInt( argsList.get( i ) );
 				optionsList.add( argsList.get( i ) );
+			} else if ( "--connqueue".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				cQueue = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if ( "--overload".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				overloadPolicyName = argsList.get( i );
+				optionsList.add( argsList.get( i ) );
+			} else if ( "--acceptors".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				nAcceptors = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+				if ( nAcceptors < 1 ) {
+					throw new CommandLineException( "The number of acceptors must be positive: " + nAcceptors );
+				}
+			} else if ( "--acceptqueue".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				aQueue = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if ( "--writebatch".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				wBatch = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+				if ( wBatch < 1 ) {
+					throw new CommandLineException( "The write batch size must be positive: " + wBatch );
+				}
+			} else if ( "--writedelay".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				wDelay = Long.parseLong( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if ( "--threads".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				String threadsStr = argsList.get( i );
+				optionsList.add( argsList.get( i ) );
+				if ( "virtual".equals( threadsStr ) ) {
+					bVirtualThreads = true;
+				} else if ( "platform".equals( threadsStr ) ) {
+					bVirtualThreads = false;
+				} else {
+					throw new CommandLineException( "Unrecognized kind of threads: " + threadsStr );
+				}
 			} else if ( "--conncache".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				i++;
 				cCache = Integer.parseInt( argsList.get( i ) );
 				optionsList.add( argsList.get( i ) );
+			} else if ( "--conncachemin".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				cCacheMin = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
 			} else if ( "--correlationAlgorithm".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				i++;
@@ -525,6 +694,10 @@ public class CommandLineParser implements Closeable
 		if ( correlationAlgorithmType == null ) {
 			throw new CommandLineException( "Unrecognized correlation algorithm: " + csetAlgorithmName );
 		}
+		overloadPolicy = DispatchExecutor.OverloadPolicy.fromString( overloadPolicyName );
+		if ( overloadPolicy == null ) {
+			throw new CommandLineException( "Unrecognized overload policy: " + overloadPolicyName );
+		}
 		optionArgs = optionsList.toArray( new String[ optionsList.size() ] );
 		arguments = programArgumentsList.toArray( new String[ programArgumentsList.size() ] );
 		// whitepages = whitepageList.toArray( new String[ whitepageList.size() ] );
@@ -534,7 +707,14 @@ public class CommandLineParser implements Closeable
 		}
 	
 		connectionsLimit = cLimit;
+		connectionsQueue = cQueue;
+		virtualThreads = bVirtualThreads;
+		acceptors = nAcceptors;
+		acceptQueue = aQueue;
+		writeBatch = wBatch;
+		writeDelay = wDelay;
 		connectionsCache = cCache;
+		connectionsCacheMinimum = cCacheMin;
         
 		List< URL > urls = new ArrayList<>();
 		for( String path : libList ) {
@@ -165,6 +165,7 @@ public abstract class ExecutionThread extends JolieThread
 	private boolean canBeInterrupted = false;
 	private FaultException killerFault = null;
 	private Future<?> taskFuture;
+	private long deadline = 0L;
 	
 	private void setTaskFuture( Future<?> taskFuture )
 	{
@@ -189,6 +190,7 @@ public abstract class ExecutionThread extends JolieThread
 		super( parent.interpreter() );
 		this.process = process;
 		this.parent = parent;
+		this.deadline = parent.deadline;
 	}
 	
 	/**
@@ -203,6 +205,28 @@ public abstract class ExecutionThread extends JolieThread
 		this.parent = null;
 	}
 
+	/**
+	 * Returns the time (in milliseconds since the epoch) by which the request
+	 * being served by this thread must be answered, or 0 if there is none.
+	 * Requests sent by this thread do not wait for responses beyond it.
+	 * @return the deadline of the request being served, or 0
+	 */
+	public long deadline()
+	{
+		return deadline;
+	}
+
+	/**
+	 * Sets the deadline of the request being served by this thread.
+	 * Threads started afterwards by this thread inherit it.
+	 * @param deadline the deadline, or 0 for none
+	 * @see #deadline()
+	 */
+	public void setDeadline( long deadline )
+	{
+		this.deadline = deadline;
+	}
+
 	/**
 	 * Kills this ExecutionThread, interrupting its activity as soon as possible.
 	 * @param fault the fault causing the interruption.
@@ -427,7 +451,32 @@ public abstract class ExecutionThread extends JolieThread
 			return ((CommChannelHandler)currThread).executionThread();
 		}
 
-		return null;
+		return virtualThreadContext.get();
+	}
+
+	/*
+	 * Virtual threads can not be subclassed, so they can not carry the
+	 * ExecutionThread they refer to like JolieExecutorThread and CommChannelHandler do.
+	 */
+	private static final ThreadLocal< ExecutionThread > virtualThreadContext = new ThreadLocal<>();
+
+	/**
+	 * Sets the ExecutionThread the current thread should refer to.
+	 * @param ethread the ExecutionThread the current thread should refer to
+	 * @see #currentThread()
+	 */
+	public static void setCurrentThread( ExecutionThread ethread )
+	{
+		Thread currThread = Thread.currentThread();
+		if ( currThread instanceof JolieExecutorThread ) {
+			((JolieExecutorThread)currThread).setExecutionThread( ethread );
+		} else if ( currThread instanceof CommChannelHandler ) {
+			((CommChannelHandler)currThread).setExecutionThread( ethread );
+		} else if ( ethread == null ) {
+			virtualThreadContext.remove();
+		} else {
+			virtualThreadContext.set( ethread );
+		}
 	}
 
 	/**
@@ -463,9 +512,8 @@ public abstract class ExecutionThread extends JolieThread
 	@Override
 	public final void run()
 	{
-		JolieExecutorThread t = JolieExecutorThread.currentThread();
-		t.setExecutionThread( this );
-		t.setContextClassLoader( interpreter().getClassLoader() );
+		setCurrentThread( this );
+		Thread.currentThread().setContextClassLoader( interpreter().getClassLoader() );
 		runProcess();
 	}
 	
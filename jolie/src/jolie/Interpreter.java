@@ -27,33 +27,28 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.PrintStream;
-import java.lang.ref.WeakReference;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import jolie.lang.Constants;
 import jolie.lang.parse.OLParseTreeOptimizer;
@@ -83,6 +78,7 @@ import jolie.runtime.InvalidIdException;
 import jolie.runtime.OneWayOperation;
 import jolie.runtime.RequestResponseOperation;
 import jolie.runtime.TimeoutHandler;
+import jolie.runtime.TimeoutWheel;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.correlation.CorrelationEngine;
@@ -143,9 +139,9 @@ public class Interpreter
 			 * were to call that directly from here.
 			 */
 			execute( new Runnable() {
-				private void pushMessages( Deque< SessionMessage > queue )
+				private void pushMessages( List< SessionMessage > messages )
 				{
-					for( SessionMessage message : queue ) {
+					for( SessionMessage message : messages ) {
 						try {
 							correlationEngine.onMessageReceive( message.message(), message.channel() );
 						} catch( CorrelationError e ) {
@@ -161,10 +157,8 @@ public class Interpreter
 
 				public void run()
 				{
-					for( Deque< SessionMessage > queue : messageQueues.values() ) {
-						pushMessages( queue );
-					}
-					pushMessages( uncorrelatedMessageQueue );
+					// Messages routed to us from now on go to the next session
+					pushMessages( endReception() );
 				}
 			});
 		}
@@ -176,36 +170,6 @@ public class Interpreter
 		}
 	}
 	
-	private static class JolieExecutionThreadFactory implements ThreadFactory {
-		private final Interpreter interpreter;
-		public JolieExecutionThreadFactory( Interpreter interpreter )
-		{
-			this.interpreter = interpreter;
-		}
-		public Thread newThread( Runnable r )
-		{
-			JolieExecutorThread t = new JolieExecutorThread( r, interpreter );
-			if ( r instanceof ExecutionThread ) {
-				t.setExecutionThread( (ExecutionThread)r );
-			}
-			return t;
-		}
-	}
-	
-	private static class NativeJolieThreadFactory implements ThreadFactory {
-		private final Interpreter interpreter;
-		
-		public NativeJolieThreadFactory( Interpreter interpreter )
-		{
-			this.interpreter = interpreter;
-		}
-		
-		public Thread newThread( Runnable r )
-		{
-			return new NativeJolieThread( interpreter, r );
-		}
-	}
-	
 	public static class SessionStarter
 	{
 		private final InputOperationProcess guard;
@@ -270,19 +234,16 @@ public class Interpreter
 	private final String logPrefix;
 	private final Tracer tracer;
         private boolean check = false;
-	private final Timer timer;
 	// private long inputMessageTimeout = 24 * 60 * 60 * 1000; // 1 day
 	private final long persistentConnectionTimeout = 60 * 60 * 1000; // 1 hour
 	private final long awaitTerminationTimeout = 60 * 1000; // 1 minute
 	// private long persistentConnectionTimeout = 2 * 60 * 1000; // 4 minutes
 	// private long persistentConnectionTimeout = 1;
 
-	// 11 is the default initial capacity for PriorityQueue
-	private final Queue< WeakReference< TimeoutHandler > > timeoutHandlerQueue =
-		new PriorityQueue<>( 11, new TimeoutHandler.Comparator() );
-	
-	private final ExecutorService timeoutHandlerExecutor =
-		Executors.newSingleThreadExecutor( new NativeJolieThreadFactory( this ) );
+	private final SharedRuntime sharedRuntime;
+	// Runs the expired timeout handlers one at a time on the native executor
+	private final Executor timeoutHandlerExecutor;
+	private final TimeoutWheel timeoutWheel;
 
 	private final String programFilename;
 	private final File programDirectory;
@@ -355,57 +316,48 @@ public class Interpreter
 	public void schedule( TimerTask task, long delay )
 	{
 		if ( exiting == false ) {
-			timer.schedule( task, delay );
+			addTimeoutHandler( new TimeoutHandler( delay ) {
+				@Override
+				protected void onTimeout()
+				{
+					if ( exiting == false ) {
+						task.run();
+					}
+				}
+			} );
 		}
 	}
 
 	public void addTimeoutHandler( TimeoutHandler handler )
 	{
-		synchronized( timeoutHandlerQueue ) {
-			timeoutHandlerQueue.add( new WeakReference< TimeoutHandler >( handler ) );
-			if ( timeoutHandlerQueue.size() == 1 ) {
-				schedule( new TimerTask() {
-					public void run()
-					{
-						synchronized( timeoutHandlerQueue ) {
-							checkForExpiredTimeoutHandlers();
-						}
-					}
-				}, handler.time() - System.currentTimeMillis() + 1 );
-			} else {
-				checkForExpiredTimeoutHandlers();
-			}
-		}
+		timeoutWheel.add( handler );
 	}
 
-	/*public void removeTimeoutHandler( TimeoutHandler handler )
+	/**
+	 * Returns the number of timeout handlers that are waiting to expire.
+	 * @return the number of timeout handlers that are waiting to expire
+	 */
+	public int pendingTimeoutHandlers()
 	{
-		synchronized( timeoutHandlerQueue ) {
-			timeoutHandlerQueue.remove( handler );
-			checkForExpiredTimeoutHandlers();
-		}
-	}*/
+		return timeoutWheel.pendingCount();
+	}
 
-	private void checkForExpiredTimeoutHandlers()
-	{
-		long currentTime = System.currentTimeMillis();
-		WeakReference< TimeoutHandler > whandler = timeoutHandlerQueue.peek();
-		boolean keepRun = true;
-		TimeoutHandler handler;
-		while( whandler != null && keepRun ) {
-			handler = whandler.get();
-			if ( handler == null ) {
-				timeoutHandlerQueue.remove();
-				whandler = timeoutHandlerQueue.peek();
-			} else if ( handler.time() < currentTime || exiting ) {
-				// final TimeoutHandler h = handler;
-				timeoutHandlerExecutor.execute( handler );
-				timeoutHandlerQueue.poll();
-				whandler = timeoutHandlerQueue.peek();
-			} else {
-				keepRun = false;
-			}
-		}
+	private final AtomicInteger queuedMessages = new AtomicInteger( 0 );
+
+	/**
+	 * Returns the number of received messages that are waiting to be
+	 * consumed by a session, or, in sequential execution mode, for the
+	 * session they start to be executed.
+	 * @return the number of received messages waiting to be consumed
+	 */
+	public int queuedMessages()
+	{
+		return queuedMessages.get();
+	}
+
+	void updateQueuedMessages( int delta )
+	{
+		queuedMessages.addAndGet( delta );
 	}
 	
 	/**
@@ -628,11 +580,9 @@ public class Interpreter
 		} finally {
 			exitingLock.unlock();
 		}
-		timer.cancel();
-		checkForExpiredTimeoutHandlers();
+		timeoutWheel.stop();
 		processExecutorService.shutdown();
 		nativeExecutorService.shutdown();
-		timeoutHandlerExecutor.shutdown();
 		commCore.shutdown();
 		try {
 			nativeExecutorService.awaitTermination( terminationTimeout, TimeUnit.MILLISECONDS );
@@ -640,10 +590,8 @@ public class Interpreter
 		try {
 			processExecutorService.awaitTermination( terminationTimeout, TimeUnit.MILLISECONDS );
 		} catch ( InterruptedException e ) {}
-		try {
-			timeoutHandlerExecutor.awaitTermination( terminationTimeout, TimeUnit.MILLISECONDS );
-		} catch ( InterruptedException e ) {}
 		free();
+		sharedRuntime.release();
 	}
 
 	/**
@@ -794,7 +742,8 @@ public class Interpreter
 		if ( t instanceof InterpreterThread ) {
 			return ((InterpreterThread)t).interpreter();
 		}
-		return null;
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		return ( ethread == null ) ? null : ethread.interpreter();
 	}
 	
 	/**
@@ -827,11 +776,33 @@ public class Interpreter
 	public Interpreter( String[] args, ClassLoader parentClassLoader, File programDirectory )
 		throws CommandLineException, FileNotFoundException, IOException
 	{
-        this( args, parentClassLoader, programDirectory, false );
+        this( args, parentClassLoader, programDirectory, false, null );
+	}
+
+	/** Constructor.
+	 *
+	 * @param args The command line arguments.
+	 * @param parentClassLoader the parent ClassLoader to fall back when not finding resources.
+	 * @param programDirectory the program directory of this Interpreter, necessary if it is run inside a JAP file.
+	 * @param sharedRuntime the runtime shared with other interpreters, or <code>null</code> for using a new one
+	 * @throws CommandLineException if the command line is not valid or asks for simple information. (like --help and --version)
+	 * @throws FileNotFoundException if one of the passed input files is not found.
+	 * @throws IOException if a Scanner constructor signals an error.
+	 */
+	public Interpreter( String[] args, ClassLoader parentClassLoader, File programDirectory, SharedRuntime sharedRuntime )
+		throws CommandLineException, FileNotFoundException, IOException
+	{
+        this( args, parentClassLoader, programDirectory, false, sharedRuntime );
 	}
     
     public Interpreter( String[] args, ClassLoader parentClassLoader, File programDirectory, boolean ignoreFile )
 		throws CommandLineException, FileNotFoundException, IOException
+	{
+		this( args, parentClassLoader, programDirectory, ignoreFile, null );
+	}
+
+	private Interpreter( String[] args, ClassLoader parentClassLoader, File programDirectory, boolean ignoreFile, SharedRuntime sharedRuntime )
+		throws CommandLineException, FileNotFoundException, IOException
 	{
 		this.parentClassLoader = parentClassLoader;
         
@@ -842,8 +813,18 @@ public class Interpreter
 		arguments = cmdParser.arguments();
         
 		this.correlationEngine = cmdParser.correlationAlgorithmType().createInstance( this );
+
+		this.sharedRuntime = ( sharedRuntime == null ) ? new SharedRuntime() : sharedRuntime;
+		nativeExecutorService = this.sharedRuntime.newNativeExecutor( this );
+		timeoutHandlerExecutor = SharedRuntime.newSerialExecutor( this, nativeExecutorService );
+		virtualThreads = cmdParser.virtualThreads() && VirtualThreads.isSupported();
+		if ( virtualThreads ) {
+			processExecutorService = VirtualThreads.newThreadPerTaskExecutor( programFilename + "-JolieThread-" );
+		} else {
+			processExecutorService = this.sharedRuntime.newProcessExecutor( this );
+		}
 		
-        commCore = new CommCore( this, cmdParser.connectionsLimit() /*, cmdParser.connectionsCache() */ );
+        commCore = new CommCore( this, cmdParser.connectionsLimit(), cmdParser.connectionsQueue(), cmdParser.overloadPolicy(), cmdParser.connectionsCache(), cmdParser.connectionsCacheMinimum(), cmdParser.acceptors(), cmdParser.acceptQueue(), cmdParser.writeBatch(), cmdParser.writeDelay(), cmdParser.logLevel().intValue() <= Level.FINE.intValue() );
 		includePaths = cmdParser.includePaths();
 
 		StringBuilder builder = new StringBuilder();
@@ -859,8 +840,10 @@ public class Interpreter
 		}
 		
 		logger.setLevel( cmdParser.logLevel() );
+		if ( cmdParser.virtualThreads() && !virtualThreads ) {
+			logWarning( "Virtual threads are not supported by this Java platform (Java 21 or later is required), using platform threads" );
+		}
 		
-		timer = new Timer( programFilename + "-Timer" );
 		exitingLock = new ReentrantLock();
 		exitingCondition = exitingLock.newCondition();
 
@@ -872,6 +855,8 @@ public class Interpreter
 		if ( this.programDirectory == null ) {
 			throw new IOException( "Could not localize the service execution directory. This is probably a bug in the JOLIE interpreter, please report it to jolie-devel@lists.sf.net" );
 		}
+		timeoutWheel = new TimeoutWheel( timeoutHandlerExecutor, this.sharedRuntime.ticker() );
+		this.sharedRuntime.acquire();
 	}
    
     /** Constructor.
@@ -887,7 +872,7 @@ public class Interpreter
 	public Interpreter( String[] args, ClassLoader parentClassLoader, File programDirectory, Interpreter parentInterpreter, Program internalServiceProgram )
 		throws CommandLineException, FileNotFoundException, IOException
 	{
-        this( args, parentClassLoader, programDirectory, true );
+        this( args, parentClassLoader, programDirectory, true, parentInterpreter.sharedRuntime() );
         
 		this.parentInterpreter = parentInterpreter;
         this.internalServiceProgram = internalServiceProgram;
@@ -907,6 +892,16 @@ public class Interpreter
 		return parentInterpreter;
 	}
 
+	/**
+	 * Returns the runtime that this interpreter shares with the interpreters
+	 * of its embedded services.
+	 * @return the runtime shared by this interpreter
+	 */
+	public SharedRuntime sharedRuntime()
+	{
+		return sharedRuntime;
+	}
+
 	/**
 	 * Returns the program filename this interpreter was launched with.
 	 * @return the program filename this interpreter was launched with
@@ -1125,12 +1120,21 @@ public class Interpreter
 		runCode();
 	}
 
-	private final ExecutorService nativeExecutorService =
-		new JolieThreadPoolExecutor( new NativeJolieThreadFactory( this ) );
+	private final ExecutorService nativeExecutorService;
 		// Executors.newCachedThreadPool( new NativeJolieThreadFactory( this ) );
-	private final ExecutorService processExecutorService =
-		new JolieThreadPoolExecutor( new JolieExecutionThreadFactory( this ) );
+	private final ExecutorService processExecutorService;
 		// Executors.newCachedThreadPool( new JolieExecutionThreadFactory( this ) );
+	private final boolean virtualThreads;
+
+	/**
+	 * Returns <code>true</code> if this interpreter runs its sessions and
+	 * connection handlers on virtual threads.
+	 * @return <code>true</code> if this interpreter uses virtual threads
+	 */
+	public boolean usesVirtualThreads()
+	{
+		return virtualThreads;
+	}
 
 	/**
 	 * Runs an asynchronous task in this Interpreter internal thread pool.
@@ -1359,6 +1363,7 @@ public class Interpreter
 						if ( !waitingSessionThreads.isEmpty() ) {
 							waitingSessionThreads.poll();
 							if ( !waitingSessionThreads.isEmpty() ) {
+								updateQueuedMessages( -1 );
 								waitingSessionThreads.peek().start();
 							}
 						}
@@ -1372,6 +1377,7 @@ public class Interpreter
 						if ( !waitingSessionThreads.isEmpty() ) {
 							waitingSessionThreads.poll();
 							if( !waitingSessionThreads.isEmpty() ){
+								updateQueuedMessages( -1 );
 								waitingSessionThreads.peek().start();
 							}
 						}
@@ -1384,7 +1390,9 @@ public class Interpreter
 					waitingSessionThreads.add( spawnedSession );
 					waitingSessionThreads.peek().start();
 				} else {
+					// The message waits for the sessions before it to be executed
 					waitingSessionThreads.add( spawnedSession );
+					updateQueuedMessages( 1 );
 				}
 			}
 		}
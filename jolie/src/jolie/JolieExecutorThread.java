@@ -34,6 +34,14 @@ public class JolieExecutorThread extends Thread implements InterpreterThread
 	{
 		super( r, interpreter.programFilename() + "-" + JolieThread.createThreadName() );
 	}
+
+	/**
+	 * Constructor for the threads of a {@link SharedRuntime}.
+	 */
+	JolieExecutorThread( ThreadGroup group, Runnable r, String name )
+	{
+		super( group, r, name );
+	}
 	
 	/**
 	 * Sets the <code>ExecutionThread</code> this thread must refer to.
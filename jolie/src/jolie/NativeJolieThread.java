@@ -23,7 +23,7 @@ package jolie;
 
 public class NativeJolieThread extends Thread implements InterpreterThread
 {
-	private final Interpreter interpreter;
+	private Interpreter interpreter;
 	
 	/**
 	 * Constructor
@@ -65,6 +65,21 @@ public class NativeJolieThread extends Thread implements InterpreterThread
 		this.interpreter = interpreter;
 	}
 	
+	/**
+	 * Constructor for the threads of a {@link SharedRuntime}, which refer to
+	 * the interpreter of the task they are running.
+	 */
+	NativeJolieThread( ThreadGroup group, Runnable r, String name )
+	{
+		super( group, r, name );
+		this.interpreter = null;
+	}
+
+	void setInterpreter( Interpreter interpreter )
+	{
+		this.interpreter = interpreter;
+	}
+	
 	/**
 	 * Returns the interpreter that this thread refers to.
 	 */
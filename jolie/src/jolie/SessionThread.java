@@ -178,6 +178,8 @@ public class SessionThread extends ExecutionThread
 	private final List< SessionListener > listeners = new ArrayList<>();
 	protected final Map< CorrelationSet, Deque< SessionMessage > > messageQueues = new HashMap<>();
 	protected final Deque< SessionMessage > uncorrelatedMessageQueue = new ArrayDeque<>();
+	// Guarded by messageQueues: messages pushed after the session has ended are refused
+	private boolean ended = false;
 	private final Map< String, Deque< SessionMessageFuture > > messageWaiters =	new HashMap<>();
 
 	private final static VariablePath typeMismatchPath;
@@ -362,6 +364,7 @@ public class SessionThread extends ExecutionThread
 			} else {
 				future.setResult( message );
 				queue.removeFirst();
+				interpreter().updateQueuedMessages( -1 );
 
 				// Check if we unlocked other receives
 				boolean keepRun = true;
@@ -372,6 +375,7 @@ public class SessionThread extends ExecutionThread
 					if ( f != null ) { // We found a waiter for the unlocked message
 						f.setResult( message );
 						queue.removeFirst();
+						interpreter().updateQueuedMessages( -1 );
 					} else {
 						keepRun = false;
 					}
@@ -399,6 +403,7 @@ public class SessionThread extends ExecutionThread
 			} else {
 				future.setResult( message );
 				queue.removeFirst();
+				interpreter().updateQueuedMessages( -1 );
 
 				// Check if we unlocked other receives
 				boolean keepRun = true;
@@ -408,6 +413,7 @@ public class SessionThread extends ExecutionThread
 					if ( currFuture != null ) { // We found a waiter for the unlocked message
 						currFuture.setResult( otherMessage );
 						queue.removeFirst();
+						interpreter().updateQueuedMessages( -1 );
 					} else {
 						keepRun = false;
 					}
@@ -441,9 +447,17 @@ public class SessionThread extends ExecutionThread
 		return waitersList.removeFirst();
 	}
 
-	public void pushMessage( SessionMessage message )
+	/**
+	 * Delivers a message to this session.
+	 * @param message the message to deliver
+	 * @return <code>false</code> if this session has ended and can not receive the message
+	 */
+	public boolean pushMessage( SessionMessage message )
 	{
 		synchronized( messageQueues ) {
+			if ( ended ) {
+				return false;
+			}
 			Deque< SessionMessage > queue;
 			CorrelationSet cset = interpreter().getCorrelationSetForOperation( message.message().operationName() );
 			if ( cset != null ) {
@@ -456,12 +470,56 @@ public class SessionThread extends ExecutionThread
 				future.setResult( message );
 			} else {
 				queue.addLast( message );
+				interpreter().updateQueuedMessages( 1 );
+			}
+		}
+		return true;
+	}
+
+	// Must be called holding the lock of messageQueues
+	private void end()
+	{
+		if ( !ended ) {
+			ended = true;
+			int n = uncorrelatedMessageQueue.size();
+			for( Deque< SessionMessage > queue : messageQueues.values() ) {
+				n += queue.size();
+			}
+			interpreter().updateQueuedMessages( -n );
+		}
+	}
+
+	/**
+	 * Stops this session from receiving messages, so that
+	 * {@link #pushMessage(jolie.net.SessionMessage)} refuses the following ones.
+	 * @return the messages received by this session that it did not consume
+	 */
+	protected List< SessionMessage > endReception()
+	{
+		final List< SessionMessage > messages = new ArrayList<>();
+		synchronized( messageQueues ) {
+			end();
+			for( Deque< SessionMessage > queue : messageQueues.values() ) {
+				messages.addAll( queue );
 			}
+			messages.addAll( uncorrelatedMessageQueue );
 		}
+		return messages;
 	}
 
 	@Override
 	public void runProcess()
+	{
+		try {
+			runSession();
+		} finally {
+			synchronized( messageQueues ) {
+				end();
+			}
+		}
+	}
+
+	private void runSession()
 	{
 		try {
 			try {
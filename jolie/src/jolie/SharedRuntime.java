@@ -0,0 +1,359 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jolie.net.CommChannelHandler;
+import jolie.net.SelectorPool;
+import jolie.runtime.TimeoutWheel;
+
+/**
+ * The threads shared by the interpreters running in the same JVM: an
+ * interpreter running an embedded service uses the shared runtime of its
+ * parent, so that a composite service does not start a set of thread
+ * pools, selector threads and timers for each of its services.
+ *
+ * Each interpreter runs its tasks through its own views of the shared
+ * thread pools (see {@link #newProcessExecutor(jolie.Interpreter)}), which
+ * can be shut down and awaited without affecting the other interpreters.
+ * Shared threads refer to the interpreter of the task they are running.
+ *
+ * A shared runtime is acquired by each interpreter using it and released
+ * when the interpreter exits; its threads are stopped when the last
+ * interpreter releases it.
+ */
+public class SharedRuntime
+{
+	private static final AtomicInteger counter = new AtomicInteger();
+
+	// The shared threads are not in the thread groups of the CommCore instances, which interrupt them on shutdown
+	private final ThreadGroup threadGroup;
+	private final ThreadPoolExecutor processPool;
+	private final ThreadPoolExecutor nativePool;
+	private final ThreadPoolExecutor commPool;
+	private final TimeoutWheel.Ticker ticker = new TimeoutWheel.Ticker();
+	private final SelectorPool selectorPool;
+	private int references = 0;
+	private boolean terminated = false;
+
+	/**
+	 * Creates a new shared runtime. Its threads are started when needed.
+	 * @throws IOException if the selectors of the selector threads cannot be opened
+	 */
+	public SharedRuntime()
+		throws IOException
+	{
+		threadGroup = new ThreadGroup( "Jolie-" + counter.incrementAndGet() );
+		processPool = new JolieThreadPoolExecutor(
+			( r ) -> new JolieExecutorThread( threadGroup, r, threadName() )
+		);
+		nativePool = new JolieThreadPoolExecutor(
+			( r ) -> new NativeJolieThread( threadGroup, r, threadName() )
+		);
+		commPool = new JolieThreadPoolExecutor(
+			( r ) -> new CommChannelHandler( threadGroup, r, threadGroup.getName() + "-CommChannelHandler-" + JolieThread.createThreadName() )
+		);
+		selectorPool = new SelectorPool( threadGroup, Runtime.getRuntime().availableProcessors() );
+	}
+
+	private String threadName()
+	{
+		return threadGroup.getName() + "-" + JolieThread.createThreadName();
+	}
+
+	/**
+	 * Registers a new interpreter using this runtime.
+	 * @throws IllegalStateException if this runtime has already been released by all its interpreters
+	 */
+	public synchronized void acquire()
+	{
+		if ( terminated ) {
+			throw new IllegalStateException( "The shared runtime has been shut down" );
+		}
+		if ( references++ == 0 ) {
+			ticker.start( ( r ) -> new Thread( threadGroup, r, threadGroup.getName() ) );
+		}
+	}
+
+	/**
+	 * Unregisters an interpreter using this runtime, stopping all the shared
+	 * threads if it was the last one.
+	 */
+	public void release()
+	{
+		synchronized( this ) {
+			if ( --references > 0 ) {
+				return;
+			}
+			terminated = true;
+		}
+		ticker.stop();
+		processPool.shutdown();
+		nativePool.shutdown();
+		commPool.shutdown();
+		selectorPool.shutdown();
+	}
+
+	/**
+	 * Returns the ticker advancing the timeout wheels of the interpreters.
+	 * @return the ticker advancing the timeout wheels of the interpreters
+	 */
+	public TimeoutWheel.Ticker ticker()
+	{
+		return ticker;
+	}
+
+	/**
+	 * Returns the selector threads used by the CommCore of each interpreter.
+	 * @return the selector threads used by the CommCore of each interpreter
+	 */
+	public SelectorPool selectorPool()
+	{
+		return selectorPool;
+	}
+
+	/**
+	 * Returns a new executor running the process threads of an interpreter.
+	 * @param interpreter the interpreter of the executor
+	 * @return a new executor running the process threads of an interpreter
+	 */
+	public ExecutorService newProcessExecutor( Interpreter interpreter )
+	{
+		return new View( interpreter, processPool );
+	}
+
+	/**
+	 * Returns a new executor running the internal tasks of an interpreter.
+	 * @param interpreter the interpreter of the executor
+	 * @return a new executor running the internal tasks of an interpreter
+	 */
+	public ExecutorService newNativeExecutor( Interpreter interpreter )
+	{
+		return new View( interpreter, nativePool );
+	}
+
+	/**
+	 * Returns a new executor running the communication handlers of an interpreter.
+	 * @param interpreter the interpreter of the executor
+	 * @return a new executor running the communication handlers of an interpreter
+	 */
+	public ExecutorService newCommExecutor( Interpreter interpreter )
+	{
+		return new View( interpreter, commPool );
+	}
+
+	/**
+	 * Returns an executor running its tasks one at a time, in submission
+	 * order, using the given executor.
+	 * @param interpreter the interpreter logging the failures of the tasks
+	 * @param executor the executor to run the tasks with
+	 * @return an executor running its tasks one at a time
+	 */
+	public static Executor newSerialExecutor( Interpreter interpreter, Executor executor )
+	{
+		return new SerialExecutor( interpreter, executor );
+	}
+
+	private static final class SerialExecutor implements Executor
+	{
+		private final Interpreter interpreter;
+		private final Executor executor;
+		private final Queue< Runnable > tasks = new ArrayDeque<>();
+		private boolean draining = false;
+
+		private SerialExecutor( Interpreter interpreter, Executor executor )
+		{
+			this.interpreter = interpreter;
+			this.executor = executor;
+		}
+
+		@Override
+		public void execute( Runnable task )
+		{
+			synchronized( this ) {
+				tasks.add( task );
+				if ( draining ) {
+					return;
+				}
+				draining = true;
+			}
+			try {
+				executor.execute( this::drain );
+			} catch( RejectedExecutionException e ) {
+				synchronized( this ) {
+					tasks.clear();
+					draining = false;
+				}
+				throw e;
+			}
+		}
+
+		private void drain()
+		{
+			Runnable task;
+			while( true ) {
+				synchronized( this ) {
+					task = tasks.poll();
+					if ( task == null ) {
+						draining = false;
+						return;
+					}
+				}
+				try {
+					task.run();
+				} catch( RuntimeException e ) {
+					interpreter.logSevere( e );
+				}
+			}
+		}
+	}
+
+	/*
+	 * The tasks of an interpreter in a shared thread pool. Shutting down a
+	 * view rejects new tasks of its interpreter, and awaiting its termination
+	 * waits only for the tasks submitted through it.
+	 */
+	private static final class View extends AbstractExecutorService
+	{
+		private final Interpreter interpreter;
+		private final ThreadPoolExecutor pool;
+		private final Set< Thread > runningThreads = new HashSet<>();
+		private int activeCount = 0;
+		private boolean shutdown = false;
+
+		private View( Interpreter interpreter, ThreadPoolExecutor pool )
+		{
+			this.interpreter = interpreter;
+			this.pool = pool;
+		}
+
+		@Override
+		public void execute( Runnable task )
+		{
+			synchronized( this ) {
+				if ( shutdown ) {
+					throw new RejectedExecutionException( "The executor of " + interpreter.programFilename() + " has been shut down" );
+				}
+				activeCount++;
+			}
+			try {
+				pool.execute( () -> run( task ) );
+			} catch( RejectedExecutionException e ) {
+				done( null );
+				throw e;
+			}
+		}
+
+		private void run( Runnable task )
+		{
+			final Thread thread = Thread.currentThread();
+			final ClassLoader contextClassLoader = thread.getContextClassLoader();
+			synchronized( this ) {
+				runningThreads.add( thread );
+			}
+			if ( thread instanceof NativeJolieThread ) {
+				((NativeJolieThread)thread).setInterpreter( interpreter );
+			}
+			if ( interpreter.getClassLoader() != null ) {
+				thread.setContextClassLoader( interpreter.getClassLoader() );
+			}
+			try {
+				task.run();
+			} finally {
+				ExecutionThread.setCurrentThread( null );
+				if ( thread instanceof NativeJolieThread ) {
+					((NativeJolieThread)thread).setInterpreter( null );
+				}
+				thread.setContextClassLoader( contextClassLoader );
+				done( thread );
+				// Do not pass an interruption by shutdownNow on to the next task of the thread
+				Thread.interrupted();
+			}
+		}
+
+		private synchronized void done( Thread thread )
+		{
+			if ( thread != null ) {
+				runningThreads.remove( thread );
+			}
+			activeCount--;
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void shutdown()
+		{
+			shutdown = true;
+			notifyAll();
+		}
+
+		@Override
+		public synchronized List< Runnable > shutdownNow()
+		{
+			shutdown = true;
+			runningThreads.forEach( Thread::interrupt );
+			notifyAll();
+			return Collections.emptyList();
+		}
+
+		@Override
+		public synchronized boolean isShutdown()
+		{
+			return shutdown;
+		}
+
+		@Override
+		public synchronized boolean isTerminated()
+		{
+			return shutdown && activeCount == 0;
+		}
+
+		@Override
+		public synchronized boolean awaitTermination( long timeout, TimeUnit unit )
+			throws InterruptedException
+		{
+			final long deadline = System.nanoTime() + unit.toNanos( timeout );
+			while( !isTerminated() ) {
+				final long remaining = deadline - System.nanoTime();
+				if ( remaining <= 0 ) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait( this, remaining );
+			}
+			return true;
+		}
+	}
+}
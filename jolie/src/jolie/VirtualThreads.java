@@ -0,0 +1,113 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of the Java platform, when available (Java 21 or later).
+ * Virtual threads are looked up reflectively, so that Jolie can still be
+ * compiled for and run on older platforms.
+ *
+ * Virtual threads can not be subclassed: code running on them finds its
+ * ExecutionThread through {@link ExecutionThread#currentThread() } and its
+ * Interpreter through {@link Interpreter#getInstance() }, which do not
+ * depend on the class of the current thread.
+ */
+public final class VirtualThreads
+{
+	private static final Method ofVirtual;
+	private static final Method builderName;
+	private static final Method builderFactory;
+	private static final Method newThreadPerTaskExecutor;
+
+	static {
+		Method ov = null, bn = null, bf = null, ntpte = null;
+		try {
+			ov = Thread.class.getMethod( "ofVirtual" );
+			final Class< ? > builderClass = Class.forName( "java.lang.Thread$Builder" );
+			bn = builderClass.getMethod( "name", String.class, long.class );
+			bf = builderClass.getMethod( "factory" );
+			ntpte = Executors.class.getMethod( "newThreadPerTaskExecutor", ThreadFactory.class );
+			// Preview APIs (Java 19 and 20) are present but throw if not enabled
+			ov.invoke( null );
+		} catch( ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException | RuntimeException e ) {
+			ov = null;
+		}
+		ofVirtual = ov;
+		builderName = bn;
+		builderFactory = bf;
+		newThreadPerTaskExecutor = ntpte;
+	}
+
+	private VirtualThreads() {}
+
+	/**
+	 * Returns <code>true</code> if virtual threads are supported by the running platform.
+	 * @return <code>true</code> if virtual threads are supported by the running platform
+	 */
+	public static boolean isSupported()
+	{
+		return ofVirtual != null;
+	}
+
+	/**
+	 * Returns a factory of virtual threads named <code>namePrefix</code>
+	 * followed by a counter.
+	 * @param namePrefix the prefix for the names of the created threads
+	 * @return a factory of virtual threads
+	 * @throws UnsupportedOperationException if virtual threads are not supported
+	 */
+	public static ThreadFactory factory( String namePrefix )
+	{
+		if ( !isSupported() ) {
+			throw new UnsupportedOperationException( "Virtual threads require Java 21 or later" );
+		}
+		try {
+			final Object builder = builderName.invoke( ofVirtual.invoke( null ), namePrefix, 0L );
+			return (ThreadFactory)builderFactory.invoke( builder );
+		} catch( IllegalAccessException | InvocationTargetException e ) {
+			throw new UnsupportedOperationException( e );
+		}
+	}
+
+	/**
+	 * Returns an executor starting a new virtual thread for each task.
+	 * Virtual threads are cheap to create and are not meant to be pooled.
+	 * @param namePrefix the prefix for the names of the created threads
+	 * @return an executor starting a new virtual thread for each task
+	 * @throws UnsupportedOperationException if virtual threads are not supported
+	 */
+	public static ExecutorService newThreadPerTaskExecutor( String namePrefix )
+	{
+		try {
+			return (ExecutorService)newThreadPerTaskExecutor.invoke( null, factory( namePrefix ) );
+		} catch( IllegalAccessException | InvocationTargetException e ) {
+			throw new UnsupportedOperationException( e );
+		}
+	}
+}
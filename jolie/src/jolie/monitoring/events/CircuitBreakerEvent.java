@@ -0,0 +1,42 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.monitoring.events;
+
+import jolie.monitoring.MonitoringEvent;
+import jolie.runtime.Value;
+
+/**
+ * Reports that the circuit breaker of a location changed state.
+ * @see jolie.net.CircuitBreaker
+ */
+public class CircuitBreakerEvent extends MonitoringEvent
+{
+	public CircuitBreakerEvent( String location, String state, String previousState )
+	{
+		super( "CircuitBreaker", Value.create() );
+
+		data().getFirstChild( "location" ).setValue( location );
+		data().getFirstChild( "state" ).setValue( state );
+		data().getFirstChild( "previousState" ).setValue( previousState );
+	}
+}
@@ -22,11 +22,23 @@
 package jolie.net;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
@@ -39,59 +51,163 @@ public abstract class AbstractCommChannel extends CommChannel
 	private static final long RECEIVER_KEEP_ALIVE = 20000; // msecs
 
 	private final Map< Long, CommMessage > pendingResponses = new HashMap<>();
-	private final Map< Long, ResponseContainer > waiters = new HashMap<>();
+	// Concurrent, since expired waiters are removed without waiting for the receiver
+	private final Map< Long, CompletableFuture< CommMessage > > waiters = new ConcurrentHashMap<>();
 	private final List< CommMessage > pendingGenericResponses = new LinkedList<>();
+	// Requests whose deadline expired, whose responses are to be discarded
+	private final Set< Long > expiredRequests = new HashSet<>();
 
-	private final Object responseRecvMutex = new Object();
-
-	private static class ResponseContainer
-	{
-		private ResponseContainer() {}
-		private CommMessage response = null;
-	}
+	/*
+	 * Explicit locks instead of monitors: the receiver blocks on input while
+	 * holding responseRecvLock, which would pin the carrier of a virtual thread.
+	 */
+	private final Lock responseRecvLock = new ReentrantLock();
+	private final Condition responseRecvCondition = responseRecvLock.newCondition();
 
 	@Override
 	public CommMessage recvResponseFor( CommMessage request )
 		throws IOException
+	{
+		return awaitResponse( request, responseFor( request ) );
+	}
+
+	/**
+	 * Returns a future completed with the response for the given request,
+	 * which must have been sent through this channel. The response must then
+	 * be either waited for with {@link #awaitResponse(jolie.net.CommMessage, java.util.concurrent.CompletableFuture) awaitResponse}
+	 * or discarded with {@link #discardResponseFor(jolie.net.CommMessage, java.util.concurrent.CompletableFuture) discardResponseFor}.
+	 * @param request the request sent through this channel
+	 * @return a future completed with the response for <code>request</code>
+	 */
+	public CompletableFuture< CommMessage > responseFor( CommMessage request )
 	{
 		CommMessage response;
-		ResponseContainer monitor = null;
-		synchronized( responseRecvMutex ) {
+		CompletableFuture< CommMessage > future = null;
+		responseRecvLock.lock();
+		try {
 			response = pendingResponses.remove( request.id() );
 			if ( response == null ) {
 				if ( pendingGenericResponses.isEmpty() ) {
 					assert( waiters.containsKey( request.id() ) == false );
-					monitor = new ResponseContainer();
-					waiters.put( request.id(), monitor );
-					//responseRecvMutex.notify();
+					future = new CompletableFuture<>();
+					waiters.put( request.id(), future );
 				} else {
 					response = pendingGenericResponses.remove( 0 );
 				}
 			}
+		} finally {
+			responseRecvLock.unlock();
 		}
-		if ( response == null ) {
-			synchronized( responseRecvMutex ) {
-				if ( responseReceiver == null ) {
-					responseReceiver = new ResponseReceiver( this, ExecutionThread.currentThread() );
-					Interpreter.getInstance().commCore().startCommChannelHandler( responseReceiver );
-				} else {
-					responseReceiver.wakeUp();
-				}
+		if ( response != null ) {
+			return CompletableFuture.completedFuture( response );
+		}
+		responseRecvLock.lock();
+		try {
+			if ( responseReceiver == null ) {
+				responseReceiver = new ResponseReceiver( this, ExecutionThread.currentThread() );
+				Interpreter.getInstance().commCore().startCommChannelHandler( responseReceiver );
+			} else {
+				responseReceiver.wakeUp();
 			}
-			synchronized( monitor ) {
-				if ( monitor.response == null ) {
-					try {
-						monitor.wait();
-					} catch( InterruptedException e ) {
-						Interpreter.getInstance().logSevere( e );
-					}
+		} finally {
+			responseRecvLock.unlock();
+		}
+		return future;
+	}
+
+	/**
+	 * Waits for the response to a request, until the deadline of the request if it has one.
+	 * @param request the request sent through this channel
+	 * @param future the future returned by {@link #responseFor(jolie.net.CommMessage) responseFor} for <code>request</code>
+	 * @return the response for <code>request</code>
+	 * @throws SocketTimeoutException if the deadline of <code>request</code> expires
+	 * @throws InterruptedIOException if the calling thread is interrupted while waiting
+	 * @throws IOException if the response could not be received
+	 */
+	public CommMessage awaitResponse( CommMessage request, CompletableFuture< CommMessage > future )
+		throws IOException
+	{
+		CommMessage response;
+		try {
+			if ( request.deadline() > 0 ) {
+				try {
+					response = future.get( request.deadline() - System.currentTimeMillis(), TimeUnit.MILLISECONDS );
+				} catch( TimeoutException e ) {
+					response = expire( request, future );
 				}
-				response = monitor.response;
+			} else {
+				response = future.get();
+			}
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			if ( abandon( request, future ) || future.isDone() == false ) {
+				final InterruptedIOException exception = new InterruptedIOException( "Interrupted while waiting for the response to operation " + request.operationName() );
+				exception.initCause( e );
+				throw exception;
 			}
+			response = future.getNow( null ); // The response arrived in the meantime
+		} catch( ExecutionException e ) {
+			throw new IOException( e.getCause() );
 		}
 		return response;
 	}
 
+	/**
+	 * Stops waiting for the response to a request, which is discarded if it arrives later.
+	 * Channels that are not multiplexed are closed, since they would pass
+	 * the response to their next requester.
+	 * @param request the request sent through this channel
+	 * @param future the future returned by {@link #responseFor(jolie.net.CommMessage) responseFor} for <code>request</code>
+	 * @throws IOException if the channel could not be closed
+	 */
+	public void discardResponseFor( CommMessage request, CompletableFuture< CommMessage > future )
+		throws IOException
+	{
+		abandon( request, future );
+	}
+
+	/*
+	 * Removes the waiter for request, unless its response has already arrived.
+	 */
+	private boolean abandon( CommMessage request, CompletableFuture< CommMessage > future )
+		throws IOException
+	{
+		final boolean abandoned;
+		if ( isMultiplexed() ) {
+			responseRecvLock.lock();
+			try {
+				abandoned = waiters.remove( request.id(), future );
+				if ( abandoned ) {
+					expiredRequests.add( request.id() );
+				}
+			} finally {
+				responseRecvLock.unlock();
+			}
+		} else {
+			abandoned = waiters.remove( request.id(), future );
+			if ( abandoned ) {
+				setToBeClosed( true );
+				close();
+			}
+		}
+		return abandoned;
+	}
+
+	/*
+	 * Gives up waiting for the response to a request whose deadline expired.
+	 * A multiplexed channel discards the response when it arrives. Any other
+	 * channel would pass it to its next requester, so it is closed instead:
+	 * this also stops the receiver, which may be blocked reading the response.
+	 */
+	private CommMessage expire( CommMessage request, CompletableFuture< CommMessage > future )
+		throws IOException, InterruptedException, ExecutionException
+	{
+		if ( abandon( request, future ) ) {
+			throw new SocketTimeoutException( "No response received for operation " + request.operationName() + " before its deadline" );
+		}
+		return future.get(); // The response arrived in the meantime
+	}
+
 	private ResponseReceiver responseReceiver = null;
 
 	private static class ResponseReceiver implements Runnable
@@ -103,7 +219,8 @@ public abstract class AbstractCommChannel extends CommChannel
 
 		private void timeout()
 		{
-			synchronized( parent.responseRecvMutex ) {
+			parent.responseRecvLock.lock();
+			try {
 				if ( keepRun == false ) {
 					if ( parent.waiters.isEmpty() ) {
 						timeoutHandler = null;
@@ -111,8 +228,10 @@ public abstract class AbstractCommChannel extends CommChannel
 					} else {
 						keepRun = true;
 					}
-					parent.responseRecvMutex.notify();
+					parent.responseRecvCondition.signal();
 				}
+			} finally {
+				parent.responseRecvLock.unlock();
 			}
 		}
 
@@ -123,7 +242,7 @@ public abstract class AbstractCommChannel extends CommChannel
 				timeoutHandler.cancel();
 			}
 			keepRun = true;
-			parent.responseRecvMutex.notify();
+			parent.responseRecvCondition.signal();
 		}
 
 		private void sleep()
@@ -135,10 +254,17 @@ public abstract class AbstractCommChannel extends CommChannel
 					receiver.timeout();
 				}
 			};
+			/*
+			 * keepRun is cleared before registering the handler, which may
+			 * run right away (e.g., in this thread if the interpreter is
+			 * exiting): timeout() then finds us asleep and stops us.
+			 */
+			keepRun = false;
 			ethread.interpreter().addTimeoutHandler( timeoutHandler );
 			try {
-				keepRun = false;
-				parent.responseRecvMutex.wait();
+				while( keepRun == false && parent.responseReceiver == this ) {
+					parent.responseRecvCondition.await();
+				}
 			} catch( InterruptedException e ) {
 				Interpreter.getInstance().logSevere( e );
 			}
@@ -154,56 +280,42 @@ public abstract class AbstractCommChannel extends CommChannel
 
 		private void handleGenericMessage( CommMessage response )
 		{
-			ResponseContainer monitor;
-			if ( parent.waiters.isEmpty() ) {
-				parent.pendingGenericResponses.add( response );
-			} else {
-				Entry< Long, ResponseContainer > entry =
-					parent.waiters.entrySet().iterator().next();
-				monitor = entry.getValue();
-				parent.waiters.remove( entry.getKey() );
-				synchronized( monitor ) {
-					monitor.response = new CommMessage(
+			for( Entry< Long, CompletableFuture< CommMessage > > entry : parent.waiters.entrySet() ) {
+				if ( parent.waiters.remove( entry.getKey(), entry.getValue() ) ) {
+					entry.getValue().complete( new CommMessage(
 						entry.getKey(),
 						response.operationName(),
 						response.resourcePath(),
 						response.value(),
 						response.fault()
-					);
-					monitor.notify();
+					) );
+					return;
 				}
 			}
+			parent.pendingGenericResponses.add( response );
 		}
 
 		private void handleMessage( CommMessage response )
 		{
-			ResponseContainer monitor;
-			if ( (monitor=parent.waiters.remove( response.id() )) == null ) {
+			final CompletableFuture< CommMessage > future = parent.waiters.remove( response.id() );
+			if ( future != null ) {
+				future.complete( response );
+			} else if ( parent.expiredRequests.remove( response.id() ) == false ) {
 				parent.pendingResponses.put( response.id(), response );
-			} else {
-				synchronized( monitor ) {
-					monitor.response = response;
-					monitor.notify();
-				}
 			}
 		}
 
 		private void throwIOExceptionFault( IOException e )
 		{
 			if ( parent.waiters.isEmpty() == false ) {
-				ResponseContainer monitor;
-				for( Entry< Long, ResponseContainer > entry : parent.waiters.entrySet() ) {
-					monitor = entry.getValue();
-					synchronized( monitor ) {
-						monitor.response = new CommMessage(
-							entry.getKey(),
-							"",
-							Constants.ROOT_RESOURCE_PATH,
-							Value.create(),
-							new FaultException( "IOException", e )
-						);
-						monitor.notify();
-					}
+				for( Entry< Long, CompletableFuture< CommMessage > > entry : parent.waiters.entrySet() ) {
+					entry.getValue().complete( new CommMessage(
+						entry.getKey(),
+						"",
+						Constants.ROOT_RESOURCE_PATH,
+						Value.create(),
+						new FaultException( "IOException", e )
+					) );
 				}
 				parent.waiters.clear();
 			}
@@ -217,28 +329,80 @@ public abstract class AbstractCommChannel extends CommChannel
 			 * whole thing is safe iff the CommChannel is used only for outputs,
 			 * otherwise we are messing with correlation set checking.
 			 */
-			CommChannelHandler.currentThread().setExecutionThread( ethread ); // TODO: this is hacky..
+			ExecutionThread.setCurrentThread( ethread ); // TODO: this is hacky..
 
+			if ( parent.isMultiplexed() ) {
+				runMultiplexed();
+			} else {
+				runExclusive();
+			}
+		}
+
+		private void dispatch( CommMessage response )
+		{
+			if ( response.hasGenericId() ) {
+				handleGenericMessage( response );
+			} else {
+				handleMessage( response );
+			}
+		}
+
+		private void runExclusive()
+		{
 			CommMessage response;
 			while( keepRun ) {
-				synchronized( parent.responseRecvMutex ) {
+				parent.responseRecvLock.lock();
+				try {
+					response = parent.recv();
+					if ( response != null ) {
+						dispatch( response );
+					}
+					if ( parent.waiters.isEmpty() ) {
+						sleep();
+					}
+				} catch( IOException e ) {
+					throwIOExceptionFault( e );
+					keepRun = false;
+					parent.responseReceiver = null;
+				} finally {
+					parent.responseRecvLock.unlock();
+				}
+			}
+		}
+
+		/*
+		 * Reads responses without holding the channel lock or the response lock,
+		 * so that other threads can keep sending requests through the channel
+		 * and registering as waiters while we are blocked on the input.
+		 */
+		private void runMultiplexed()
+		{
+			CommMessage response;
+			while( keepRun ) {
+				try {
+					response = parent.recvImpl();
+				} catch( IOException e ) {
+					parent.responseRecvLock.lock();
 					try {
-						response = parent.recv();
-						if ( response != null ) {
-							if ( response.hasGenericId() ) {
-								handleGenericMessage( response );
-							} else {
-								handleMessage( response );
-							}
-						}
-						if ( parent.waiters.isEmpty() ) {
-							sleep();
-						}
-					} catch( IOException e ) {
 						throwIOExceptionFault( e );
 						keepRun = false;
 						parent.responseReceiver = null;
+					} finally {
+						parent.responseRecvLock.unlock();
+					}
+					parent.setToBeClosed( true );
+					return;
+				}
+				parent.responseRecvLock.lock();
+				try {
+					if ( response != null ) {
+						dispatch( response );
+					}
+					if ( parent.waiters.isEmpty() ) {
+						sleep();
 					}
+				} finally {
+					parent.responseRecvLock.unlock();
 				}
 			}
 		}
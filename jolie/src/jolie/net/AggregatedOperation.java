@@ -253,6 +253,12 @@ public abstract class AggregatedOperation
 			}
 		}
 
+		@Override
+		public boolean forwardsRequests()
+		{
+			return true;
+		}
+
 		@Override
 		public OperationTypeDescription getOperationTypeDescription()
 		{
@@ -310,6 +316,16 @@ public abstract class AggregatedOperation
 	{
 		return name;
 	}
+
+	/**
+	 * Returns <code>true</code> if this operation forwards the requests it
+	 * receives without reading their content.
+	 * @return <code>true</code> if this operation does not read the content of requests
+	 */
+	public boolean forwardsRequests()
+	{
+		return false;
+	}
         
 	public abstract void runAggregationBehaviour( CommMessage requestMessage, CommChannel channel )
 		throws IOException, URISyntaxException;
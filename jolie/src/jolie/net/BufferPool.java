@@ -0,0 +1,241 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+
+package jolie.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import jolie.Interpreter;
+
+/**
+ * A pool of direct byte buffers, shared by the socket channels of a CommCore.
+ *
+ * Buffers come in size classes, from {@link #MIN_BUFFER_SIZE} to
+ * {@link #MAX_BUFFER_SIZE} bytes, each twice as big as the previous one.
+ * Every class keeps at most a share of {@link #MAX_POOLED_BYTES} bytes of
+ * released buffers; requests for more than {@link #MAX_BUFFER_SIZE} bytes
+ * get (unpooled) heap buffers.
+ *
+ * With leak detection enabled, the pool remembers where each buffer has been
+ * acquired and by whom: buffers whose owner is garbage collected before
+ * releasing them are reported as leaks.
+ */
+public class BufferPool
+{
+	public static final int MIN_BUFFER_SIZE = 1024;
+	public static final int MAX_BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_POOLED_BYTES = 32 * 1024 * 1024;
+	private static final int MIN_SIZE_SHIFT = Integer.numberOfTrailingZeros( MIN_BUFFER_SIZE );
+	private static final int CLASSES = Integer.numberOfTrailingZeros( MAX_BUFFER_SIZE ) - MIN_SIZE_SHIFT + 1;
+
+	private static class SizeClass
+	{
+		private final int bufferSize;
+		private final int maxPooled;
+		private final Queue< ByteBuffer > buffers = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger pooled = new AtomicInteger( 0 );
+
+		private SizeClass( int bufferSize )
+		{
+			this.bufferSize = bufferSize;
+			this.maxPooled = MAX_POOLED_BYTES / CLASSES / bufferSize;
+		}
+	}
+
+	private static class Acquisition extends WeakReference< Object >
+	{
+		private final ByteBuffer buffer;
+		private final Throwable trace;
+
+		private Acquisition( ByteBuffer buffer, Object owner, ReferenceQueue< Object > queue )
+		{
+			super( owner, queue );
+			this.buffer = buffer;
+			this.trace = new Throwable( "Buffer of " + buffer.capacity() + " bytes acquired by " + owner.getClass().getName() );
+		}
+	}
+
+	private final Interpreter interpreter;
+	private final SizeClass[] classes = new SizeClass[ CLASSES ];
+	private final LongAdder allocated = new LongAdder();
+	private final LongAdder acquired = new LongAdder();
+	private final LongAdder leaked = new LongAdder();
+
+	// Guarded by acquisitions, used only if leak detection is enabled
+	private final Map< ByteBuffer, Acquisition > acquisitions;
+	private final ReferenceQueue< Object > collectedOwners;
+
+	/**
+	 * Constructor.
+	 * @param interpreter the interpreter to report leaks to
+	 * @param detectLeaks <code>true</code> if leak detection should be enabled
+	 */
+	public BufferPool( Interpreter interpreter, boolean detectLeaks )
+	{
+		this.interpreter = interpreter;
+		for( int i = 0; i < CLASSES; i++ ) {
+			classes[ i ] = new SizeClass( MIN_BUFFER_SIZE << i );
+		}
+		if ( detectLeaks ) {
+			acquisitions = new IdentityHashMap<>();
+			collectedOwners = new ReferenceQueue<>();
+		} else {
+			acquisitions = null;
+			collectedOwners = null;
+		}
+	}
+
+	private static int classIndex( int capacity )
+	{
+		if ( capacity <= MIN_BUFFER_SIZE ) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros( capacity - 1 ) - MIN_SIZE_SHIFT;
+	}
+
+	/**
+	 * Returns a cleared buffer of at least the given capacity.
+	 * The buffer must be given back with {@link #release(java.nio.ByteBuffer)}
+	 * once <code>owner</code> does not need it anymore.
+	 * @param capacity the minimum capacity of the buffer
+	 * @param owner the object using the buffer
+	 * @return a cleared buffer of at least the given capacity
+	 */
+	public ByteBuffer acquire( int capacity, Object owner )
+	{
+		if ( capacity > MAX_BUFFER_SIZE ) {
+			return ByteBuffer.allocate( capacity );
+		}
+		final SizeClass sizeClass = classes[ classIndex( capacity ) ];
+		ByteBuffer buffer = sizeClass.buffers.poll();
+		if ( buffer == null ) {
+			buffer = ByteBuffer.allocateDirect( sizeClass.bufferSize );
+			allocated.increment();
+		} else {
+			sizeClass.pooled.decrementAndGet();
+			buffer.clear();
+		}
+		acquired.increment();
+		if ( acquisitions != null ) {
+			trackAcquisition( buffer, owner );
+		}
+		return buffer;
+	}
+
+	/**
+	 * Gives back a buffer obtained from {@link #acquire(int, java.lang.Object)}.
+	 * The buffer must not be used anymore after calling this method.
+	 * @param buffer the buffer to release
+	 */
+	public void release( ByteBuffer buffer )
+	{
+		if ( buffer.isDirect() == false ) {
+			return;
+		}
+		if ( acquisitions != null ) {
+			synchronized( acquisitions ) {
+				acquisitions.remove( buffer );
+			}
+		}
+		final SizeClass sizeClass = classes[ classIndex( buffer.capacity() ) ];
+		if ( sizeClass.pooled.incrementAndGet() <= sizeClass.maxPooled ) {
+			sizeClass.buffers.offer( buffer );
+		} else {
+			sizeClass.pooled.decrementAndGet();
+		}
+	}
+
+	private void trackAcquisition( ByteBuffer buffer, Object owner )
+	{
+		synchronized( acquisitions ) {
+			Acquisition acquisition;
+			while( (acquisition = (Acquisition) collectedOwners.poll()) != null ) {
+				if ( acquisitions.get( acquisition.buffer ) == acquisition ) {
+					acquisitions.remove( acquisition.buffer );
+					reportLeak( acquisition );
+				}
+			}
+			acquisitions.put( buffer, new Acquisition( buffer, owner, collectedOwners ) );
+		}
+	}
+
+	private void reportLeak( Acquisition acquisition )
+	{
+		leaked.increment();
+		if ( interpreter != null ) {
+			final ByteArrayOutputStream bs = new ByteArrayOutputStream();
+			acquisition.trace.printStackTrace( new PrintStream( bs ) );
+			interpreter.logWarning( "Buffer leak: a buffer was not released before its owner was garbage collected. " + bs.toString() );
+		}
+	}
+
+	/**
+	 * Returns the number of direct buffers allocated by this pool.
+	 * @return the number of direct buffers allocated by this pool
+	 */
+	public long allocatedCount()
+	{
+		return allocated.sum();
+	}
+
+	/**
+	 * Returns the number of buffers acquired from this pool.
+	 * @return the number of buffers acquired from this pool
+	 */
+	public long acquiredCount()
+	{
+		return acquired.sum();
+	}
+
+	/**
+	 * Returns the number of released buffers currently kept by this pool.
+	 * @return the number of released buffers currently kept by this pool
+	 */
+	public int idleCount()
+	{
+		int count = 0;
+		for( SizeClass sizeClass : classes ) {
+			count += sizeClass.pooled.get();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of leaked buffers found so far, which is always
+	 * zero if leak detection is disabled.
+	 * @return the number of leaked buffers found so far
+	 */
+	public long leakedCount()
+	{
+		return leaked.sum();
+	}
+}
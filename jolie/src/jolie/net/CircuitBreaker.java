@@ -0,0 +1,330 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import jolie.Interpreter;
+import jolie.monitoring.events.CircuitBreakerEvent;
+import jolie.runtime.Value;
+
+/**
+ * Stops sending requests to a location that keeps failing, so that they
+ * fail immediately instead of waiting for connections or responses that
+ * are unlikely to come. Output ports enable it with the
+ * <code>circuitBreaker</code> parameter of their protocol:
+ * <pre>
+ * Protocol: sodep {
+ *	.circuitBreaker.failureRate = 50;	// percentage of failed requests opening the circuit
+ *	.circuitBreaker.minRequests = 20;	// requests in the window needed to judge the failure rate
+ *	.circuitBreaker.window = 10000;	// msecs of recent requests considered
+ *	.circuitBreaker.slowCall = 0;	// msecs after which a request counts as failed (0: never)
+ *	.circuitBreaker.openTime = 5000;	// msecs the circuit stays open
+ *	.circuitBreaker.probes = 1	// requests let through to test a half-open circuit
+ * }
+ * </pre>
+ * The values above are the defaults. A request fails if a channel cannot be
+ * obtained for it, an I/O error occurs or no response arrives before its
+ * deadline. Faults sent by the location are responses and do not count as
+ * failures.
+ *
+ * When the failure rate reaches its threshold the circuit opens, and requests
+ * are refused with a {@link CircuitOpenException} without using the network.
+ * After <code>openTime</code> the circuit is half-open: a few probe requests
+ * are let through, closing the circuit if they all succeed or opening it
+ * again otherwise. State transitions are reported to the monitor of the
+ * interpreter, if any, as {@link CircuitBreakerEvent}s.
+ *
+ * Each output port has its own circuit breakers, one for each location it
+ * communicates with and each configuration of the circuit breaker it uses
+ * (see {@link CommCore#circuitBreaker(java.lang.String, java.net.URI, jolie.runtime.Value)}).
+ */
+public class CircuitBreaker
+{
+	public static final String PARAMETER = "circuitBreaker";
+	private static final int BUCKETS = 10;
+
+	public enum State
+	{
+		CLOSED( "closed" ), OPEN( "open" ), HALF_OPEN( "halfOpen" );
+
+		private final String str;
+
+		State( String str )
+		{
+			this.str = str;
+		}
+
+		@Override
+		public String toString()
+		{
+			return str;
+		}
+	}
+
+	/**
+	 * The thresholds of a circuit breaker.
+	 */
+	public static class Settings
+	{
+		private final double failureRate;
+		private final int minRequests;
+		private final long window;
+		private final long slowCall;
+		private final long openTime;
+		private final int probes;
+
+		private Settings( Value config )
+		{
+			failureRate = config.hasChildren( "failureRate" ) ? config.getFirstChild( "failureRate" ).doubleValue() : 50.0;
+			minRequests = Math.max( 1, config.hasChildren( "minRequests" ) ? config.getFirstChild( "minRequests" ).intValue() : 20 );
+			window = Math.max( BUCKETS, config.hasChildren( "window" ) ? config.getFirstChild( "window" ).longValue() : 10000L );
+			slowCall = config.hasChildren( "slowCall" ) ? config.getFirstChild( "slowCall" ).longValue() : 0L;
+			openTime = Math.max( 1, config.hasChildren( "openTime" ) ? config.getFirstChild( "openTime" ).longValue() : 5000L );
+			probes = Math.max( 1, config.hasChildren( "probes" ) ? config.getFirstChild( "probes" ).intValue() : 1 );
+		}
+
+		/**
+		 * Reads the settings given by the <code>circuitBreaker</code>
+		 * parameter of a protocol configuration.
+		 * @param protocolConfig the protocol configuration
+		 * @return the settings, or <code>null</code> if the circuit breaker is not enabled
+		 */
+		public static Settings fromProtocolConfiguration( Value protocolConfig )
+		{
+			if ( !protocolConfig.hasChildren( PARAMETER ) ) {
+				return null;
+			}
+			final Value config = protocolConfig.getFirstChild( PARAMETER );
+			if ( config.isDefined() && !config.boolValue() ) {
+				return null;
+			}
+			return new Settings( config );
+		}
+
+		@Override
+		public boolean equals( Object o )
+		{
+			if ( !(o instanceof Settings) ) {
+				return false;
+			}
+			final Settings s = (Settings) o;
+			return failureRate == s.failureRate && minRequests == s.minRequests
+				&& window == s.window && slowCall == s.slowCall
+				&& openTime == s.openTime && probes == s.probes;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Arrays.hashCode( new Object[] { failureRate, minRequests, window, slowCall, openTime, probes } );
+		}
+	}
+
+	private final String outputPortId;
+	private final URI location;
+	private final Settings settings;
+	private final Interpreter interpreter;
+	private final LongAdder rejected = new LongAdder();
+
+	// Guarded by this
+	private State state = State.CLOSED;
+	private long stateTime = 0L;
+	private long retryTime = 0L;
+	private int probes = 0; // probes in flight
+	private int probeSuccesses = 0;
+	// Outcomes of the requests in the window, in buckets of window / BUCKETS msecs
+	private final long[] bucketSlots = new long[ BUCKETS ];
+	private final int[] bucketRequests = new int[ BUCKETS ];
+	private final int[] bucketFailures = new int[ BUCKETS ];
+
+	CircuitBreaker( String outputPortId, URI location, Settings settings, Interpreter interpreter )
+	{
+		this.outputPortId = outputPortId;
+		this.location = location;
+		this.settings = settings;
+		this.interpreter = interpreter;
+	}
+
+	/**
+	 * Returns the identifier of the output port using this circuit breaker.
+	 * @return the identifier of the output port using this circuit breaker
+	 */
+	public String outputPortId()
+	{
+		return outputPortId;
+	}
+
+	/**
+	 * Returns the location guarded by this circuit breaker.
+	 * @return the location guarded by this circuit breaker
+	 */
+	public URI location()
+	{
+		return location;
+	}
+
+	/**
+	 * Returns the current state of this circuit breaker.
+	 * @return the current state of this circuit breaker
+	 */
+	public synchronized State state()
+	{
+		return state;
+	}
+
+	/**
+	 * Returns the number of requests refused because the circuit was open.
+	 * @return the number of refused requests
+	 */
+	public long rejectedCount()
+	{
+		return rejected.sum();
+	}
+
+	/**
+	 * Checks that a request can be sent to the location of this circuit breaker.
+	 * The outcome of the request must then be given to {@link #record(boolean, long)}.
+	 * @throws CircuitOpenException if the circuit is open
+	 */
+	public void acquire()
+		throws CircuitOpenException
+	{
+		final long now = System.currentTimeMillis();
+		State previous = null;
+		long retryAfter = 0L;
+		synchronized( this ) {
+			if ( state == State.OPEN && now >= retryTime ) {
+				previous = setState( State.HALF_OPEN, now );
+			}
+			if ( state == State.HALF_OPEN && probes >= settings.probes && now - stateTime >= settings.openTime ) {
+				// The outcomes of the probes never came (e.g., their sessions have been killed)
+				probes = 0;
+				stateTime = now;
+			}
+			if ( state == State.OPEN ) {
+				retryAfter = retryTime - now;
+			} else if ( state == State.HALF_OPEN ) {
+				if ( probes < settings.probes ) {
+					probes++;
+				} else {
+					retryAfter = Math.max( 1L, settings.openTime - ( now - stateTime ) );
+				}
+			}
+		}
+		fireTransition( previous, State.HALF_OPEN );
+		if ( retryAfter > 0 ) {
+			rejected.increment();
+			throw new CircuitOpenException( location, retryAfter );
+		}
+	}
+
+	/**
+	 * Records the outcome of a request allowed by {@link #acquire()}.
+	 * @param success <code>true</code> if a response has been received for the request
+	 * @param latency the time (in nanoseconds) the request took
+	 */
+	public void record( boolean success, long latency )
+	{
+		final long now = System.currentTimeMillis();
+		State previous = null;
+		State current;
+		synchronized( this ) {
+			final boolean failed = !success
+				|| ( settings.slowCall > 0 && TimeUnit.NANOSECONDS.toMillis( latency ) > settings.slowCall );
+			if ( state == State.HALF_OPEN ) {
+				if ( failed ) {
+					previous = setState( State.OPEN, now );
+				} else if ( ++probeSuccesses >= settings.probes ) {
+					previous = setState( State.CLOSED, now );
+				}
+			} else if ( state == State.CLOSED && addToWindow( failed, now ) ) {
+				previous = setState( State.OPEN, now );
+			}
+			current = state;
+		}
+		fireTransition( previous, current );
+	}
+
+	/*
+	 * Returns true if the failure rate in the window has reached the threshold.
+	 */
+	private boolean addToWindow( boolean failed, long now )
+	{
+		final long bucketSize = settings.window / BUCKETS;
+		final long slot = now / bucketSize;
+		final int i = (int) ( slot % BUCKETS );
+		if ( bucketSlots[ i ] != slot ) {
+			bucketSlots[ i ] = slot;
+			bucketRequests[ i ] = 0;
+			bucketFailures[ i ] = 0;
+		}
+		bucketRequests[ i ]++;
+		if ( failed ) {
+			bucketFailures[ i ]++;
+		} else {
+			return false;
+		}
+
+		int requests = 0;
+		int failures = 0;
+		for( int k = 0; k < BUCKETS; k++ ) {
+			if ( slot - bucketSlots[ k ] < BUCKETS ) {
+				requests += bucketRequests[ k ];
+				failures += bucketFailures[ k ];
+			}
+		}
+		return requests >= settings.minRequests && failures * 100.0 >= settings.failureRate * requests;
+	}
+
+	private void clearWindow()
+	{
+		Arrays.fill( bucketSlots, 0L );
+		Arrays.fill( bucketRequests, 0 );
+		Arrays.fill( bucketFailures, 0 );
+	}
+
+	private State setState( State newState, long now )
+	{
+		final State previous = state;
+		state = newState;
+		stateTime = now;
+		probes = 0;
+		probeSuccesses = 0;
+		if ( newState == State.OPEN ) {
+			retryTime = now + settings.openTime;
+		} else if ( newState == State.CLOSED ) {
+			clearWindow();
+		}
+		return previous;
+	}
+
+	private void fireTransition( State previous, State current )
+	{
+		if ( previous != null && interpreter != null && interpreter.isMonitoring() ) {
+			interpreter.fireMonitorEvent( new CircuitBreakerEvent( location.toString(), current.toString(), previous.toString() ) );
+		}
+	}
+}
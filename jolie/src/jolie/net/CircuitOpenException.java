@@ -0,0 +1,71 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.IOException;
+import java.net.URI;
+import jolie.lang.Constants;
+
+/**
+ * An IOException for denoting that a request has not been sent because the
+ * circuit breaker of its destination is open.
+ * @see CircuitBreaker
+ */
+public class CircuitOpenException extends IOException
+{
+	private static final long serialVersionUID = Constants.serialVersionUID();
+
+	private final URI location;
+	private final long retryAfter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param location the location whose circuit is open
+	 * @param retryAfter how long (in milliseconds) the circuit is going to stay open
+	 */
+	public CircuitOpenException( URI location, long retryAfter )
+	{
+		super( "Circuit open for location " + location );
+		this.location = location;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Returns the location whose circuit is open.
+	 * @return the location whose circuit is open
+	 */
+	public URI location()
+	{
+		return location;
+	}
+
+	/**
+	 * Returns how long (in milliseconds) the circuit is going to stay open.
+	 * @return how long the circuit is going to stay open
+	 */
+	public long retryAfter()
+	{
+		return retryAfter;
+	}
+}
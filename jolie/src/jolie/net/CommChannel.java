@@ -53,10 +53,23 @@ public abstract class CommChannel
 	private InputPort inputPort = null;
 	private OutputPort outputPort = null;
 	private boolean isOpen = true;
+	private volatile CircuitBreaker circuitBreaker = null;
 
 	private long redirectionMessageId = 0L;
 	
 	private TimeoutHandler timeoutHandler = null;
+
+	private CommChannelPool.Bucket poolBucket = null;
+
+	void setPoolBucket( CommChannelPool.Bucket poolBucket )
+	{
+		this.poolBucket = poolBucket;
+	}
+
+	CommChannelPool.Bucket poolBucket()
+	{
+		return poolBucket;
+	}
 	
 	protected void setTimeoutHandler( TimeoutHandler timeoutHandler )
 	{
@@ -154,6 +167,25 @@ public abstract class CommChannel
 		return outputPort;
 	}
 
+	/**
+	 * Sets the circuit breaker of the location this channel communicates with.
+	 * @param circuitBreaker the circuit breaker of the location of this channel
+	 */
+	public void setCircuitBreaker( CircuitBreaker circuitBreaker )
+	{
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Returns the circuit breaker of the location this channel communicates
+	 * with, or <code>null</code> if requests sent on it are not guarded by one.
+	 * @return the circuit breaker of the location of this channel, or <code>null</code>
+	 */
+	public CircuitBreaker circuitBreaker()
+	{
+		return circuitBreaker;
+	}
+
 	/**
 	 * Returns the parent {@link Port} of this channel.
 	 * @return the parent {@link Port} of this channel.
@@ -182,6 +214,34 @@ public abstract class CommChannel
 		return false;
 	}
 
+	/**
+	 * Returns the maximum number of requests that can be outstanding at the same
+	 * time on this channel. Channels returning more than one can be shared by
+	 * concurrent requesters.
+	 * @return the maximum number of requests that can be outstanding on this channel
+	 */
+	protected int maxOutstandingRequests()
+	{
+		return 1;
+	}
+
+	private volatile boolean multiplexed = false;
+
+	/**
+	 * Returns <code>true</code> if this channel is being shared by concurrent
+	 * requesters, <code>false</code> otherwise.
+	 * @return <code>true</code> if this channel is being shared by concurrent requesters
+	 */
+	public final boolean isMultiplexed()
+	{
+		return multiplexed;
+	}
+
+	void setMultiplexed( boolean multiplexed )
+	{
+		this.multiplexed = multiplexed;
+	}
+
 	/**
 	 * Receives a message from the channel. This is a blocking operation.
 	 * @return the received message
@@ -291,6 +351,10 @@ public abstract class CommChannel
 		throws IOException
 	{
 		isOpen = false;
+		final CommChannelPool.Bucket bucket = poolBucket;
+		if ( bucket != null ) {
+			bucket.unlease( this );
+		}
 		closeImpl();
 	}
 
@@ -42,6 +42,11 @@ public class CommChannelHandler extends Thread implements InterpreterThread
 	{
 		super( r );
 	}
+
+	public CommChannelHandler( ThreadGroup group, Runnable r, String name )
+	{
+		super( group, r, name );
+	}
 	
 	/**
 	 * Returns the current <code>CommChannelHandler</code> thread.
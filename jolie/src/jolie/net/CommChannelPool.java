@@ -0,0 +1,732 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import jolie.net.ports.OutputPort;
+import jolie.runtime.TimeoutHandler;
+
+/**
+ * A bounded pool of persistent output channels, indexed by location and protocol.
+ *
+ * Every (location, protocol) pair has its own bucket, which lends at most
+ * <code>maxSize</code> channels at the same time. Callers exceeding this bound
+ * wait for a channel to be released, and open an extra one if none comes back
+ * within {@link #WAIT_TIMEOUT} milliseconds: <code>maxSize</code> is thus a
+ * soft limit on the open channels, which avoids deadlocks among requesters
+ * holding channels (e.g., hedged requests), and at most <code>maxSize</code>
+ * of them are cached when released.
+ * Released channels are kept idle until their timeout handler expires, but
+ * a bucket never evicts its last <code>minIdle</code> idle channels.
+ * Channels are not opened to reach <code>minIdle</code>: use
+ * {@link #prewarm(java.net.URI, java.lang.String, jolie.net.ports.OutputPort, int) prewarm} for that.
+ *
+ * Channels allowing more than one outstanding request (see
+ * {@link CommChannel#maxOutstandingRequests() }) are not lent exclusively:
+ * they are shared by concurrent requesters, up to their outstanding request
+ * limit, and each of them occupies a single slot of its bucket.
+ *
+ * Buckets can be filled in advance with {@link #prewarm(java.net.URI, java.lang.String, jolie.net.ports.OutputPort, int) prewarm},
+ * so that the first requests for a location find their channels already open.
+ * {@link #markPrewarmed(java.net.URI, java.lang.String, jolie.net.ports.OutputPort) markPrewarmed}
+ * tells whether a bucket has been filled in advance already.
+ */
+public class CommChannelPool
+{
+	private static final long WAIT_TIMEOUT = 250; // msecs
+
+	/**
+	 * The channels cached for a (location, protocol) pair.
+	 */
+	static class Bucket
+	{
+		private final URI location;
+		private final String protocol;
+		private final Deque< CommChannel > idle = new ArrayDeque<>();
+		private final List< SharedChannel > shared = new ArrayList<>();
+		private int leased = 0;
+		private int waiting = 0;
+		private int connecting = 0;
+		private int maxOutstanding = 0; // 0 means unknown
+		private boolean prewarmed = false;
+		private boolean removed = false;
+
+		private Bucket( URI location, String protocol )
+		{
+			this.location = location;
+			this.protocol = protocol;
+		}
+
+		/**
+		 * Gives back the slot taken by a leased channel that is being closed.
+		 */
+		synchronized void unlease( CommChannel channel )
+		{
+			if ( channel.poolBucket() == this ) {
+				channel.setPoolBucket( null );
+				final SharedChannel s = getShared( channel );
+				if ( s != null ) {
+					shared.remove( s );
+				}
+				leased--;
+				notifyAll();
+			}
+		}
+
+		private SharedChannel getShared( CommChannel channel )
+		{
+			for( SharedChannel s : shared ) {
+				if ( s.channel == channel ) {
+					return s;
+				}
+			}
+			return null;
+		}
+
+		private boolean isUnused()
+		{
+			return idle.isEmpty() && leased == 0 && waiting == 0;
+		}
+	}
+
+	/**
+	 * A channel shared by concurrent requesters.
+	 */
+	private static class SharedChannel
+	{
+		private final CommChannel channel;
+		private final int maxOutstanding;
+		private int outstanding = 1;
+
+		private SharedChannel( CommChannel channel, int maxOutstanding )
+		{
+			this.channel = channel;
+			this.maxOutstanding = maxOutstanding;
+		}
+	}
+
+	private final CommCore commCore;
+	private final int maxSize;
+	private final int minIdle;
+
+	// Location URI -> Protocol name -> Bucket
+	private final Map< URI, Map< String, Bucket > > buckets = new HashMap<>();
+
+	private final AtomicLong hits = new AtomicLong( 0L );
+	private final AtomicLong misses = new AtomicLong( 0L );
+	private final AtomicLong waits = new AtomicLong( 0L );
+	private final AtomicLong prewarmed = new AtomicLong( 0L );
+
+	/**
+	 * Constructor.
+	 * @param commCore the CommCore to use for creating new channels
+	 * @param maxSize the maximum number of channels lent and cached for each location and protocol; if zero or less, channels are not cached
+	 * @param minIdle the number of idle channels that are never evicted for each location and protocol
+	 */
+	public CommChannelPool( CommCore commCore, int maxSize, int minIdle )
+	{
+		this.commCore = commCore;
+		this.maxSize = maxSize;
+		this.minIdle = minIdle;
+	}
+
+	private Bucket bucket( URI location, String protocol )
+	{
+		synchronized( buckets ) {
+			Map< String, Bucket > protocolBuckets = buckets.get( location );
+			if ( protocolBuckets == null ) {
+				protocolBuckets = new HashMap<>();
+				buckets.put( location, protocolBuckets );
+			}
+			Bucket bucket = protocolBuckets.get( protocol );
+			if ( bucket == null ) {
+				bucket = new Bucket( location, protocol );
+				protocolBuckets.put( protocol, bucket );
+			}
+			return bucket;
+		}
+	}
+
+	private void removeIfUnused( Bucket bucket )
+	{
+		synchronized( buckets ) {
+			synchronized( bucket ) {
+				if ( bucket.removed == false && bucket.isUnused() ) {
+					bucket.removed = true;
+					final Map< String, Bucket > protocolBuckets = buckets.get( bucket.location );
+					protocolBuckets.remove( bucket.protocol );
+					if ( protocolBuckets.isEmpty() ) {
+						buckets.remove( bucket.location );
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a channel for the given location and protocol, reusing an idle
+	 * one if possible or creating a new one otherwise.
+	 * The returned channel should be given back with {@link #release(java.net.URI, java.lang.String, jolie.net.CommChannel) }
+	 * or closed when the caller is done with it.
+	 * @param location the location of the channel
+	 * @param protocol the name of the protocol used by the channel
+	 * @param port the output port requesting the channel
+	 * @return a channel for the given location and protocol
+	 * @throws IOException if a new channel could not be created
+	 */
+	public CommChannel acquire( URI location, String protocol, OutputPort port )
+		throws IOException
+	{
+		Bucket bucket;
+		CommChannel channel = null;
+		boolean idle;
+		boolean retry;
+		final int portMaxOutstanding = protocol.isEmpty() ? 1 : maxOutstandingRequests( port );
+		final String bucketKey = bucketKey( protocol, portMaxOutstanding );
+		do {
+			bucket = bucket( location, bucketKey );
+			idle = false;
+			synchronized( bucket ) {
+				if ( bucket.maxOutstanding == 0 ) {
+					bucket.maxOutstanding = portMaxOutstanding;
+				}
+				retry = bucket.removed;
+				if ( retry == false ) {
+					channel = checkout( bucket );
+					idle = channel != null && bucket.getShared( channel ) == null;
+				}
+			}
+			if ( idle ) {
+				// Checking a channel may read from it: others must not wait for the bucket meanwhile
+				final boolean isOpen;
+				try {
+					isOpen = channel.isOpen();
+				} finally {
+					channel.lock.unlock();
+				}
+				if ( isOpen ) {
+					hits.incrementAndGet();
+				} else {
+					bucket.unlease( channel );
+					closeQuietly( channel );
+					channel = null;
+					retry = true;
+				}
+			}
+		} while( retry );
+
+		if ( channel == null ) {
+			// A slot has been reserved for a new channel
+			try {
+				channel = commCore.createCommChannel( location, port );
+			} catch( IOException | RuntimeException e ) {
+				synchronized( bucket ) {
+					bucket.leased--;
+					bucket.connecting--;
+					bucket.notifyAll();
+				}
+				throw e;
+			}
+			final int maxOutstanding = channel.maxOutstandingRequests();
+			synchronized( bucket ) {
+				channel.setPoolBucket( bucket );
+				bucket.connecting--;
+				bucket.maxOutstanding = maxOutstanding;
+				if ( maxOutstanding > 1 ) {
+					channel.setMultiplexed( true );
+					bucket.shared.add( new SharedChannel( channel, maxOutstanding ) );
+				}
+				bucket.notifyAll();
+			}
+		}
+		return channel;
+	}
+
+	/*
+	 * Ports that multiplex requests must not be handed exclusive channels
+	 * (and vice versa), so they get their own bucket
+	 * (channels not using a protocol, e.g. local ones, are never shared).
+	 */
+	private static String bucketKey( String protocol, int portMaxOutstanding )
+	{
+		return portMaxOutstanding > 1 ? protocol + "#" + portMaxOutstanding : protocol;
+	}
+
+	/**
+	 * Opens new channels for the given location and protocol and caches them,
+	 * until at least <code>count</code> of them are cached or in use.
+	 * The bound on the channels of each location and protocol is respected,
+	 * and nothing is done if channels are not cached.
+	 * @param location the location of the channels
+	 * @param protocol the name of the protocol used by the channels
+	 * @param port the output port the channels are for
+	 * @param count the number of channels that should be open
+	 * @return the number of channels opened
+	 * @throws IOException if a new channel could not be created
+	 */
+	public int prewarm( URI location, String protocol, OutputPort port, int count )
+		throws IOException
+	{
+		if ( maxSize <= 0 ) {
+			return 0;
+		}
+		final int portMaxOutstanding = protocol.isEmpty() ? 1 : maxOutstandingRequests( port );
+		final String bucketKey = bucketKey( protocol, portMaxOutstanding );
+		final int target = Math.min( count, maxSize );
+		int opened = 0;
+		while( true ) {
+			final Bucket bucket = bucket( location, bucketKey );
+			synchronized( bucket ) {
+				if ( bucket.removed ) {
+					continue;
+				}
+				if ( bucket.idle.size() + bucket.leased >= target ) {
+					return opened;
+				}
+				if ( bucket.maxOutstanding == 0 ) {
+					bucket.maxOutstanding = portMaxOutstanding;
+				}
+				// Reserve a slot, as checkout does for new channels
+				bucket.leased++;
+				bucket.connecting++;
+			}
+
+			final CommChannel channel;
+			try {
+				channel = commCore.createCommChannel( location, port );
+			} catch( IOException | RuntimeException e ) {
+				synchronized( bucket ) {
+					bucket.leased--;
+					bucket.connecting--;
+					bucket.notifyAll();
+				}
+				throw e;
+			}
+			final int maxOutstanding = channel.maxOutstandingRequests();
+			synchronized( bucket ) {
+				channel.setPoolBucket( bucket );
+				bucket.connecting--;
+				bucket.maxOutstanding = maxOutstanding;
+				if ( maxOutstanding > 1 ) {
+					channel.setMultiplexed( true );
+					final SharedChannel s = new SharedChannel( channel, maxOutstanding );
+					s.outstanding = 0;
+					bucket.shared.add( s );
+					setTimeoutHandler( bucket, channel );
+				}
+				bucket.notifyAll();
+			}
+			if ( maxOutstanding <= 1 ) {
+				// Caching a new exclusive channel is like giving it back
+				release( location, bucketKey, channel );
+			}
+			prewarmed.incrementAndGet();
+			opened++;
+		}
+	}
+
+	/**
+	 * Marks the bucket of the given location and protocol as filled in advance.
+	 * Output ports call this before filling a bucket with {@link #prewarm(java.net.URI, java.lang.String, jolie.net.ports.OutputPort, int) prewarm},
+	 * so that each bucket is filled once, whichever session binds them to its location.
+	 * @param location the location of the channels
+	 * @param protocol the name of the protocol used by the channels
+	 * @param port the output port the channels are for
+	 * @return <code>true</code> if the bucket had not been marked yet and channels are cached
+	 * @throws IOException if the protocol of the port could not be created
+	 */
+	public boolean markPrewarmed( URI location, String protocol, OutputPort port )
+		throws IOException
+	{
+		if ( maxSize <= 0 ) {
+			return false;
+		}
+		final int portMaxOutstanding = protocol.isEmpty() ? 1 : maxOutstandingRequests( port );
+		final String bucketKey = bucketKey( protocol, portMaxOutstanding );
+		while( true ) {
+			final Bucket bucket = bucket( location, bucketKey );
+			synchronized( bucket ) {
+				if ( bucket.removed == false ) {
+					final boolean ret = !bucket.prewarmed;
+					bucket.prewarmed = true;
+					return ret;
+				}
+			}
+		}
+	}
+
+	private static int maxOutstandingRequests( OutputPort port )
+		throws IOException
+	{
+		try {
+			return port.getProtocol().maxOutstandingRequests();
+		} catch( URISyntaxException e ) {
+			throw new IOException( e );
+		}
+	}
+
+	/*
+	 * Returns the shared channel of bucket with the least outstanding requests,
+	 * if any of them can take another one.
+	 */
+	private CommChannel pollShared( Bucket bucket )
+	{
+		SharedChannel ret = null;
+		for( SharedChannel s : bucket.shared ) {
+			if ( s.outstanding < s.maxOutstanding && s.channel.toBeClosed() == false
+				&& ( ret == null || s.outstanding < ret.outstanding ) ) {
+				ret = s;
+			}
+		}
+		if ( ret == null ) {
+			return null;
+		}
+		if ( ret.outstanding++ == 0 ) {
+			cancelTimeoutHandler( ret.channel );
+		}
+		return ret.channel;
+	}
+
+	/*
+	 * Takes a channel from the idle ones of bucket, waiting if the bucket is exhausted.
+	 * Returns null if the caller should create a new channel.
+	 * An idle channel is returned locked, and the caller must check that it
+	 * is still open (see pollIdle).
+	 * Must be called while holding the monitor of bucket.
+	 */
+	private CommChannel checkout( Bucket bucket )
+	{
+		long deadline = 0L;
+		while( true ) {
+			CommChannel channel = pollShared( bucket );
+			if ( channel != null ) {
+				hits.incrementAndGet();
+				return channel;
+			}
+			channel = pollIdle( bucket );
+			if ( channel != null ) {
+				bucket.leased++;
+				channel.setPoolBucket( bucket );
+				return channel;
+			}
+
+			if ( bucket.maxOutstanding > 1 && bucket.connecting > 0 ) {
+				// Wait for the channel being opened, since we can share it
+			} else if ( maxSize <= 0 || bucket.leased < maxSize ) {
+				break;
+			}
+
+			final long now = System.currentTimeMillis();
+			if ( deadline == 0L ) {
+				waits.incrementAndGet();
+				deadline = now + WAIT_TIMEOUT;
+			} else if ( now >= deadline ) {
+				break;
+			}
+			bucket.waiting++;
+			try {
+				bucket.wait( deadline - now );
+			} catch( InterruptedException e ) {
+				break;
+			} finally {
+				bucket.waiting--;
+			}
+		}
+
+		bucket.leased++;
+		bucket.connecting++;
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/*
+	 * Takes an idle channel of bucket that nobody else is using, and returns it locked.
+	 * Whether it is still open is not checked here, since that may read from
+	 * the channel: the caller checks it after releasing the monitor of bucket.
+	 */
+	private CommChannel pollIdle( Bucket bucket )
+	{
+		CommChannel channel;
+		List< CommChannel > busyChannels = null;
+		CommChannel ret = null;
+		while( ret == null && (channel = bucket.idle.pollFirst()) != null ) {
+			if ( channel.lock.tryLock() ) {
+				cancelTimeoutHandler( channel );
+				ret = channel;
+			} else {
+				// Someone else is still using this channel, leave it in the bucket
+				if ( busyChannels == null ) {
+					busyChannels = new ArrayList<>();
+				}
+				busyChannels.add( channel );
+			}
+		}
+		if ( busyChannels != null ) {
+			bucket.idle.addAll( busyChannels );
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the number of requests using channels of this pool for the
+	 * given location: each exclusively leased channel counts as one, and
+	 * each shared channel as its number of outstanding requests.
+	 * @param location the location of the channels
+	 * @return the number of requests using channels for the given location
+	 */
+	public int inFlight( URI location )
+	{
+		final List< Bucket > locationBuckets;
+		synchronized( buckets ) {
+			final Map< String, Bucket > protocolBuckets = buckets.get( location );
+			if ( protocolBuckets == null ) {
+				return 0;
+			}
+			locationBuckets = new ArrayList<>( protocolBuckets.values() );
+		}
+		int ret = 0;
+		for( Bucket bucket : locationBuckets ) {
+			synchronized( bucket ) {
+				ret += bucket.leased - bucket.shared.size();
+				for( SharedChannel s : bucket.shared ) {
+					ret += s.outstanding;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Gives back a channel to the pool, caching it if there is room for it
+	 * or closing it otherwise.
+	 * @param location the location of the channel
+	 * @param protocol the name of the protocol used by the channel
+	 * @param channel the channel to give back
+	 */
+	public void release( URI location, String protocol, CommChannel channel )
+	{
+		boolean cached = false;
+		boolean retry;
+		Bucket bucket = channel.poolBucket();
+		if ( bucket == null ) {
+			if ( channel.parentInputPort() != null ) {
+				// Channels accepted by an input port are handled by CommCore:
+				// they may be waiting for (or receiving) other requests
+				return;
+			}
+			bucket = bucket( location, protocol );
+		}
+		do {
+			synchronized( bucket ) {
+				final SharedChannel s = bucket.getShared( channel );
+				if ( s != null ) {
+					if ( --s.outstanding == 0 ) {
+						setTimeoutHandler( bucket, channel );
+					}
+					bucket.notifyAll();
+					return;
+				} else if ( channel.isMultiplexed() ) {
+					// The channel has been dropped from the pool while we were using it
+					return;
+				}
+				if ( channel.poolBucket() == bucket ) {
+					channel.setPoolBucket( null );
+					bucket.leased--;
+				}
+				retry = bucket.removed;
+				if ( retry == false ) {
+					if ( maxSize > 0 && bucket.idle.size() < maxSize && bucket.idle.contains( channel ) == false ) {
+						bucket.idle.addFirst( channel );
+						setTimeoutHandler( bucket, channel );
+						cached = true;
+					}
+					bucket.notifyAll();
+				}
+			}
+			if ( retry ) {
+				bucket = bucket( location, protocol );
+			}
+		} while( retry );
+
+		if ( cached == false ) {
+			closeQuietly( channel );
+		}
+	}
+
+	private void setTimeoutHandler( final Bucket bucket, final CommChannel channel )
+	{
+		final TimeoutHandler handler = new TimeoutHandler( commCore.interpreter().persistentConnectionTimeout() ) {
+			@Override
+			public void onTimeout()
+			{
+				boolean evicted = false;
+				synchronized( bucket ) {
+					if ( channel.timeoutHandler() == this ) {
+						final SharedChannel s = bucket.getShared( channel );
+						if ( s != null ) {
+							if ( s.outstanding == 0 && bucket.shared.size() > minIdle ) {
+								// The channel is closed below, which gives back its slot
+								channel.setTimeoutHandler( null );
+								evicted = true;
+							} else if ( s.outstanding == 0 ) {
+								setTimeoutHandler( bucket, channel );
+							}
+						} else if ( bucket.idle.size() > minIdle ) {
+							bucket.idle.remove( channel );
+							channel.setTimeoutHandler( null );
+							evicted = true;
+						} else {
+							// Keep the channel warm
+							setTimeoutHandler( bucket, channel );
+						}
+					}
+				}
+				if ( evicted ) {
+					closeQuietly( channel );
+					removeIfUnused( bucket );
+				}
+			}
+		};
+		channel.setTimeoutHandler( handler );
+		commCore.interpreter().addTimeoutHandler( handler );
+	}
+
+	private static void cancelTimeoutHandler( CommChannel channel )
+	{
+		final TimeoutHandler handler = channel.timeoutHandler();
+		if ( handler != null ) {
+			handler.cancel();
+			channel.setTimeoutHandler( null );
+		}
+	}
+
+	private void closeQuietly( CommChannel channel )
+	{
+		try {
+			channel.close();
+		} catch( IOException e ) {
+			commCore.interpreter().logWarning( e );
+		}
+	}
+
+	/**
+	 * Returns the number of requests served with a cached channel.
+	 * @return the number of requests served with a cached channel
+	 */
+	public long hits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of requests that required the creation of a new channel.
+	 * @return the number of requests that required the creation of a new channel
+	 */
+	public long misses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of requests that had to wait for a channel to be released.
+	 * @return the number of requests that had to wait for a channel to be released
+	 */
+	public long waits()
+	{
+		return waits.get();
+	}
+
+	/**
+	 * Returns the number of channels opened in advance by {@link #prewarm(java.net.URI, java.lang.String, jolie.net.ports.OutputPort, int) prewarm}.
+	 * @return the number of channels opened in advance
+	 */
+	public long prewarmed()
+	{
+		return prewarmed.get();
+	}
+
+	/**
+	 * Returns the number of channels currently cached and not in use.
+	 * @return the number of channels currently cached and not in use
+	 */
+	public int idleCount()
+	{
+		int count = 0;
+		synchronized( buckets ) {
+			for( Map< String, Bucket > protocolBuckets : buckets.values() ) {
+				for( Bucket bucket : protocolBuckets.values() ) {
+					synchronized( bucket ) {
+						count += bucket.idle.size();
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of channels currently shared by concurrent requesters.
+	 * @return the number of channels currently shared by concurrent requesters
+	 */
+	public int sharedCount()
+	{
+		int count = 0;
+		synchronized( buckets ) {
+			for( Map< String, Bucket > protocolBuckets : buckets.values() ) {
+				for( Bucket bucket : protocolBuckets.values() ) {
+					synchronized( bucket ) {
+						count += bucket.shared.size();
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of channels currently lent by this pool.
+	 * @return the number of channels currently lent by this pool
+	 */
+	public int leasedCount()
+	{
+		int count = 0;
+		synchronized( buckets ) {
+			for( Map< String, Bucket > protocolBuckets : buckets.values() ) {
+				for( Bucket bucket : protocolBuckets.values() ) {
+					synchronized( bucket ) {
+						count += bucket.leased;
+					}
+				}
+			}
+		}
+		return count;
+	}
+}
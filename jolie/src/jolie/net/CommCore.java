@@ -25,43 +25,44 @@ package jolie.net;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectableChannel;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
-import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import jolie.ExecutionThread;
 import jolie.Interpreter;
-import jolie.JolieThreadPoolExecutor;
-import jolie.NativeJolieThread;
+import jolie.VirtualThreads;
 import jolie.lang.Constants;
 import jolie.net.ext.CommChannelFactory;
 import jolie.net.ext.CommListenerFactory;
 import jolie.net.ext.CommProtocolFactory;
 import jolie.net.ports.InputPort;
 import jolie.net.ports.OutputPort;
+import jolie.net.ports.ResponseCache;
 import jolie.net.protocols.CommProtocol;
 import jolie.process.Process;
 import jolie.runtime.FaultException;
 import jolie.runtime.InputOperation;
 import jolie.runtime.InvalidIdException;
 import jolie.runtime.OneWayOperation;
-import jolie.runtime.TimeoutHandler;
+import jolie.runtime.RequestResponseOperation;
 import jolie.runtime.Value;
 import jolie.runtime.VariablePath;
 import jolie.runtime.correlation.CorrelationError;
@@ -83,130 +84,135 @@ public class CommCore
 	private static final Logger logger = Logger.getLogger( "JOLIE" );
 
 	private final int connectionsLimit;
-	// private final int connectionCacheSize;
+	private final int acceptors;
+	private final int acceptQueue;
+	private final int writeBatch;
+	private final long writeDelay;
+	private final LongAdder writtenMessages = new LongAdder();
+	private final LongAdder writes = new LongAdder();
 	private final Interpreter interpreter;
 	
 	private final ReadWriteLock channelHandlersLock = new ReentrantReadWriteLock( true );
 
-	// Location URI -> Protocol name -> Persistent CommChannel object
-	private final Map< URI, Map< String, CommChannel > > persistentChannels = new HashMap<>();
+	private final CommChannelPool channelPool;
+	private final BufferPool bufferPool;
 
-	private void removePersistentChannel( URI location, String protocol, Map< String, CommChannel > protocolChannels )
-	{		
-		protocolChannels.remove( protocol );
-		if ( protocolChannels.isEmpty() ) {
-			persistentChannels.remove( location );
-		}
+	/**
+	 * Returns a persistent channel for the given location and protocol,
+	 * reusing a cached one if possible or creating a new one otherwise.
+	 * @param location the location of the channel
+	 * @param protocol the name of the protocol used by the channel
+	 * @param port the output port requesting the channel
+	 * @return a persistent channel for the given location and protocol
+	 * @throws IOException if a new channel could not be created
+	 * @see CommChannelPool
+	 */
+	public CommChannel getPersistentChannel( URI location, String protocol, OutputPort port )
+		throws IOException
+	{
+		return channelPool.acquire( location, protocol, port );
 	}
-	
-	private void removePersistentChannel( URI location, String protocol, CommChannel channel )
+
+	public void putPersistentChannel( URI location, String protocol, final CommChannel channel )
 	{
-		if ( persistentChannels.containsKey( location ) ) {
-			if ( persistentChannels.get( location ).get( protocol ) == channel ) {
-				removePersistentChannel( location, protocol, persistentChannels.get( location ) );
-			}
-		}
+		channelPool.release( location, protocol, channel );
 	}
 
-	public CommChannel getPersistentChannel( URI location, String protocol )
-	{
-		CommChannel ret = null;
-		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
-			if ( protocolChannels != null ) {
-				ret = protocolChannels.get( protocol );
-				if ( ret != null ) {
-					if ( ret.lock.tryLock() ) {
-						if ( ret.isOpen() ) {
-							/*
-							 * We are going to return this channel, but first
-							 * check if it supports concurrent use.
-							 * If not, then others should not access this until
-							 * the caller is finished using it.
-							 */
-							//if ( ret.isThreadSafe() == false ) {
-							removePersistentChannel( location, protocol, protocolChannels );
-							//} else {
-							// If we return a channel, make sure it will not timeout!
-							ret.setTimeoutHandler( null );
-							//if ( ret.timeoutHandler() != null ) {
-								//interpreter.removeTimeoutHandler( ret.timeoutHandler() );
-								// ret.setTimeoutHandler( null );
-							//}
-							//}
-							ret.lock.unlock();
-						} else { // Channel is closed
-							removePersistentChannel( location, protocol, protocolChannels );
-							ret.lock.unlock();
-							ret = null;
-						}
-					} else { // Channel is busy
-						removePersistentChannel( location, protocol, protocolChannels );
-						ret = null;
-					}
-				}
+	/**
+	 * Returns the pool of persistent output channels of this CommCore.
+	 * @return the pool of persistent output channels of this CommCore
+	 */
+	public CommChannelPool channelPool()
+	{
+		return channelPool;
+	}
+
+	/**
+	 * Returns the number of requests being sent to, or waiting for a response
+	 * from, the given location through persistent channels.
+	 * @param location the location to check
+	 * @return the number of requests in flight for the given location
+	 * @see CommChannelPool#inFlight(java.net.URI)
+	 */
+	public int inFlightRequests( URI location )
+	{
+		return channelPool.inFlight( location );
+	}
+
+	private final static class CircuitBreakerKey {
+		private final String outputPortId;
+		private final URI location;
+		private final CircuitBreaker.Settings settings;
+
+		private CircuitBreakerKey( String outputPortId, URI location, CircuitBreaker.Settings settings )
+		{
+			this.outputPortId = outputPortId;
+			this.location = location;
+			this.settings = settings;
+		}
+
+		@Override
+		public boolean equals( Object obj )
+		{
+			if ( !(obj instanceof CircuitBreakerKey) ) {
+				return false;
 			}
+			final CircuitBreakerKey other = (CircuitBreakerKey) obj;
+			return outputPortId.equals( other.outputPortId )
+				&& location.equals( other.location )
+				&& settings.equals( other.settings );
 		}
 
-		return ret;
+		@Override
+		public int hashCode()
+		{
+			return 31 * ( 31 * outputPortId.hashCode() + location.hashCode() ) + settings.hashCode();
+		}
 	}
 
-	private void setTimeoutHandler( final CommChannel channel, final URI location, final String protocol )
+	private final Map< CircuitBreakerKey, CircuitBreaker > circuitBreakers = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the circuit breaker of an output port for the given location,
+	 * configured by the <code>circuitBreaker</code> parameter of its protocol
+	 * configuration. Output ports sending requests to the same location have
+	 * their own circuit breakers, and so do sessions that configure the
+	 * circuit breaker of a port differently: each circuit breaker is created
+	 * once, with its own settings, and keeps them.
+	 * @param outputPortId the identifier of the output port sending requests to <code>location</code>
+	 * @param location the location guarded by the circuit breaker
+	 * @param protocolConfig the protocol configuration of the output port
+	 * @return the circuit breaker of <code>location</code>, or <code>null</code> if <code>protocolConfig</code> does not enable it
+	 * @see CircuitBreaker
+	 */
+	public CircuitBreaker circuitBreaker( String outputPortId, URI location, Value protocolConfig )
 	{
-		/*if ( channel.timeoutHandler() != null ) {
-			interpreter.removeTimeoutHandler( channel.timeoutHandler() );
-		}*/
+		final CircuitBreaker.Settings settings = CircuitBreaker.Settings.fromProtocolConfiguration( protocolConfig );
+		if ( settings == null ) {
+			return null;
+		}
+		return circuitBreakers.computeIfAbsent(
+			new CircuitBreakerKey( outputPortId, location, settings ),
+			k -> new CircuitBreaker( outputPortId, location, settings, interpreter )
+		);
+	}
 
-		final TimeoutHandler handler = new TimeoutHandler( interpreter.persistentConnectionTimeout() ) {
-			@Override
-			public void onTimeout()
-			{
-				try {
-					synchronized( persistentChannels ) {
-						if ( channel.timeoutHandler() == this ) {
-							removePersistentChannel( location, protocol, channel );
-							channel.close();
-							channel.setTimeoutHandler( null );
-						}
-					}
-				} catch( IOException e ) {
-					interpreter.logSevere( e );
-				}
-			}
-		};
-		channel.setTimeoutHandler( handler );
-		interpreter.addTimeoutHandler( handler );
+	/**
+	 * Returns the circuit breakers created by this CommCore.
+	 * @return the circuit breakers created by this CommCore
+	 */
+	public Collection< CircuitBreaker > circuitBreakers()
+	{
+		return circuitBreakers.values();
 	}
 
-	public void putPersistentChannel( URI location, String protocol, final CommChannel channel )
+	/**
+	 * Returns the pool of the buffers used by socket channels.
+	 * @return the pool of the buffers used by socket channels
+	 */
+	public BufferPool bufferPool()
 	{
-		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
-			if ( protocolChannels == null ) {
-				protocolChannels = new HashMap<>();
-				persistentChannels.put( location, protocolChannels );
-			}
-			// Set the timeout
-			setTimeoutHandler( channel, location, protocol );
-			// Put the protocol in the cache (may overwrite another one)
-			protocolChannels.put( protocol, channel );
-			/*if ( protocolChannels.size() <= connectionCacheSize && protocolChannels.containsKey( protocol ) == false ) {
-				// Set the timeout
-				setTimeoutHandler( channel );
-				// Put the protocol in the cache
-				protocolChannels.put( protocol, channel );
-			} else {
-				try {
-					if ( protocolChannels.get( protocol ) != channel ) {
-						channel.close();
-					} else {
-						setTimeoutHandler( channel );
-					}
-				} catch( IOException e ) {
-					interpreter.logWarning( e );
-				}
-			}*/
-		}
+		return bufferPool;
 	}
 
 	/**
@@ -222,15 +228,29 @@ public class CommCore
 	 * Constructor.
 	 * @param interpreter the Interpreter to refer to for this CommCore operations
 	 * @param connectionsLimit if more than zero, specifies an upper bound to the connections handled in parallel.
+	 * @param connectionsQueueSize the maximum number of incoming messages waiting to be handled, if connectionsLimit is more than zero
+	 * @param overloadPolicy what to do with incoming messages exceeding connectionsQueueSize
+	 * @param connectionsCacheSize the maximum number of persistent output channels to keep for each location
+	 * @param connectionsCacheMinimum the number of idle persistent output channels to keep for each location
+	 * @param acceptors the number of threads accepting connections for each socket input port
+	 * @param acceptQueue the maximum number of pending connections for each socket input port
+	 * @param writeBatch the maximum number of messages written at once on a socket channel
+	 * @param writeDelay how long (in milliseconds) a socket channel may wait for more messages to write at once
+	 * @param detectBufferLeaks <code>true</code> if the buffers of socket channels should be checked for leaks
 	 * @throws java.io.IOException
 	 */
-	public CommCore( Interpreter interpreter, int connectionsLimit /*, int connectionsCacheSize */ )
+	public CommCore( Interpreter interpreter, int connectionsLimit, int connectionsQueueSize, DispatchExecutor.OverloadPolicy overloadPolicy, int connectionsCacheSize, int connectionsCacheMinimum, int acceptors, int acceptQueue, int writeBatch, long writeDelay, boolean detectBufferLeaks )
 		throws IOException
 	{
 		this.interpreter = interpreter;
 		this.localListener = LocalListener.create( interpreter );
 		this.connectionsLimit = connectionsLimit;
-		// this.connectionCacheSize = connectionsCacheSize;
+		this.acceptors = acceptors;
+		this.acceptQueue = acceptQueue;
+		this.writeBatch = writeBatch;
+		this.writeDelay = writeDelay;
+		this.channelPool = new CommChannelPool( this, connectionsCacheSize, connectionsCacheMinimum );
+		this.bufferPool = new BufferPool( interpreter, detectBufferLeaks );
 		this.threadGroup = new ThreadGroup( "CommCore-" + interpreter.hashCode() );
 		/* if ( connectionsLimit > 0 ) {
 			executorService = Executors.newFixedThreadPool( connectionsLimit, new CommThreadFactory() );
@@ -238,12 +258,28 @@ public class CommCore
 			executorService = Executors.newCachedThreadPool( new CommThreadFactory() );
 		}
 		*/
-		executorService = new JolieThreadPoolExecutor( new CommThreadFactory() );
-		
-		selectorThreads = new SelectorThread[ Runtime.getRuntime().availableProcessors() ];
-		for( int i = 0; i < selectorThreads.length; i++ ) {
-			selectorThreads[ i ] = new SelectorThread( interpreter );
+		final ThreadFactory threadFactory;
+		if ( interpreter.usesVirtualThreads() ) {
+			threadFactory = VirtualThreads.factory( interpreter.programFilename() + "-CommChannelHandler-" );
+			executorService = VirtualThreads.newThreadPerTaskExecutor( interpreter.programFilename() + "-CommChannelHandler-" );
+		} else {
+			threadFactory = new CommThreadFactory();
+			executorService = interpreter.sharedRuntime().newCommExecutor( interpreter );
 		}
+		if ( connectionsLimit > 0 ) {
+			dispatchExecutor = new DispatchExecutor( threadFactory, connectionsLimit, connectionsQueueSize, overloadPolicy );
+			rejectionExecutor = new ThreadPoolExecutor(
+				REJECTION_THREADS, REJECTION_THREADS, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue< Runnable >( Math.max( REJECTION_QUEUE_SIZE, connectionsQueueSize ) ),
+				threadFactory
+			);
+			rejectionExecutor.allowCoreThreadTimeOut( true );
+		} else {
+			dispatchExecutor = null;
+			rejectionExecutor = null;
+		}
+		
+		selectorPool = interpreter.sharedRuntime().selectorPool();
 
 		//TODO make socket an extension, too?
 		CommListenerFactory listenerFactory = new SocketListenerFactory( this );
@@ -270,6 +306,107 @@ public class CommCore
 		return connectionsLimit;
 	}
 
+	/**
+	 * Returns the number of threads accepting connections for each socket input port.
+	 * @return the number of threads accepting connections for each socket input port
+	 */
+	public int acceptors()
+	{
+		return acceptors;
+	}
+
+	/**
+	 * Returns the maximum number of pending connections for each socket input port.
+	 * @return the maximum number of pending connections for each socket input port
+	 */
+	public int acceptQueue()
+	{
+		return acceptQueue;
+	}
+
+	/**
+	 * Returns the maximum number of messages written at once on a socket channel.
+	 * @return the maximum number of messages written at once on a socket channel
+	 */
+	public int writeBatch()
+	{
+		return writeBatch;
+	}
+
+	/**
+	 * Returns how long (in milliseconds) a socket channel may wait for more
+	 * messages to write at once.
+	 * @return how long a socket channel may wait for more messages to write at once
+	 */
+	public long writeDelay()
+	{
+		return writeDelay;
+	}
+
+	void messagesWritten( int messages )
+	{
+		writtenMessages.add( messages );
+		writes.increment();
+	}
+
+	/**
+	 * Returns the number of messages written by socket channels.
+	 * @return the number of messages written by socket channels
+	 */
+	public long writtenMessages()
+	{
+		return writtenMessages.sum();
+	}
+
+	/**
+	 * Returns the number of writes of batched messages performed by socket channels.
+	 * @return the number of writes of batched messages performed by socket channels
+	 */
+	public long writes()
+	{
+		return writes.sum();
+	}
+
+	/**
+	 * Returns the number of selector threads used by this CommCore, which
+	 * are shared with the other interpreters of its {@link jolie.SharedRuntime}.
+	 * @return the number of selector threads used by this CommCore
+	 */
+	public int selectorCount()
+	{
+		return selectorPool.size();
+	}
+
+	/**
+	 * Returns the number of connections accepted by the socket input ports.
+	 * @return the number of connections accepted by the socket input ports
+	 */
+	public long acceptedConnections()
+	{
+		long count = 0;
+		for( CommListener listener : listenersMap.values() ) {
+			if ( listener instanceof SocketListener ) {
+				count += ((SocketListener) listener).acceptedCount();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of batches of connections accepted by the socket input ports.
+	 * @return the number of batches of connections accepted by the socket input ports
+	 */
+	public long acceptBatches()
+	{
+		long count = 0;
+		for( CommListener listener : listenersMap.values() ) {
+			if ( listener instanceof SocketListener ) {
+				count += ((SocketListener) listener).batchCount();
+			}
+		}
+		return count;
+	}
+
 	public ThreadGroup threadGroup()
 	{
 		return threadGroup;
@@ -286,6 +423,19 @@ public class CommCore
 	{
 		return listenersMap.get( serviceName );
 	}
+
+	/**
+	 * Returns the input ports of the listeners of this communication core.
+	 * @return the input ports of the listeners of this communication core
+	 */
+	public Collection< InputPort > inputPorts()
+	{
+		final Collection< InputPort > ret = new LinkedList<>();
+		for( CommListener listener : listenersMap.values() ) {
+			ret.add( listener.inputPort() );
+		}
+		return ret;
+	}
 	
 	private final Map< String, CommChannelFactory > channelFactories = new HashMap<>();
 
@@ -426,6 +576,12 @@ public class CommCore
 	}
 	
 	private final ExecutorService executorService;
+	// Handles incoming messages when connectionsLimit is set, null otherwise
+	private final DispatchExecutor dispatchExecutor;
+	// Answers the messages refused by dispatchExecutor, which may take a while to be read
+	private final ThreadPoolExecutor rejectionExecutor;
+	private static final int REJECTION_THREADS = 2;
+	private static final int REJECTION_QUEUE_SIZE = 256;
 	
 	private final static class CommThreadFactory implements ThreadFactory {
 		@Override
@@ -437,7 +593,17 @@ public class CommCore
 
 	private final static Pattern pathSplitPattern = Pattern.compile( "/" );
 
-	private class CommChannelHandlerRunnable implements Runnable {
+	// Set while the current thread is handling an incoming message
+	private static final ThreadLocal< Boolean > handlingMessage = new ThreadLocal<>();
+
+	private static void requestReceived( CommChannel channel )
+	{
+		if ( channel instanceof SelectableStreamingCommChannel ) {
+			((SelectableStreamingCommChannel)channel).requestReceived();
+		}
+	}
+
+	private class CommChannelHandlerRunnable implements DispatchExecutor.Task {
 		private final CommChannel channel;
 		private final InputPort port;
 		
@@ -500,14 +666,7 @@ public class CommCore
 			}
 			try {
 				CommChannel oChannel = oPort.getNewCommChannel();
-				CommMessage rMessage =
-							new CommMessage(
-									message.id(),
-									message.operationName(),
-									rPath,
-									message.value(),
-									message.fault()
-							);
+				CommMessage rMessage = CommMessage.createForward( message, message.id(), rPath );
 				oChannel.setRedirectionChannel( channel );
 				oChannel.setRedirectionMessageId( rMessage.id() );
 				oChannel.send( rMessage );
@@ -532,8 +691,20 @@ public class CommCore
 			try {
 				InputOperation operation =
 					interpreter.getInputOperation( message.operationName() );
+				ResponseCache cache = null;
 				try {
 					operation.requestType().check( message.value() );
+					if ( operation instanceof RequestResponseOperation ) {
+						cache = port.responseCache( message.operationName() );
+						if ( cache != null ) {
+							final Value cachedResponse = cache.get( message );
+							if ( cachedResponse != null ) {
+								// Answer without starting a session
+								channel.send( CommMessage.createResponse( message, cachedResponse ) );
+								return;
+							}
+						}
+					}
 					interpreter.correlationEngine().onMessageReceive( message, channel );
 					if ( operation instanceof OneWayOperation ) {
 						// We need to send the acknowledgement
@@ -548,6 +719,9 @@ public class CommCore
 						Interpreter.getInstance().logSevere( ioe );
 					}
 				} catch( CorrelationError e ) {
+					if ( cache != null ) {
+						cache.discard( message );
+					}
 					interpreter.logWarning( "Received a non correlating message for operation " + message.operationName() + ". Sending CorrelationError to the caller." );
 					channel.send( CommMessage.createFaultResponse( message, new FaultException( "CorrelationError", "The message you sent can not be correlated with any session and can not be used to start a new session." ) ) );
 				}
@@ -559,9 +733,51 @@ public class CommCore
 			}
 		}
 
+		/*
+		 * Delivers the one-way requests in a batch, and acknowledges them all
+		 * with a single response. Requests that can not be delivered are
+		 * discarded, and reported to the sender by a fault response.
+		 */
+		private void handleBatch( CommMessage batch )
+			throws IOException
+		{
+			int discarded = 0;
+			try {
+				for( CommMessage message : batch.batch() ) {
+					try {
+						final InputOperation operation =
+							port.canHandleInputOperationDirectly( message.operationName() )
+							? interpreter.getInputOperation( message.operationName() ) : null;
+						if ( !(operation instanceof OneWayOperation) ) {
+							throw new InvalidIdException( message.operationName() );
+						}
+						operation.requestType().check( message.value() );
+						interpreter.correlationEngine().onMessageReceive( message, channel );
+					} catch( InvalidIdException | TypeCheckingException | CorrelationError e ) {
+						discarded++;
+						interpreter.logWarning( "Discarded a batched message for operation " + message.operationName() + ": " + e.getMessage() );
+					}
+				}
+				if ( discarded == 0 ) {
+					channel.send( CommMessage.createEmptyResponse( batch ) );
+				} else {
+					channel.send( CommMessage.createFaultResponse( batch, new FaultException(
+						Constants.IO_EXCEPTION_FAULT_NAME,
+						discarded + " of " + batch.batch().size() + " batched messages were discarded by the receiver"
+					) ) );
+				}
+			} finally {
+				channel.disposeForInput();
+			}
+		}
+
 		private void handleMessage( CommMessage message )
 			throws IOException
 		{
+			if ( message.isBatch() ) {
+				handleBatch( message );
+				return;
+			}
 			try {
 				String[] ss = pathSplitPattern.split( message.resourcePath() );
 				if ( ss.length > 1 ) {
@@ -591,11 +807,66 @@ public class CommCore
 			}
 		}
 		
+		/*
+		 * Answers the incoming message with a fault. Receiving the message may
+		 * block (e.g., on a slow client), so this is not done by the thread
+		 * that tried to schedule it, which may be a selector thread: if even
+		 * the threads refusing messages are all busy, the channel is closed.
+		 */
+		@Override
+		public void reject()
+		{
+			if ( channel.redirectionChannel() != null ) {
+				// This is a response we are waiting for, it can not be refused
+				executorService.execute( this );
+				return;
+			}
+			try {
+				rejectionExecutor.execute( this::refuse );
+			} catch( RejectedExecutionException e ) {
+				interpreter.logWarning( "Too many incoming messages, closing a connection without reading its message." );
+				try {
+					channel.closeImpl();
+				} catch( IOException e2 ) {
+					interpreter.logWarning( e2 );
+				}
+			}
+		}
+
+		private void refuse()
+		{
+			ExecutionThread.setCurrentThread( interpreter().initThread() );
+			channel.lock.lock();
+			try {
+				final CommMessage message = channel.recv();
+				if ( message != null ) {
+					requestReceived( channel );
+					interpreter.logWarning( "Too many incoming messages, refusing a message for operation " + message.operationName() + ". Sending " + Constants.SERVICE_OVERLOADED_FAULT_NAME + " to the caller." );
+					try {
+						channel.send( CommMessage.createFaultResponse( message, new FaultException( Constants.SERVICE_OVERLOADED_FAULT_NAME, "The service is overloaded, try again later" ) ) );
+					} finally {
+						channel.disposeForInput();
+					}
+				} else {
+					channel.disposeForInput();
+				}
+			} catch( IOException e ) {
+				interpreter.logWarning( e );
+				try {
+					channel.closeImpl();
+				} catch( IOException e2 ) {
+					interpreter.logWarning( e2 );
+				}
+			} finally {
+				channel.lock.unlock();
+			}
+		}
+
 		@Override
 		public void run()
 		{
-			final CommChannelHandler thread = CommChannelHandler.currentThread();
-			thread.setExecutionThread( interpreter().initThread() );
+			ExecutionThread.setCurrentThread( interpreter().initThread() );
+			handlingMessage.set( Boolean.TRUE );
 			channel.lock.lock();
 			channelHandlersLock.readLock().lock();
 			try {
@@ -603,6 +874,7 @@ public class CommCore
 					assert( port != null );
 					final CommMessage message = channel.recv();
 					if ( message != null ) {
+						requestReceived( channel );
 						handleMessage( message );
 					} else {
 						channel.disposeForInput();
@@ -633,7 +905,8 @@ public class CommCore
 				if ( channel.lock.isHeldByCurrentThread() ) {
 					channel.lock.unlock();
 				}
-				thread.setExecutionThread( null );
+				ExecutionThread.setCurrentThread( null );
+				handlingMessage.remove();
 			}
 		}
 	}
@@ -645,7 +918,26 @@ public class CommCore
 	 */
 	public void scheduleReceive( CommChannel channel, InputPort port )
 	{
-		executorService.execute( new CommChannelHandlerRunnable( channel, port ) );
+		final CommChannelHandlerRunnable handler = new CommChannelHandlerRunnable( channel, port );
+		if ( dispatchExecutor == null ) {
+			executorService.execute( handler );
+		} else if ( dispatchExecutor.overloadPolicy() == DispatchExecutor.OverloadPolicy.BLOCK
+			&& handlingMessage.get() != null ) {
+			// A handler waiting for the queue to shrink may prevent it from shrinking
+			executorService.execute( handler );
+		} else {
+			dispatchExecutor.execute( handler );
+		}
+	}
+
+	/**
+	 * Returns the executor handling incoming messages, or <code>null</code>
+	 * if the number of messages handled in parallel is not limited.
+	 * @return the executor handling incoming messages, or <code>null</code>
+	 */
+	public DispatchExecutor dispatchExecutor()
+	{
+		return dispatchExecutor;
 	}
 
 	/**
@@ -663,22 +955,34 @@ public class CommCore
 	}
 	
 	/**
-	 * Initializes the communication core, starting its communication listeners.
-	 * This method is asynchronous. When it returns, every communication listener has
-	 * been issued to start, but they are not guaranteed to be ready to receive messages.
-	 * This method throws an exception if some listener cannot be issued to start;
-	 * other errors will be logged by the listener through the interpreter logger.
+	 * Initializes the communication core.
+	 * Communication listeners are started later by {@link #startListeners()},
+	 * once the protocols of the input ports have been configured.
 	 *
-	 * @throws IOException in case of some underlying <code>CommListener</code> initialization error
+	 * @throws IOException in case of some underlying initialization error
 	 * @see CommListener
 	 */
 	public void init()
 		throws IOException
 	{
 		active = true;
-		for( SelectorThread t : selectorThreads ) {
-			t.start();
-		}
+		selectorPool.start();
+	}
+
+	/**
+	 * Starts the communication listeners of this communication core.
+	 * This method must be called after the {@link #protocolConfigurations() protocol configurations}
+	 * have been run, since listeners read the protocol configuration of their input port
+	 * as soon as they receive data: before that, input ports are already bound and
+	 * incoming connections wait in their backlog.
+	 * This method is asynchronous. When it returns, every communication listener has
+	 * been issued to start, but they are not guaranteed to be ready to receive messages.
+	 * Errors will be logged by the listener through the interpreter logger.
+	 *
+	 * @see CommListener
+	 */
+	public void startListeners()
+	{
 		listenersMap.entrySet().forEach( ( entry ) -> {
 			entry.getValue().start();
 		} );
@@ -764,172 +1068,36 @@ public class CommCore
 	/**
 	 * Registers a <code>CommChannel</code> for input polling.
 	 * The registered channel must implement the {@link PollableCommChannel <code>PollableCommChannel</code>} interface.
+	 * Channels supporting ready listeners are scheduled for receiving as soon
+	 * as they become ready; the others are polled periodically.
 	 * @param channel the channel to register for polling
 	 * @throws java.io.IOException in case the channel could not be registered for polling
 	 * @see CommChannel
 	 * @see PollableCommChannel
 	 */
-	public void registerForPolling( CommChannel channel )
+	public void registerForPolling( final CommChannel channel )
 		throws IOException
 	{
-		pollingThread().register( channel );
-	}
-	
-	private final SelectorThread[] selectorThreads;
-
-	private class SelectorThread extends NativeJolieThread {
-		// We use a custom class for debugging purposes (the profiler gives us the class name)
-		private class SelectorMutex extends Object {}
-		
-		private final Selector selector;
-		private final SelectorMutex selectingMutex = new SelectorMutex();
-		private final Deque< Runnable > selectorTasks = new ArrayDeque<>();
-		
-		public SelectorThread( Interpreter interpreter )
-			throws IOException
-		{
-			super( interpreter, threadGroup, interpreter.programFilename() + "-SelectorThread" );
-			this.selector = Selector.open();
-		}
-		
-		private Deque< Runnable > runKeys( SelectionKey[] selectedKeys )
-			throws IOException
-		{
-			boolean keepRun;
-			synchronized( this ) {
-				do {
-					for( final SelectionKey key : selectedKeys ) {
-						if ( key.isValid() ) {
-							final SelectableStreamingCommChannel channel = (SelectableStreamingCommChannel)key.attachment();
-							if ( channel.lock.tryLock() ) {
-								key.cancel();
-								selectorTasks.add( () -> {
-									try {
-										try {
-											try {
-												key.channel().configureBlocking( true );
-												if ( channel.isOpen() ) {
-													/*if ( channel.selectionTimeoutHandler() != null ) {
-														interpreter.removeTimeoutHandler( channel.selectionTimeoutHandler() );
-													}*/
-													scheduleReceive( channel, channel.parentInputPort() );
-												} else {
-													channel.closeImpl();
-												}
-											} catch( ClosedChannelException e ) {
-												channel.closeImpl();
-											}
-										} catch( IOException e ) {
-											throw e;
-										} finally {
-											channel.lock.unlock();
-										}
-									} catch( IOException e ) {
-										if ( channel.lock.isHeldByCurrentThread() ) {
-											channel.lock.unlock();
-										}
-										interpreter.logWarning( e );
-									}
-								} );
-							}
-						}
-					}
-					synchronized( selectingMutex ) {
-						if ( selector.selectNow() > 0 ) { // Clean up the cancelled keys
-							// If some new channels are selected, run again
-							selectedKeys = selector.selectedKeys().toArray( new SelectionKey[0] );
-							keepRun = true;
-						} else {
-							keepRun = false;
-						}
-					}
-				} while( keepRun );
-			}
-			return selectorTasks;
-		}
-		
-		private void runTasks( Deque< Runnable > tasks )
-			throws IOException
-		{
-			Runnable r;
-			while( (r = tasks.poll()) != null ) {
-				r.run();
-			}
-		}
-		
-		@Override
-		public void run()
-		{
-			while( active ) {
-				try {
-					SelectionKey[] selectedKeys;
-					synchronized( selectingMutex ) {
-						selector.select();
-						selectedKeys = selector.selectedKeys().toArray( new SelectionKey[0] );
-					}
-					final Deque< Runnable > tasks = runKeys( selectedKeys );
-					runTasks( tasks );
-				} catch( IOException e ) {
-					interpreter.logSevere( e );
-				}
-			}
-
-			synchronized( this ) {
-				for( SelectionKey key : selector.keys() ) {
-					try {
-						((SelectableStreamingCommChannel)key.attachment()).closeImpl();
-					} catch( IOException e ) {
-						interpreter.logWarning( e );
-					}
-				}
-			}
-		}
-		
-		public void register( SelectableStreamingCommChannel channel, int index )
-		{
-			try {
-				if ( channel.inputStream().available() > 0 ) {
+		if ( channel instanceof PollableCommChannel ) {
+			final PollableCommChannel pollable = (PollableCommChannel)channel;
+			final AtomicBoolean scheduled = new AtomicBoolean( false );
+			final Runnable listener = () -> {
+				if ( scheduled.compareAndSet( false, true ) ) {
 					scheduleReceive( channel, channel.parentInputPort() );
-					return;
 				}
-
-				synchronized( this ) {
-					if ( !isSelecting( channel ) ) {
-						selector.wakeup();
-						SelectableChannel c = channel.selectableChannel();
-						c.configureBlocking( false );
-						synchronized( selectingMutex ) {
-							c.register( selector, SelectionKey.OP_READ, channel );
-							selector.wakeup();
-							channel.setSelectorIndex( index );
-						}
-					}
-				}
-			} catch( ClosedChannelException e ) {
-				interpreter.logWarning( e );
-			} catch( IOException e ) {
-				interpreter.logSevere( e );
-			}
-		}
-
-		public void unregister( SelectableStreamingCommChannel channel )
-			throws IOException
-		{
-			synchronized( this ) {
-				if ( isSelecting( channel ) ) {
-					selector.wakeup();
-					synchronized( selectingMutex ) {
-						SelectionKey key = channel.selectableChannel().keyFor( selector );
-						if ( key != null ) {
-							key.cancel();
-						}
-						selector.selectNow();
-					}
-					channel.selectableChannel().configureBlocking( true );
+			};
+			if ( pollable.setReadyListener( listener ) ) {
+				// The channel may have become ready before getting the listener
+				if ( pollable.isReady() ) {
+					listener.run();
 				}
+				return;
 			}
 		}
+		pollingThread().register( channel );
 	}
+	
+	private final SelectorPool selectorPool;
 
 	protected boolean isSelecting( SelectableStreamingCommChannel channel )
 	{
@@ -940,16 +1108,25 @@ public class CommCore
 	protected void unregisterForSelection( SelectableStreamingCommChannel channel )
 		throws IOException
 	{
-		selectorThreads[ channel.selectorIndex() ].unregister( channel );
+		selectorPool.unregister( channel );
+	}
+
+	/**
+	 * Registers a channel with a specific selector thread.
+	 * @param channel the channel to register
+	 * @param selectorIndex the index of the selector thread, modulo {@link #selectorCount()}
+	 * @throws IOException
+	 */
+	protected void registerForSelection( SelectableStreamingCommChannel channel, int selectorIndex )
+		throws IOException
+	{
+		selectorPool.register( channel, this, selectorIndex );
 	}
-	
-	private final AtomicInteger nextSelector = new AtomicInteger( 0 );
 	
 	protected void registerForSelection( final SelectableStreamingCommChannel channel )
 		throws IOException
 	{
-		final int i = nextSelector.getAndIncrement() % selectorThreads.length;
-		selectorThreads[ i ].register( channel, i );
+		selectorPool.register( channel, this );
 		/*final TimeoutHandler handler = new TimeoutHandler( interpreter.persistentConnectionTimeout() ) {
 			@Override
 			public void onTimeout()
@@ -973,32 +1150,49 @@ public class CommCore
 		}*/
 	}
 
-	/** Shutdowns the communication core, interrupting every communication-related thread. */
-	public synchronized void shutdown()
+	/**
+	 * Shutdowns the communication core, interrupting every communication-related thread.
+	 * Waiting for the threads to terminate is done without holding the
+	 * monitor of this object, which would pin the carrier of a virtual
+	 * thread that these threads may need to run.
+	 */
+	public void shutdown()
 	{
-		if ( active ) {
-			active = false;
-			listenersMap.entrySet().forEach( ( entry ) -> {
-				entry.getValue().shutdown();
-			} );
-			
-			for( SelectorThread t : selectorThreads ) {
-				t.selector.wakeup();
-				try {
-					t.join();
-				} catch( InterruptedException e ) {}
+		synchronized( this ) {
+			if ( !active ) {
+				return;
 			}
-			
-			try {
-				channelHandlersLock.writeLock().tryLock( CHANNEL_HANDLER_TIMEOUT, TimeUnit.SECONDS );
-			} catch( InterruptedException e ) {}
-			executorService.shutdown();
-			try {
-				executorService.awaitTermination( interpreter.persistentConnectionTimeout(), TimeUnit.MILLISECONDS );
-			} catch( InterruptedException e ) {}
-			threadGroup.interrupt();
+			active = false;
 		}
+		listenersMap.entrySet().forEach( ( entry ) -> {
+			entry.getValue().shutdown();
+		} );
+		
+		// The selector threads are shared: close only the channels of this CommCore
+		selectorPool.closeChannels( this );
+		
+		try {
+			channelHandlersLock.writeLock().tryLock( CHANNEL_HANDLER_TIMEOUT, TimeUnit.SECONDS );
+		} catch( InterruptedException e ) {}
+		if ( dispatchExecutor != null ) {
+			dispatchExecutor.shutdown();
+			rejectionExecutor.shutdown();
+		}
+		executorService.shutdown();
+		try {
+			if ( dispatchExecutor != null ) {
+				dispatchExecutor.awaitTermination( interpreter.persistentConnectionTimeout(), TimeUnit.MILLISECONDS );
+			}
+			executorService.awaitTermination( interpreter.persistentConnectionTimeout(), TimeUnit.MILLISECONDS );
+		} catch( InterruptedException e ) {}
+		executorService.shutdownNow();
+		threadGroup.interrupt();
 	}
 
-	private boolean active = false;
+	private volatile boolean active = false;
+
+	boolean isActive()
+	{
+		return active;
+	}
 }
@@ -23,7 +23,11 @@
 package jolie.net;
 
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import jolie.lang.Constants;
 import jolie.runtime.FaultException;
@@ -40,9 +44,16 @@ import jolie.runtime.Value;
  * (in case of a response);</li>
  * <li>a resource path, used for redirection;</li>
  * <li>a value, holding the message data;</li>
- * <li>potentially, a fault.</li>
+ * <li>potentially, a fault;</li>
+ * <li>potentially, a deadline by which the request should be answered;</li>
+ * <li>potentially, the credits granted by the receiver of a one-way request
+ * to its sender (see {@link jolie.net.ports.NotificationCredits}).</li>
  * </ul>
  *
+ * The fault and the value of a received message may be left in the encoding
+ * of the protocol that received it (see {@link EncodedContent}), and decoded
+ * only when they are accessed.
+ *
  * Message instances destined to be used in a Request-Response pattern
  * should always be created using the static methods
  * {@link #createRequest(java.lang.String, java.lang.String, jolie.runtime.Value) createRequest}
@@ -52,6 +63,28 @@ import jolie.runtime.Value;
  */
 public class CommMessage implements Serializable
 {
+	/**
+	 * The fault and the value of a received message, in the encoding of the
+	 * protocol that received it. Protocols using the same encoding can send
+	 * them as they are, so that messages that are only forwarded to other
+	 * services are never decoded.
+	 * @see CommMessage#createEncoded(long, java.lang.String, java.lang.String, jolie.net.CommMessage.EncodedContent)
+	 */
+	public interface EncodedContent
+	{
+		/**
+		 * Decodes the fault of the message.
+		 * @return the fault of the message, or <code>null</code> if it has none
+		 */
+		public FaultException fault();
+
+		/**
+		 * Decodes the value of the message.
+		 * @return the value of the message
+		 */
+		public Value value();
+	}
+
 	private static final long serialVersionUID = 1L;
 
 	private static final AtomicLong idCounter = new AtomicLong( 1L );
@@ -61,8 +94,12 @@ public class CommMessage implements Serializable
 	private final long id;
 	private final String operationName;
 	private final String resourcePath;
-	private final Value value;
-	private final FaultException fault;
+	private Value value;
+	private FaultException fault;
+	private transient volatile EncodedContent encodedContent = null;
+	private long deadline = 0L;
+	private int credits = -1;
+	private List< CommMessage > batch = null;
 
 	/**
 	 * Returns the resource path of this message.
@@ -148,6 +185,109 @@ public class CommMessage implements Serializable
 		return new CommMessage( request.id, request.operationName, "/", Value.create(), fault );
 	}
 
+	/**
+	 * Creates a message carrying a batch of one-way requests, which protocols
+	 * supporting it (see {@link jolie.net.protocols.CommProtocol#canSendBatches()})
+	 * send as a single message. The receiver answers the batch with a single
+	 * response, a fault if any of its requests could not be delivered.
+	 * @param id the identifier of the batch
+	 * @param messages the requests in the batch
+	 * @return a message carrying the batch of requests
+	 */
+	public static CommMessage createBatch( long id, List< CommMessage > messages )
+	{
+		final CommMessage ret = new CommMessage( id, "", Constants.ROOT_RESOURCE_PATH, Value.create(), null );
+		ret.batch = Collections.unmodifiableList( messages );
+		return ret;
+	}
+
+	/**
+	 * Creates a message whose fault and value are decoded from <code>content</code>
+	 * only when they are first accessed.
+	 * @param id the identifier for this message
+	 * @param operationName the operation name for this message
+	 * @param resourcePath the resource path for this message
+	 * @param content the encoded fault and value of this message
+	 * @return a message with the passed encoded content
+	 */
+	public static CommMessage createEncoded( long id, String operationName, String resourcePath, EncodedContent content )
+	{
+		final CommMessage ret = new CommMessage( id, operationName, resourcePath, null, null );
+		ret.encodedContent = content;
+		return ret;
+	}
+
+	/**
+	 * Creates a copy of a request for forwarding it to another service, with
+	 * a different identifier and resource path. If the content of the request
+	 * has not been decoded yet, it is shared with the copy in its encoded form.
+	 * @param request the request to forward
+	 * @param id the identifier for the forwarded request
+	 * @param resourcePath the resource path for the forwarded request
+	 * @return a copy of the request, to be forwarded
+	 */
+	public static CommMessage createForward( CommMessage request, long id, String resourcePath )
+	{
+		final EncodedContent content = request.encodedContent;
+		if ( content == null ) {
+			return new CommMessage( id, request.operationName, resourcePath, request.value, request.fault );
+		}
+		return createEncoded( id, request.operationName, resourcePath, content );
+	}
+
+	/**
+	 * Returns the encoded fault and value of this message, or <code>null</code>
+	 * if they have been decoded (or were never encoded).
+	 * A protocol sending this message can write this content as it is,
+	 * if it uses its encoding.
+	 * @return the encoded content of this message, or <code>null</code>
+	 */
+	public EncodedContent encodedContent()
+	{
+		return encodedContent;
+	}
+
+	private void decode()
+	{
+		if ( encodedContent != null ) {
+			synchronized( this ) {
+				final EncodedContent content = encodedContent;
+				if ( content != null ) {
+					fault = content.fault();
+					value = content.value();
+					// Once decoded, the value may be changed: it must not be forwarded in its old encoding
+					encodedContent = null;
+				}
+			}
+		}
+	}
+
+	private void writeObject( ObjectOutputStream out )
+		throws IOException
+	{
+		decode();
+		out.defaultWriteObject();
+	}
+
+	/**
+	 * Returns <code>true</code> if this message carries a batch of requests.
+	 * @return <code>true</code> if this message carries a batch of requests
+	 * @see #createBatch(long, java.util.List)
+	 */
+	public boolean isBatch()
+	{
+		return batch != null;
+	}
+
+	/**
+	 * Returns the requests carried by this message, or <code>null</code> if it is not a batch.
+	 * @return the requests carried by this message, or <code>null</code>
+	 */
+	public List< CommMessage > batch()
+	{
+		return batch;
+	}
+
 	/**
 	 * Constructor
 	 * @param id the identifier for this message
@@ -214,6 +354,7 @@ public class CommMessage implements Serializable
 	 */
 	public Value value()
 	{
+		decode();
 		return value;
 	}
 
@@ -232,6 +373,7 @@ public class CommMessage implements Serializable
 	 */
 	public boolean isFault()
 	{
+		decode();
 		return ( fault != null );
 	}
 
@@ -243,6 +385,48 @@ public class CommMessage implements Serializable
 	 */
 	public FaultException fault()
 	{
+		decode();
 		return fault;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the time (in milliseconds since the epoch) by which this request
+	 * should be answered, or 0 if there is no deadline.
+	 * @return the deadline of this request, or 0
+	 */
+	public long deadline()
+	{
+		return deadline;
+	}
+
+	/**
+	 * Sets the time (in milliseconds since the epoch) by which this request
+	 * should be answered. Protocols transmit the time left before the deadline.
+	 * @param deadline the deadline of this request, or 0 for none
+	 */
+	public void setDeadline( long deadline )
+	{
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Returns the number of one-way requests that the sender of this message
+	 * may send before waiting for another grant, or -1 if this message
+	 * grants no credits.
+	 * @return the credits granted by this message, or -1
+	 */
+	public int credits()
+	{
+		return credits;
+	}
+
+	/**
+	 * Sets the number of one-way requests that the receiver of this message
+	 * may send before waiting for another grant.
+	 * @param credits the credits granted by this message, or -1 for none
+	 */
+	public void setCredits( int credits )
+	{
+		this.credits = credits;
+	}
+}
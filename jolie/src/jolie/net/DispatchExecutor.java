@@ -0,0 +1,258 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded executor for the handling of incoming messages.
+ *
+ * At most <code>maxThreads</code> messages are handled in parallel, and
+ * at most <code>queueCapacity</code> more wait for a free thread.
+ * What happens to messages arriving when the queue is full depends on the
+ * {@link OverloadPolicy} of this executor.
+ */
+public class DispatchExecutor extends ThreadPoolExecutor
+{
+	/**
+	 * What to do with incoming messages when the dispatch queue is full.
+	 */
+	public enum OverloadPolicy {
+		/**
+		 * The incoming message is answered with a
+		 * {@link jolie.lang.Constants#SERVICE_OVERLOADED_FAULT_NAME} fault.
+		 */
+		REJECT,
+		/**
+		 * The oldest waiting message is answered with a
+		 * {@link jolie.lang.Constants#SERVICE_OVERLOADED_FAULT_NAME} fault,
+		 * and the incoming one takes its place in the queue.
+		 */
+		SHED,
+		/**
+		 * The thread scheduling the message (e.g., a selector or a listener)
+		 * waits for some space in the queue, so that no more data is read from
+		 * the network in the meantime and senders are slowed down by TCP flow control.
+		 */
+		BLOCK;
+
+		public static OverloadPolicy fromString( String name )
+		{
+			switch( name ) {
+			case "reject":
+				return REJECT;
+			case "shed":
+				return SHED;
+			case "block":
+				return BLOCK;
+			default:
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * A task that can be refused, e.g. by answering its message with a fault.
+	 */
+	interface Task extends Runnable
+	{
+		void reject();
+	}
+
+	private static final long BLOCK_CHECK_INTERVAL = 500; // msecs
+
+	private final BlockingDeque< Runnable > queue;
+	private final OverloadPolicy overloadPolicy;
+	private final AtomicLong rejected = new AtomicLong( 0 );
+	private final AtomicLong shed = new AtomicLong( 0 );
+	private final AtomicLong blocked = new AtomicLong( 0 );
+
+	/**
+	 * Constructor.
+	 * @param factory the factory for the handler threads
+	 * @param maxThreads the maximum number of messages handled in parallel
+	 * @param queueCapacity the maximum number of messages waiting to be handled
+	 * @param overloadPolicy what to do with incoming messages when the queue is full
+	 */
+	public DispatchExecutor( ThreadFactory factory, int maxThreads, int queueCapacity, OverloadPolicy overloadPolicy )
+	{
+		this( factory, maxThreads, new LinkedBlockingDeque<>( Math.max( 1, queueCapacity ) ), overloadPolicy );
+	}
+
+	private DispatchExecutor( ThreadFactory factory, int maxThreads, BlockingDeque< Runnable > queue, OverloadPolicy overloadPolicy )
+	{
+		super( maxThreads, maxThreads, 60L, TimeUnit.SECONDS, queue, factory, new OverloadHandler( overloadPolicy ) );
+		allowCoreThreadTimeOut( true );
+		this.queue = queue;
+		this.overloadPolicy = overloadPolicy;
+	}
+
+	private static class OverloadHandler implements RejectedExecutionHandler
+	{
+		private final OverloadPolicy policy;
+
+		private OverloadHandler( OverloadPolicy policy )
+		{
+			this.policy = policy;
+		}
+
+		@Override
+		public void rejectedExecution( Runnable r, ThreadPoolExecutor executor )
+		{
+			final DispatchExecutor dispatcher = (DispatchExecutor)executor;
+			if ( dispatcher.isShutdown() ) {
+				throw new RejectedExecutionException( "The communication core is shutting down" );
+			}
+			switch( policy ) {
+			case SHED:
+				dispatcher.shed( r );
+				break;
+			case BLOCK:
+				dispatcher.block( r );
+				break;
+			default:
+				dispatcher.reject( r );
+				break;
+			}
+		}
+	}
+
+	private void reject( Runnable r )
+	{
+		if ( r instanceof Task ) {
+			rejected.incrementAndGet();
+			((Task)r).reject();
+		} else {
+			throw new RejectedExecutionException();
+		}
+	}
+
+	private void shed( Runnable r )
+	{
+		Runnable oldest;
+		while( queue.offer( r ) == false ) {
+			if ( (oldest = pollOldestTask()) != null ) {
+				shed.incrementAndGet();
+				reject( oldest );
+			} else {
+				// Only tasks can be refused: leave the accepted jobs alone
+				reject( r );
+				return;
+			}
+		}
+		ensureWorker();
+	}
+
+	/*
+	 * Removes the oldest waiting task that can be refused, if any.
+	 */
+	private Runnable pollOldestTask()
+	{
+		for( Runnable waiting : queue ) {
+			if ( waiting instanceof Task && queue.removeFirstOccurrence( waiting ) ) {
+				return waiting;
+			}
+		}
+		return null;
+	}
+
+	private void block( Runnable r )
+	{
+		blocked.incrementAndGet();
+		try {
+			while( queue.offer( r, BLOCK_CHECK_INTERVAL, TimeUnit.MILLISECONDS ) == false ) {
+				if ( isShutdown() ) {
+					throw new RejectedExecutionException( "The communication core is shutting down" );
+				}
+			}
+		} catch( InterruptedException e ) {
+			throw new RejectedExecutionException( e );
+		}
+		ensureWorker();
+	}
+
+	/*
+	 * Tasks put directly in the queue do not start threads by themselves.
+	 */
+	private void ensureWorker()
+	{
+		if ( getPoolSize() == 0 ) {
+			prestartCoreThread();
+		}
+	}
+
+	/**
+	 * Returns the overload policy of this executor.
+	 * @return the overload policy of this executor
+	 */
+	public OverloadPolicy overloadPolicy()
+	{
+		return overloadPolicy;
+	}
+
+	/**
+	 * Returns the number of messages waiting to be handled.
+	 * @return the number of messages waiting to be handled
+	 */
+	public int queueDepth()
+	{
+		return queue.size();
+	}
+
+	/**
+	 * Returns the number of messages that have been refused because the queue was full.
+	 * This includes the messages shed from the queue.
+	 * @return the number of refused messages
+	 */
+	public long rejectedCount()
+	{
+		return rejected.get();
+	}
+
+	/**
+	 * Returns the number of waiting messages that have been dropped from the queue
+	 * to make room for newer ones.
+	 * @return the number of shed messages
+	 */
+	public long shedCount()
+	{
+		return shed.get();
+	}
+
+	/**
+	 * Returns the number of times a thread scheduling a message had to wait for
+	 * some space in the queue.
+	 * @return the number of times a thread scheduling a message had to wait
+	 */
+	public long blockedCount()
+	{
+		return blocked.get();
+	}
+}
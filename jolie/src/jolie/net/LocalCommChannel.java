@@ -22,10 +22,14 @@
 package jolie.net;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import jolie.Interpreter;
 
 /**
@@ -65,6 +69,7 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 				throw new IOException( "Unexpected response message with id " + message.id() + " for operation " + message.operationName() + " in local channel" );
 			}
 			f.complete( message );
+			senderChannel.notifyReady();
 		}
 
 		@Override
@@ -87,6 +92,7 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 	private final Interpreter interpreter;
 	private final CommListener listener;
 	private final Map< Long, CompletableFuture< CommMessage > > responseWaiters = new ConcurrentHashMap<>();
+	private final AtomicReference< Runnable > readyListener = new AtomicReference<>();
 	
 	public LocalCommChannel( Interpreter interpreter, CommListener listener )
 	{
@@ -126,8 +132,14 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 		final CompletableFuture< CommMessage > f = responseWaiters.get( request.id() );
 		final CommMessage m;
 		
-		try { 
-			m = f.get();
+		try {
+			if ( request.deadline() > 0 ) {
+				m = f.get( request.deadline() - System.currentTimeMillis(), TimeUnit.MILLISECONDS );
+			} else {
+				m = f.get();
+			}
+		} catch( TimeoutException e ) {
+			throw new SocketTimeoutException( "No response received for operation " + request.operationName() + " before its deadline" );
 		} catch( ExecutionException | InterruptedException e ) {
 			throw new IOException( e );
 		} finally {
@@ -137,10 +149,29 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 		return m;
 	}
 	
+	/**
+	 * Returns <code>true</code> if a response has been received.
+	 * @return <code>true</code> if a response has been received
+	 */
 	@Override
 	public boolean isReady()
 	{
-		return responseWaiters.isEmpty() == false;
+		return responseWaiters.values().stream().anyMatch( CompletableFuture::isDone );
+	}
+
+	@Override
+	public boolean setReadyListener( Runnable listener )
+	{
+		readyListener.set( listener );
+		return true;
+	}
+
+	private void notifyReady()
+	{
+		final Runnable listener = readyListener.getAndSet( null );
+		if ( listener != null ) {
+			listener.run();
+		}
 	}
 	
 	@Override
@@ -0,0 +1,216 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import jolie.runtime.ByteArray;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Identifies the requests that ask the same question: two keys are equal
+ * when their messages have the same operation name, resource path and value,
+ * and they are sent to the same location with the same protocol (if any).
+ * Values are compared structurally, i.e., by comparing their contents and
+ * the contents of their children. The order of children with different names
+ * is not significant, and empty vectors of children are the same as missing ones.
+ *
+ * The hash of the value is computed once, when the key is created.
+ * The value of the message must not be changed while the key is in use.
+ */
+public final class MessageKey
+{
+	private final URI location;
+	private final String protocolId;
+	private final String operationName;
+	private final String resourcePath;
+	private final Value value;
+	private final int hash;
+
+	/**
+	 * Creates the key of a message.
+	 * @param message the message to create the key of
+	 */
+	public MessageKey( CommMessage message )
+	{
+		this( null, null, message );
+	}
+
+	/**
+	 * Creates the key of a message sent to a location with a protocol.
+	 * @param location the location the message is sent to
+	 * @param protocolId the identifier of the protocol the message is sent with
+	 * @param message the message to create the key of
+	 */
+	public MessageKey( URI location, String protocolId, CommMessage message )
+	{
+		this( location, protocolId, message.operationName(), message.resourcePath(), message.value() );
+	}
+
+	/**
+	 * Creates the key of a message with the specified contents.
+	 * @param operationName the operation name of the message
+	 * @param resourcePath the resource path of the message
+	 * @param value the value of the message
+	 */
+	public MessageKey( String operationName, String resourcePath, Value value )
+	{
+		this( null, null, operationName, resourcePath, value );
+	}
+
+	private MessageKey( URI location, String protocolId, String operationName, String resourcePath, Value value )
+	{
+		this.location = location;
+		this.protocolId = protocolId;
+		this.operationName = operationName;
+		this.resourcePath = resourcePath;
+		this.value = value;
+		this.hash = 31 * ( 31 * ( 31 * Objects.hash( location, protocolId ) + operationName.hashCode() ) + resourcePath.hashCode() ) + valueHashCode( value );
+	}
+
+	/**
+	 * Returns the operation name of the message of this key.
+	 * @return the operation name of the message of this key
+	 */
+	public String operationName()
+	{
+		return operationName;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return hash;
+	}
+
+	@Override
+	public boolean equals( Object obj )
+	{
+		if ( this == obj ) {
+			return true;
+		}
+		if ( !(obj instanceof MessageKey) ) {
+			return false;
+		}
+		final MessageKey other = (MessageKey) obj;
+		return hash == other.hash
+			&& Objects.equals( location, other.location )
+			&& Objects.equals( protocolId, other.protocolId )
+			&& operationName.equals( other.operationName )
+			&& resourcePath.equals( other.resourcePath )
+			&& valueEquals( value, other.value );
+	}
+
+	/**
+	 * Returns a hash code for a value, computed from its contents and the ones of its children.
+	 * Values that are {@link #valueEquals(jolie.runtime.Value, jolie.runtime.Value) equal} have the same hash code.
+	 * @param value the value to compute the hash code of
+	 * @return the hash code of the value
+	 */
+	public static int valueHashCode( Value value )
+	{
+		int h = contentHashCode( value.valueObject() );
+		if ( value.hasChildren() ) {
+			for( Map.Entry< String, ValueVector > entry : value.children().entrySet() ) {
+				if ( entry.getValue().size() > 0 ) {
+					int childrenHash = entry.getKey().hashCode();
+					for( Value child : entry.getValue() ) {
+						childrenHash = 31 * childrenHash + valueHashCode( child );
+					}
+					// Children are kept in a hash map: their order must not matter
+					h += childrenHash;
+				}
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Compares two values structurally.
+	 * @param a the first value
+	 * @param b the second value
+	 * @return <code>true</code> if the values have the same contents and their children are equal
+	 */
+	public static boolean valueEquals( Value a, Value b )
+	{
+		if ( a == b ) {
+			return true;
+		}
+		if ( !contentEquals( a.valueObject(), b.valueObject() ) ) {
+			return false;
+		}
+		final Map< String, ValueVector > aChildren = a.hasChildren() ? a.children() : null;
+		final Map< String, ValueVector > bChildren = b.hasChildren() ? b.children() : null;
+		if ( countVectors( aChildren ) != countVectors( bChildren ) ) {
+			return false;
+		}
+		if ( aChildren != null ) {
+			for( Map.Entry< String, ValueVector > entry : aChildren.entrySet() ) {
+				final ValueVector aVector = entry.getValue();
+				if ( aVector.size() > 0 ) {
+					final ValueVector bVector = bChildren.get( entry.getKey() );
+					if ( bVector == null || bVector.size() != aVector.size() ) {
+						return false;
+					}
+					for( int i = 0; i < aVector.size(); i++ ) {
+						if ( !valueEquals( aVector.get( i ), bVector.get( i ) ) ) {
+							return false;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	private static int countVectors( Map< String, ValueVector > children )
+	{
+		int n = 0;
+		if ( children != null ) {
+			for( ValueVector vector : children.values() ) {
+				if ( vector.size() > 0 ) {
+					n++;
+				}
+			}
+		}
+		return n;
+	}
+
+	private static int contentHashCode( Object content )
+	{
+		if ( content instanceof ByteArray ) {
+			return Arrays.hashCode( ((ByteArray) content).getBytes() );
+		}
+		return Objects.hashCode( content );
+	}
+
+	private static boolean contentEquals( Object a, Object b )
+	{
+		if ( a instanceof ByteArray && b instanceof ByteArray ) {
+			return ((ByteArray) a).equals( (ByteArray) b );
+		}
+		return Objects.equals( a, b );
+	}
+}
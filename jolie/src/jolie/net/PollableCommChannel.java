@@ -26,6 +26,9 @@ import java.io.IOException;
 /**
  * This interface is to be implemented by communication channels that are
  * to be polled by <code>CommCore</code>.
+ * Channels that can tell when they become ready should rather support
+ * {@link #setReadyListener(Runnable) setReadyListener}, so that they
+ * do not need to be polled at all.
  * @author Fabrizio Montesi
  * @see CommCore
  * @see CommChannel
@@ -39,4 +42,16 @@ public interface PollableCommChannel
 	 */
 	public boolean isReady()
 		throws IOException;
+
+	/**
+	 * Makes this channel run <code>listener</code> as soon as it becomes ready
+	 * for receiving an input message. The listener is run at most once.
+	 * @param listener the action to run when this channel becomes ready
+	 * @return <code>true</code> if this channel supports ready listeners,
+	 * <code>false</code> if it has to be polled
+	 */
+	public default boolean setReadyListener( Runnable listener )
+	{
+		return false;
+	}
 }
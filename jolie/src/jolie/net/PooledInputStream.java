@@ -0,0 +1,264 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+
+package jolie.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An InputStream reading from a socket channel through buffers taken from a
+ * {@link BufferPool}. A buffer is held only while it contains unread bytes,
+ * so that idle channels do not keep any.
+ *
+ * Reads block, and hence require the channel to be in blocking mode.
+ * Unlike the streams of {@link java.nio.channels.Channels}, they do not hold
+ * the blocking lock of the channel while blocked, so that a thread waiting
+ * for input does not stop other threads from writing. For the same reason
+ * the state of the stream is guarded by an explicit lock, which is not held
+ * while reading from the channel: a thread waiting for input does not keep
+ * the other threads of the stream in a monitor (which would also pin the
+ * carrier of a virtual thread).
+ * Bytes already received by other means can be put back in front of the
+ * stream with {@link #append(java.nio.ByteBuffer)}.
+ */
+class PooledInputStream extends InputStream
+{
+	private static final int READ_SIZE = 8192;
+
+	private final SocketChannel channel;
+	private final BufferPool pool;
+	// Unread bytes are between position and limit; null if there are none
+	private ByteBuffer buffer = null;
+	private final Lock lock = new ReentrantLock();
+	// Signalled when a thread stops reading from the channel into buffer
+	private final Condition readDone = lock.newCondition();
+	// True while a thread reads from the channel into buffer, without holding lock
+	private boolean reading = false;
+
+	PooledInputStream( SocketChannel channel, BufferPool pool )
+	{
+		this.channel = channel;
+		this.pool = pool;
+	}
+
+	private void releaseIfEmpty()
+	{
+		if ( buffer != null && !buffer.hasRemaining() ) {
+			pool.release( buffer );
+			buffer = null;
+		}
+	}
+
+	/*
+	 * Makes room for at least toBeWritten more bytes after the unread ones,
+	 * leaving buffer ready for writing.
+	 */
+	private void ensureWritable( int toBeWritten )
+	{
+		if ( buffer == null ) {
+			buffer = pool.acquire( Math.max( READ_SIZE, toBeWritten ), this );
+		} else if ( buffer.capacity() - buffer.remaining() < toBeWritten ) {
+			final ByteBuffer b = pool.acquire( buffer.remaining() + toBeWritten, this );
+			b.put( buffer );
+			pool.release( buffer );
+			buffer = b;
+		} else {
+			buffer.compact();
+		}
+	}
+
+	private void awaitReading()
+	{
+		while( reading ) {
+			readDone.awaitUninterruptibly();
+		}
+	}
+
+	/*
+	 * Reads from the channel into buffer, which is left ready for reading.
+	 * Called holding lock, which is released while reading: the other
+	 * threads using buffer wait for us with awaitReading().
+	 */
+	private int readChannel()
+		throws IOException
+	{
+		final ByteBuffer b = buffer;
+		final int read;
+		reading = true;
+		lock.unlock();
+		try {
+			read = channel.read( b );
+		} finally {
+			lock.lock();
+			reading = false;
+			readDone.signalAll();
+			buffer.flip();
+			releaseIfEmpty();
+		}
+		return read;
+	}
+
+	// Returns false at the end of the stream
+	private boolean fill()
+		throws IOException
+	{
+		while( buffer == null ) {
+			ensureWritable( 1 );
+			final int read = readChannel();
+			if ( read == -1 ) {
+				return false;
+			} else if ( read == 0 ) {
+				// Only non-blocking channels return without reading anything
+				throw new IllegalBlockingModeException();
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int read()
+		throws IOException
+	{
+		lock.lock();
+		try {
+			awaitReading();
+			if ( !fill() ) {
+				return -1;
+			}
+			final int b = buffer.get() & 0xff;
+			releaseIfEmpty();
+			return b;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int read( byte[] b, int off, int len )
+		throws IOException
+	{
+		if ( len == 0 ) {
+			return 0;
+		}
+		lock.lock();
+		try {
+			awaitReading();
+			if ( !fill() ) {
+				return -1;
+			}
+			final int n = Math.min( len, buffer.remaining() );
+			buffer.get( b, off, n );
+			releaseIfEmpty();
+			return n;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int available()
+	{
+		lock.lock();
+		try {
+			// While another thread is reading, buffer is not ready for reading
+			return ( buffer == null || reading ) ? 0 : buffer.remaining();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Reads the bytes that can be received without blocking, if there is
+	 * room for them. The channel must be in non-blocking mode.
+	 * @return the number of bytes read, or -1 if the channel has reached end-of-stream
+	 * @throws IOException if reading from the channel fails
+	 */
+	int readAvailable()
+		throws IOException
+	{
+		lock.lock();
+		try {
+			awaitReading();
+			if ( buffer != null && buffer.remaining() >= BufferPool.MAX_BUFFER_SIZE ) {
+				return 0;
+			}
+			ensureWritable( 1 );
+			return readChannel();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Appends the remaining bytes of <code>b</code> to the unread bytes of this stream.
+	 * @param b the bytes to append
+	 */
+	void append( ByteBuffer b )
+	{
+		if ( b.hasRemaining() ) {
+			lock.lock();
+			try {
+				awaitReading();
+				ensureWritable( b.remaining() );
+				buffer.put( b );
+				buffer.flip();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Gives back the buffer of this stream to its pool, discarding any
+	 * unread bytes. The channel should have been closed already, so that
+	 * a read blocked on it returns and stops using the buffer.
+	 */
+	void release()
+	{
+		lock.lock();
+		try {
+			awaitReading();
+			if ( buffer != null ) {
+				pool.release( buffer );
+				buffer = null;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close()
+		throws IOException
+	{
+		channel.close();
+		release();
+	}
+}
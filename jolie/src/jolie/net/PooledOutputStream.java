@@ -0,0 +1,240 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+
+package jolie.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An OutputStream writing to a socket channel through buffers taken from a
+ * {@link BufferPool}. Buffers are held only until the stream is flushed,
+ * so that idle channels do not keep any.
+ *
+ * Bytes are accumulated in up to {@link #MAX_BUFFERS} buffers, which are
+ * then written with a single gathering write. This lets channels write the
+ * bytes of many messages at once, by flushing only after the last one.
+ *
+ * Writes block, and hence require the channel to be in blocking mode.
+ * Neither the blocking lock of the channel nor the lock of this stream is
+ * held while writing, as for {@link PooledInputStream}.
+ */
+class PooledOutputStream extends OutputStream
+{
+	private static final int WRITE_SIZE = 8192;
+	private static final int MAX_BUFFERS = 16;
+
+	private final SocketChannel channel;
+	private final BufferPool pool;
+	// The last buffer is the one being filled; empty if there is nothing to write
+	private final List< ByteBuffer > buffers = new ArrayList<>( MAX_BUFFERS );
+	private final Lock lock = new ReentrantLock();
+	// Signalled when a thread stops writing the buffers to the channel
+	private final Condition writeDone = lock.newCondition();
+	// True while a thread writes the buffers to the channel, without holding lock
+	private boolean writing = false;
+
+	PooledOutputStream( SocketChannel channel, BufferPool pool )
+	{
+		this.channel = channel;
+		this.pool = pool;
+	}
+
+	/*
+	 * Returns a buffer with room for at least one byte, writing the
+	 * accumulated bytes if no more buffers can be used.
+	 */
+	private ByteBuffer writableBuffer()
+		throws IOException
+	{
+		if ( buffers.isEmpty() ) {
+			buffers.add( pool.acquire( WRITE_SIZE, this ) );
+		} else if ( !buffers.get( buffers.size() - 1 ).hasRemaining() ) {
+			if ( buffers.size() < MAX_BUFFERS ) {
+				buffers.add( pool.acquire( WRITE_SIZE, this ) );
+			} else {
+				drain();
+			}
+		}
+		return buffers.get( buffers.size() - 1 );
+	}
+
+	private void awaitWriting()
+	{
+		while( writing ) {
+			writeDone.awaitUninterruptibly();
+		}
+	}
+
+	/*
+	 * Writes all the accumulated bytes, keeping only the first buffer.
+	 * Called holding lock, which is released while writing: the other
+	 * threads using the buffers wait for us with awaitWriting().
+	 */
+	private void drain()
+		throws IOException
+	{
+		final ByteBuffer[] array = buffers.toArray( new ByteBuffer[ buffers.size() ] );
+		long remaining = 0;
+		for( ByteBuffer b : array ) {
+			b.flip();
+			remaining += b.remaining();
+		}
+		boolean completed = false;
+		writing = true;
+		lock.unlock();
+		try {
+			while( remaining > 0 ) {
+				final long written = channel.write( array );
+				if ( written == 0 ) {
+					// Only non-blocking channels return without writing anything
+					throw new IllegalBlockingModeException();
+				}
+				remaining -= written;
+			}
+			completed = true;
+		} finally {
+			lock.lock();
+			writing = false;
+			writeDone.signalAll();
+			if ( !completed ) {
+				releaseBuffers();
+			}
+		}
+		for( int i = buffers.size() - 1; i > 0; i-- ) {
+			pool.release( buffers.remove( i ) );
+		}
+		buffers.get( 0 ).clear();
+	}
+
+	@Override
+	public void write( int b )
+		throws IOException
+	{
+		lock.lock();
+		try {
+			awaitWriting();
+			writableBuffer().put( (byte) b );
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void write( byte[] b, int off, int len )
+		throws IOException
+	{
+		lock.lock();
+		try {
+			awaitWriting();
+			while( len > 0 ) {
+				final ByteBuffer buffer = writableBuffer();
+				final int n = Math.min( len, buffer.remaining() );
+				buffer.put( b, off, n );
+				off += n;
+				len -= n;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if there are bytes waiting to be written.
+	 * @return <code>true</code> if there are bytes waiting to be written
+	 */
+	boolean hasPendingBytes()
+	{
+		lock.lock();
+		try {
+			awaitWriting();
+			return pendingBytes();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean pendingBytes()
+	{
+		return !buffers.isEmpty() && ( buffers.size() > 1 || buffers.get( 0 ).position() > 0 );
+	}
+
+	@Override
+	public void flush()
+		throws IOException
+	{
+		lock.lock();
+		try {
+			awaitWriting();
+			if ( pendingBytes() ) {
+				drain();
+			}
+			releaseBuffers();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gives back the buffers of this stream to its pool, discarding any
+	 * unwritten bytes. The channel should have been closed already, so that
+	 * a write blocked on it returns and stops using the buffers.
+	 */
+	void release()
+	{
+		lock.lock();
+		try {
+			awaitWriting();
+			releaseBuffers();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void releaseBuffers()
+	{
+		for( ByteBuffer buffer : buffers ) {
+			pool.release( buffer );
+		}
+		buffers.clear();
+	}
+
+	@Override
+	public void close()
+		throws IOException
+	{
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
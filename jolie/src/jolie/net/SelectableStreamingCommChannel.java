@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.channels.SelectableChannel;
+import java.util.concurrent.atomic.AtomicInteger;
 import jolie.Interpreter;
 import jolie.net.protocols.CommProtocol;
 import jolie.util.Helpers;
@@ -42,6 +43,11 @@ public abstract class SelectableStreamingCommChannel extends StreamingCommChanne
 	
 	private final long creationTime = System.currentTimeMillis();
 	private int selectorIndex;
+	private CommCore selectingCommCore = null;
+	// Guarded by lock
+	private int pendingResponses = 0;
+	private boolean pipelined = false;
+	private final AtomicInteger waitingSenders = new AtomicInteger( 0 );
 	
 	public int selectorIndex()
 	{
@@ -52,12 +58,41 @@ public abstract class SelectableStreamingCommChannel extends StreamingCommChanne
 	{
 		this.selectorIndex = selectorIndex;
 	}
+
+	/**
+	 * Returns the CommCore that registered this channel for selection,
+	 * which receives the messages found by the selector threads.
+	 * @return the CommCore that registered this channel for selection
+	 */
+	CommCore selectingCommCore()
+	{
+		return selectingCommCore;
+	}
+
+	void setSelectingCommCore( CommCore commCore )
+	{
+		this.selectingCommCore = commCore;
+	}
 	
 	public SelectableStreamingCommChannel( URI location, CommProtocol protocol )
 	{
 		super( location, protocol );
 	}
 
+	/*
+	 * Called by CommCore, holding lock, for every request received on this
+	 * channel. Every request gets exactly one message sent back.
+	 * A client that sends a request before having received the response to
+	 * the previous one is multiplexing requests over this channel: closing it
+	 * when a response is sent would drop the other pending requests.
+	 */
+	void requestReceived()
+	{
+		if ( pendingResponses++ > 0 ) {
+			pipelined = true;
+		}
+	}
+
 	/**
 	 * Returns the receiving <code>InputStream</code> of this channel.
 	 * @return the receiving <code>InputStream</code> of this channel
@@ -70,20 +105,102 @@ public abstract class SelectableStreamingCommChannel extends StreamingCommChanne
 	 */
 	abstract public SelectableChannel selectableChannel();
 
+	/**
+	 * Returns <code>true</code> if this channel assembles the messages it
+	 * receives while it is being selected, i.e., without blocking.
+	 * @return <code>true</code> if this channel assembles messages while being selected
+	 * @see jolie.net.protocols.CommProtocol#frameDecoder()
+	 */
+	protected boolean decodesFrames()
+	{
+		return false;
+	}
+
+	/**
+	 * Reads the bytes available on this channel without blocking, and keeps
+	 * the frames of the messages they complete. Called by CommCore, holding
+	 * lock, when this channel is selected for reading.
+	 * @return <code>false</code> if the end of the stream has been reached
+	 * @throws IOException if the received bytes could not be read or decoded
+	 */
+	protected boolean readFrames()
+		throws IOException
+	{
+		return true;
+	}
+
+	/**
+	 * Returns <code>true</code> if a complete message is waiting to be received.
+	 * @return <code>true</code> if a complete message is waiting to be received
+	 */
+	protected boolean hasFrames()
+	{
+		return false;
+	}
+
+	/**
+	 * Returns the number of threads waiting to send a message on this channel
+	 * after the one sending now. Implementations may leave the bytes of a
+	 * message in their buffers when this number is positive, since the next
+	 * sender is going to write them.
+	 * @return the number of threads waiting to send a message on this channel
+	 */
+	protected int waitingSenders()
+	{
+		return waitingSenders.get();
+	}
+
 	@Override
 	public final void send( CommMessage message )
 		throws IOException
 	{
-		Helpers.lockAndThen( lock, () -> _send( message ) );
+		waitingSenders.incrementAndGet();
+		Helpers.lockAndThen( lock, () -> {
+			waitingSenders.decrementAndGet();
+			_send( message );
+		} );
 	}
 
+	/**
+	 * Writes the bytes left in the buffers of this channel by previous sends.
+	 * Unlike {@link #send(jolie.net.CommMessage) send}, this method can be
+	 * called by threads that do not belong to the interpreter.
+	 * @param commCore the CommCore this channel is registered with
+	 * @throws IOException if writing fails
+	 */
+	protected final void flushOutput( CommCore commCore )
+		throws IOException
+	{
+		Helpers.lockAndThen( lock, () -> {
+			if ( commCore.isSelecting( this ) ) {
+				commCore.unregisterForSelection( this );
+				flushImpl();
+				commCore.registerForSelection( this );
+			} else {
+				flushImpl();
+			}
+		} );
+	}
+
+	/**
+	 * Writes the bytes left in the buffers of this channel by previous sends.
+	 * Called holding lock, with the channel in blocking mode.
+	 * @throws IOException if writing fails
+	 */
+	protected void flushImpl()
+		throws IOException
+	{}
+
 	private void _send( CommMessage message )
 		throws IOException
 	{
 		final CommCore commCore = Interpreter.getInstance().commCore();
+		if ( pendingResponses > 0 ) {
+			pendingResponses--;
+		}
 		if ( commCore.isSelecting( this ) ) {
 			commCore.unregisterForSelection( this );
-			if ( System.currentTimeMillis() - creationTime > LIFETIME ) {
+			if ( pipelined == false && System.currentTimeMillis() - creationTime > LIFETIME ) {
 				setToBeClosed( true );
 			}
 			sendImpl( message );
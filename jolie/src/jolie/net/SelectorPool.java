@@ -0,0 +1,124 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The selector threads waiting for input on the channels of one or more
+ * {@link CommCore} instances, for example those of the interpreters sharing
+ * a {@link jolie.SharedRuntime}.
+ * Shutting down a CommCore closes only the channels it registered; the
+ * threads keep running until the pool is shut down.
+ */
+public class SelectorPool
+{
+	private final SelectorThread[] threads;
+	private final AtomicInteger nextSelector = new AtomicInteger( 0 );
+	private volatile boolean running = false;
+	private boolean started = false;
+
+	/**
+	 * Creates a pool of selector threads.
+	 * @param group the thread group of the selector threads
+	 * @param size the number of selector threads
+	 * @throws IOException if a selector cannot be opened
+	 */
+	public SelectorPool( ThreadGroup group, int size )
+		throws IOException
+	{
+		threads = new SelectorThread[ size ];
+		for( int i = 0; i < size; i++ ) {
+			threads[ i ] = new SelectorThread( this, i, group, group.getName() + "-SelectorThread-" + i );
+		}
+	}
+
+	/**
+	 * Starts the selector threads, if they have not been started yet.
+	 */
+	public synchronized void start()
+	{
+		if ( !started ) {
+			started = true;
+			running = true;
+			for( SelectorThread t : threads ) {
+				t.start();
+			}
+		}
+	}
+
+	/**
+	 * Stops the selector threads, closing all the channels that are still
+	 * registered.
+	 */
+	public synchronized void shutdown()
+	{
+		if ( running ) {
+			running = false;
+			for( SelectorThread t : threads ) {
+				t.wakeup();
+				try {
+					t.join();
+				} catch( InterruptedException e ) {}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of selector threads in this pool.
+	 * @return the number of selector threads in this pool
+	 */
+	public int size()
+	{
+		return threads.length;
+	}
+
+	boolean isRunning()
+	{
+		return running;
+	}
+
+	void register( SelectableStreamingCommChannel channel, CommCore commCore, int selectorIndex )
+	{
+		threads[ selectorIndex % threads.length ].register( channel, commCore );
+	}
+
+	void register( SelectableStreamingCommChannel channel, CommCore commCore )
+	{
+		register( channel, commCore, nextSelector.getAndIncrement() & Integer.MAX_VALUE );
+	}
+
+	void unregister( SelectableStreamingCommChannel channel )
+		throws IOException
+	{
+		threads[ channel.selectorIndex() ].unregister( channel );
+	}
+
+	void closeChannels( CommCore commCore )
+	{
+		for( SelectorThread t : threads ) {
+			t.closeChannels( commCore );
+		}
+	}
+}
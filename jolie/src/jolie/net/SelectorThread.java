@@ -0,0 +1,320 @@
+/***************************************************************************
+ *   Copyright (C) 2006-2009 by Fabrizio Montesi <famontesi@gmail.com>     *
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jolie.Interpreter;
+import jolie.InterpreterThread;
+
+/**
+ * A thread of a {@link SelectorPool}, waiting for input on the channels of
+ * all the {@link CommCore} instances using the pool.
+ * Each channel records the CommCore that registered it, which receives its
+ * messages. While working on a channel, this thread refers to the
+ * interpreter of that CommCore.
+ */
+class SelectorThread extends Thread implements InterpreterThread
+{
+	// We use a custom class for debugging purposes (the profiler gives us the class name)
+	private class SelectorMutex extends Object {}
+
+	private final SelectorPool pool;
+	private final int index;
+	private final Selector selector;
+	private final SelectorMutex selectingMutex = new SelectorMutex();
+	private final Deque< Runnable > selectorTasks = new ArrayDeque<>();
+	private volatile Interpreter interpreter = null;
+
+	SelectorThread( SelectorPool pool, int index, ThreadGroup group, String name )
+		throws IOException
+	{
+		super( group, name );
+		this.pool = pool;
+		this.index = index;
+		this.selector = Selector.open();
+		setDaemon( true );
+	}
+
+	@Override
+	public Interpreter interpreter()
+	{
+		return interpreter;
+	}
+
+	private CommCore enter( SelectableStreamingCommChannel channel )
+	{
+		final CommCore commCore = channel.selectingCommCore();
+		interpreter = commCore.interpreter();
+		return commCore;
+	}
+
+	private static void logWarning( CommCore commCore, Throwable t )
+	{
+		commCore.interpreter().logWarning( t );
+	}
+
+	private static boolean isSelecting( SelectableStreamingCommChannel channel )
+	{
+		final SelectableChannel c = channel.selectableChannel();
+		return c != null && c.isRegistered();
+	}
+
+	/*
+	 * Passes a channel with input to its CommCore, or closes it if the
+	 * CommCore has been shut down in the meantime.
+	 */
+	private static void scheduleReceive( CommCore commCore, SelectableStreamingCommChannel channel )
+		throws IOException
+	{
+		if ( commCore.isActive() ) {
+			commCore.scheduleReceive( channel, channel.parentInputPort() );
+		} else {
+			channel.closeImpl();
+		}
+	}
+
+	private Deque< Runnable > runKeys( SelectionKey[] selectedKeys )
+		throws IOException
+	{
+		boolean keepRun;
+		synchronized( this ) {
+			do {
+				for( final SelectionKey key : selectedKeys ) {
+					if ( key.isValid() ) {
+						final SelectableStreamingCommChannel channel = (SelectableStreamingCommChannel)key.attachment();
+						if ( channel.lock.tryLock() ) {
+							final CommCore commCore = enter( channel );
+							if ( channel.decodesFrames() ) {
+								decodeFrames( key, channel, commCore );
+								continue;
+							}
+							key.cancel();
+							selectorTasks.add( () -> {
+								try {
+									try {
+										try {
+											key.channel().configureBlocking( true );
+											if ( channel.isOpen() ) {
+												scheduleReceive( commCore, channel );
+											} else {
+												channel.closeImpl();
+											}
+										} catch( ClosedChannelException e ) {
+											channel.closeImpl();
+										}
+									} catch( IOException e ) {
+										throw e;
+									} finally {
+										channel.lock.unlock();
+									}
+								} catch( IOException e ) {
+									if ( channel.lock.isHeldByCurrentThread() ) {
+										channel.lock.unlock();
+									}
+									logWarning( commCore, e );
+								}
+							} );
+						}
+					}
+				}
+				synchronized( selectingMutex ) {
+					if ( selector.selectNow() > 0 ) { // Clean up the cancelled keys
+						// If some new channels are selected, run again
+						selectedKeys = selector.selectedKeys().toArray( new SelectionKey[0] );
+						keepRun = true;
+					} else {
+						keepRun = false;
+					}
+				}
+			} while( keepRun );
+		}
+		return selectorTasks;
+	}
+
+	/*
+	 * Called holding the lock of channel, which is left selected until
+	 * it has received a complete message (or it gets closed).
+	 */
+	private void decodeFrames( final SelectionKey key, final SelectableStreamingCommChannel channel, final CommCore commCore )
+	{
+		boolean isOpen;
+		try {
+			isOpen = channel.readFrames();
+		} catch( IOException e ) {
+			logWarning( commCore, e );
+			isOpen = false;
+		}
+
+		final boolean hasFrames = channel.hasFrames();
+		if ( hasFrames || !isOpen ) {
+			key.cancel();
+			selectorTasks.add( () -> {
+				try {
+					try {
+						if ( hasFrames ) {
+							key.channel().configureBlocking( true );
+							scheduleReceive( commCore, channel );
+						} else {
+							channel.closeImpl();
+						}
+					} catch( ClosedChannelException e ) {
+						channel.closeImpl();
+					} finally {
+						channel.lock.unlock();
+					}
+				} catch( IOException e ) {
+					logWarning( commCore, e );
+				}
+			} );
+		} else {
+			// The channel stays registered: let it be selected again when more bytes arrive
+			selector.selectedKeys().remove( key );
+			channel.lock.unlock();
+		}
+	}
+
+	private void runTasks( Deque< Runnable > tasks )
+	{
+		Runnable r;
+		while( (r = tasks.poll()) != null ) {
+			try {
+				r.run();
+			} catch( RuntimeException e ) {
+				// For example, the executor of an exiting interpreter rejected the receive
+				Logger.getLogger( "Jolie" ).log( Level.WARNING, null, e );
+			}
+		}
+	}
+
+	@Override
+	public void run()
+	{
+		while( pool.isRunning() ) {
+			try {
+				SelectionKey[] selectedKeys;
+				synchronized( selectingMutex ) {
+					selector.select();
+					selectedKeys = selector.selectedKeys().toArray( new SelectionKey[0] );
+				}
+				final Deque< Runnable > tasks = runKeys( selectedKeys );
+				runTasks( tasks );
+			} catch( IOException e ) {
+				Logger.getLogger( "Jolie" ).log( Level.SEVERE, null, e );
+			} finally {
+				interpreter = null;
+			}
+		}
+
+		closeChannels( null );
+		try {
+			selector.close();
+		} catch( IOException e ) {
+			Logger.getLogger( "Jolie" ).log( Level.WARNING, null, e );
+		}
+	}
+
+	void wakeup()
+	{
+		selector.wakeup();
+	}
+
+	/**
+	 * Closes the channels registered by a CommCore, or all of them if
+	 * commCore is <code>null</code>.
+	 */
+	void closeChannels( CommCore commCore )
+	{
+		synchronized( this ) {
+			selector.wakeup();
+			synchronized( selectingMutex ) {
+				for( SelectionKey key : selector.keys() ) {
+					final SelectableStreamingCommChannel channel = (SelectableStreamingCommChannel)key.attachment();
+					final CommCore owner = channel.selectingCommCore();
+					if ( commCore == null || owner == commCore ) {
+						key.cancel();
+						try {
+							channel.closeImpl();
+						} catch( IOException e ) {
+							logWarning( owner, e );
+						}
+					}
+				}
+			}
+		}
+	}
+
+	void register( SelectableStreamingCommChannel channel, CommCore commCore )
+	{
+		try {
+			if ( channel.hasFrames() || channel.inputStream().available() > 0 ) {
+				commCore.scheduleReceive( channel, channel.parentInputPort() );
+				return;
+			}
+
+			synchronized( this ) {
+				if ( !isSelecting( channel ) ) {
+					selector.wakeup();
+					SelectableChannel c = channel.selectableChannel();
+					c.configureBlocking( false );
+					synchronized( selectingMutex ) {
+						channel.setSelectingCommCore( commCore );
+						c.register( selector, SelectionKey.OP_READ, channel );
+						selector.wakeup();
+						channel.setSelectorIndex( index );
+					}
+				}
+			}
+		} catch( ClosedChannelException e ) {
+			commCore.interpreter().logWarning( e );
+		} catch( IOException e ) {
+			commCore.interpreter().logSevere( e );
+		}
+	}
+
+	void unregister( SelectableStreamingCommChannel channel )
+		throws IOException
+	{
+		synchronized( this ) {
+			if ( isSelecting( channel ) ) {
+				selector.wakeup();
+				synchronized( selectingMutex ) {
+					SelectionKey key = channel.selectableChannel().keyFor( selector );
+					if ( key != null ) {
+						key.cancel();
+					}
+					selector.selectNow();
+				}
+				channel.selectableChannel().configureBlocking( true );
+			}
+		}
+	}
+}
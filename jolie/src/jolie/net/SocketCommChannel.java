@@ -22,32 +22,64 @@
 
 package jolie.net;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
 import java.nio.channels.IllegalBlockingModeException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import jolie.Interpreter;
 import jolie.net.protocols.CommProtocol;
+import jolie.net.ports.InputPort;
+import jolie.net.protocols.FrameDecoder;
+import jolie.runtime.TimeoutHandler;
+import jolie.runtime.Value;
 import jolie.util.Helpers;
 
 
 /**
  * A CommChannel using a socket to implement communications.
+ * Bytes are read and written through direct buffers taken from the
+ * {@link BufferPool} of the CommCore, which are held only while they are
+ * being used.
+ * When other threads are waiting to send on the channel, the bytes of a
+ * message are left in the buffers for the next sender, so that up to
+ * {@link CommCore#writeBatch()} messages are written at once. Likewise, the
+ * last message may wait up to {@link CommCore#writeDelay()} milliseconds for
+ * other ones.
+ * Messages received by input ports are assembled in memory while the
+ * channel waits for input, up to the size set by parameter
+ * <code>maxFrameSize</code> of the protocol configuration of the port
+ * ({@link #DEFAULT_MAX_FRAME_SIZE} bytes by default): a channel receiving
+ * a larger message is closed.
  * @author Fabrizio Montesi
  */
 public class SocketCommChannel extends SelectableStreamingCommChannel
 {
 	private final SocketChannel socketChannel;
-	private final PreBufferedInputStream istream;
-	private final OutputStream ostream;
+	private final BufferPool bufferPool;
+	private final PooledInputStream istream;
+	private final PooledOutputStream ostream;
+	private final CommCore commCore;
+	private final int writeBatch;
+	private final long writeDelay;
 	
 	private static final int SO_LINGER = 10000;
+	private static final int FRAME_BUFFER_SIZE = BufferPool.MIN_BUFFER_SIZE;
+	private static final String MAX_FRAME_SIZE_PARAMETER = "maxFrameSize";
+	public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+	// Guarded by lock
+	private FrameDecoder frameDecoder = null;
+	private ByteBuffer frameBuffer = null;
+	private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+	private final Deque< byte[] > frames = new ArrayDeque<>();
+	private int batchedMessages = 0;
+	private TimeoutHandler flushHandler = null;
 	
 	/** Constructor.
 	 * 
@@ -63,10 +95,17 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 	{
 		super( location, protocol );
 		this.socketChannel = socketChannel;
-		socketChannel.socket().setSoLinger( true, SO_LINGER );
-		// this.istream = new PreBufferedInputStream( new BufferedInputStream( Channels.newInputStream( socketChannel ) ) );
-		this.istream = new PreBufferedInputStream( Channels.newInputStream( socketChannel ) );
-		this.ostream = new BufferedOutputStream( Channels.newOutputStream( socketChannel ) );
+		if ( socketChannel.getLocalAddress() instanceof InetSocketAddress ) {
+			// Channels of other address families (e.g., Unix domain sockets) have no socket adaptor
+			socketChannel.socket().setSoLinger( true, SO_LINGER );
+		}
+		final Interpreter interpreter = Interpreter.getInstance();
+		this.commCore = ( interpreter == null ) ? null : interpreter.commCore();
+		this.bufferPool = ( commCore == null ) ? new BufferPool( null, false ) : commCore.bufferPool();
+		this.istream = new PooledInputStream( socketChannel, bufferPool );
+		this.ostream = new PooledOutputStream( socketChannel, bufferPool );
+		this.writeBatch = ( commCore == null ) ? 1 : commCore.writeBatch();
+		this.writeDelay = ( commCore == null ) ? 0 : commCore.writeDelay();
 		setToBeClosed( false ); // Socket connections are kept open by default
 	}
 	
@@ -96,6 +135,12 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 	protected CommMessage recvImpl()
 		throws IOException
 	{
+		final byte[] frame = frames.poll();
+		if ( frame != null ) {
+			return protocol().recvFrame( frame, ostream );
+		}
+		// Go on with a partially received message in blocking mode
+		flushFrameBuffer();
 		try {
 			return protocol().recv( istream, ostream );
 		} catch( IllegalBlockingModeException e ) {
@@ -115,10 +160,63 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 	{
 		try {
 			protocol().send( ostream, message, istream );
+			batchedMessages++;
+			if ( batchedMessages < writeBatch && ostream.hasPendingBytes() ) {
+				if ( waitingSenders() > 0 ) {
+					// The next sender writes this message too
+					return;
+				} else if ( writeDelay > 0 && commCore != null ) {
+					scheduleFlush();
+					return;
+				}
+			}
+			flushImpl();
+		} catch( IllegalBlockingModeException e ) {
+			throw new IOException( e );
+		}
+	}
+
+	@Override
+	protected void flushImpl()
+		throws IOException
+	{
+		if ( flushHandler != null ) {
+			flushHandler.cancel();
+			flushHandler = null;
+		}
+		try {
 			ostream.flush();
 		} catch( IllegalBlockingModeException e ) {
 			throw new IOException( e );
 		}
+		if ( batchedMessages > 0 ) {
+			if ( commCore != null ) {
+				commCore.messagesWritten( batchedMessages );
+			}
+			batchedMessages = 0;
+		}
+	}
+
+	private void scheduleFlush()
+	{
+		if ( flushHandler == null ) {
+			flushHandler = new TimeoutHandler( writeDelay ) {
+				@Override
+				protected void onTimeout()
+				{
+					// Writing may block: do not hold the timeout handler thread
+					commCore.execute( () -> {
+						try {
+							flushOutput( commCore );
+						} catch( IOException e ) {
+							setToBeClosed( true );
+							commCore.interpreter().logFine( e );
+						}
+					} );
+				}
+			};
+			commCore.interpreter().addTimeoutHandler( flushHandler );
+		}
 	}
 	
 	@Override
@@ -129,16 +227,126 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 		if ( interpreter != null && interpreter.commCore().isSelecting( this ) ) {
 			interpreter.commCore().unregisterForSelection( this );
 		}
+		if ( batchedMessages > 0 ) {
+			try {
+				flushImpl();
+			} catch( IOException e ) {
+				// The other end may be gone already
+			}
+		}
 		socketChannel.close();
+		Helpers.lockAndThen( lock, this::releaseFrameBuffer );
+		istream.release();
+		ostream.release();
 	}
 	
-	private final ByteBuffer buffer = ByteBuffer.allocateDirect( 1024 );
-	
+	private FrameDecoder frameDecoder()
+	{
+		if ( frameDecoder == null && parentInputPort() != null ) {
+			frameDecoder = protocol().frameDecoder();
+			if ( frameDecoder != null ) {
+				maxFrameSize = maxFrameSize( parentInputPort() );
+			}
+		}
+		return frameDecoder;
+	}
+
+	/*
+	 * Frames are assembled by threads that run no session: the protocol
+	 * configuration of the port, which is global, is read from the global
+	 * value of the interpreter.
+	 */
+	private int maxFrameSize( InputPort port )
+	{
+		if ( commCore != null ) {
+			final Value config = port.protocolConfigurationPath().getValueOrNull( commCore.interpreter().globalValue() );
+			if ( config != null && config.hasChildren( MAX_FRAME_SIZE_PARAMETER ) ) {
+				final int size = config.getFirstChild( MAX_FRAME_SIZE_PARAMETER ).intValue();
+				if ( size > 0 ) {
+					return size;
+				}
+			}
+		}
+		return DEFAULT_MAX_FRAME_SIZE;
+	}
+
+	private void flushFrameBuffer()
+	{
+		if ( frameBuffer != null ) {
+			istream.append( frameBuffer );
+			releaseFrameBuffer();
+			frameDecoder = null;
+		}
+	}
+
+	private void releaseFrameBuffer()
+	{
+		if ( frameBuffer != null ) {
+			bufferPool.release( frameBuffer );
+			frameBuffer = null;
+		}
+	}
+
+	@Override
+	protected boolean decodesFrames()
+	{
+		return frameDecoder() != null;
+	}
+
+	@Override
+	protected boolean hasFrames()
+	{
+		return !frames.isEmpty();
+	}
+
+	@Override
+	protected boolean readFrames()
+		throws IOException
+	{
+		final FrameDecoder decoder = frameDecoder();
+		if ( frameBuffer == null ) {
+			frameBuffer = bufferPool.acquire( FRAME_BUFFER_SIZE, this );
+		} else {
+			frameBuffer.compact();
+		}
+
+		int read;
+		// The buffer grows up to one byte more than the largest frame allowed
+		while( (read = socketChannel.read( frameBuffer )) > 0 && !frameBuffer.hasRemaining()
+			&& frameBuffer.capacity() <= maxFrameSize ) {
+			final ByteBuffer b = bufferPool.acquire( (int) Math.min( frameBuffer.capacity() * 2L, maxFrameSize + 1L ), this );
+			frameBuffer.flip();
+			b.put( frameBuffer );
+			bufferPool.release( frameBuffer );
+			frameBuffer = b;
+		}
+		frameBuffer.flip();
+
+		byte[] frame;
+		while( frameBuffer.hasRemaining() && (frame = decoder.nextFrame( frameBuffer )) != null ) {
+			frames.add( frame );
+		}
+		if ( frameBuffer.remaining() > maxFrameSize ) {
+			// The channel is closed: drop what it received
+			frames.clear();
+			releaseFrameBuffer();
+			frameDecoder = null;
+			throw new IOException( "Received a message larger than " + maxFrameSize + " bytes on input port " + parentInputPort().name() );
+		}
+		if ( !frameBuffer.hasRemaining() ) {
+			// Idle channels do not keep any buffer
+			releaseFrameBuffer();
+		}
+
+		return read != -1;
+	}
+
 	private boolean _isOpenImpl()
 		throws IOException
 	{
-		buffer.clear();
-		
+		// Bytes left by the frame decoder come before the ones read here
+		flushFrameBuffer();
+
 		final boolean wasBlocking = socketChannel.isBlocking();
 		
 		if ( wasBlocking ) {
@@ -146,7 +354,7 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 		}
 		final int read;
 		try {
-			read = socketChannel.read( buffer );
+			read = istream.readAvailable();
 		} catch( IOException e ) {
 			/* This should never happen in non Windows systems.
 			 * In Windows systems an IOException is thrown
@@ -159,14 +367,7 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 		if ( wasBlocking ) {
 			socketChannel.configureBlocking( true );
 		}
-		if ( read == -1 ) {
-			return false;
-		} else if ( read > 0 ) {
-			buffer.limit( read );
-			buffer.rewind();
-			istream.append( buffer );
-		}
-		return true;
+		return read != -1;
 	}
 
 	@Override
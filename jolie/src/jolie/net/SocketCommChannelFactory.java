@@ -24,7 +24,6 @@ package jolie.net;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.nio.channels.SocketChannel;
 import jolie.net.ext.CommChannelFactory;
 import jolie.net.ports.OutputPort;
@@ -44,12 +43,6 @@ public class SocketCommChannelFactory extends CommChannelFactory
 		throws IOException
 	{
 		SocketChannel channel = SocketChannel.open( new InetSocketAddress( location.getHost(), location.getPort() ) );
-		SocketCommChannel ret = null;
-		try {
-			ret = new SocketCommChannel( channel, location, port.getProtocol() );
-		} catch( URISyntaxException e ) {
-			throw new IOException( e );
-		}
-		return ret;
+		return new SocketCommChannel( channel, location, port.getProtocol( location ) );
 	}
 }
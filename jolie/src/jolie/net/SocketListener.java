@@ -23,22 +23,58 @@ package jolie.net;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.nio.channels.AsynchronousCloseException;
-import java.nio.channels.ClosedByInterruptException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.LongAdder;
 import jolie.Interpreter;
+import jolie.NativeJolieThread;
 import jolie.net.ext.CommProtocolFactory;
 import jolie.net.ports.InputPort;
+import jolie.util.Helpers;
 
 /**
  * A communication listener using sockets as backend.
+ *
+ * Connections are accepted by {@link CommCore#acceptors()} threads. On Linux,
+ * each thread gets its own server socket bound with <code>SO_REUSEPORT</code>,
+ * so that the kernel balances connections among them; elsewhere, the threads
+ * share a single server socket. Each thread accepts all the pending
+ * connections whenever its server socket is selected, and registers them with
+ * its own selector threads.
+ *
  * @author Fabrizio Montesi
  */
 public class SocketListener extends CommListener
 {
-	private final ServerSocketChannel serverChannel;
+	private static final int MAX_ACCEPT_BATCH = 256;
+
+	private static class LazyReusePortHolder {
+		private LazyReusePortHolder() {}
+		private static final SocketOption< Boolean > option = reusePortOption();
+	}
+
+	// StandardSocketOptions.SO_REUSEPORT is available from Java 9
+	@SuppressWarnings( "unchecked" )
+	private static SocketOption< Boolean > reusePortOption()
+	{
+		if ( System.getProperty( "os.name", "" ).toLowerCase().contains( "linux" ) == false ) {
+			return null;
+		}
+		try {
+			return (SocketOption< Boolean >) StandardSocketOptions.class.getField( "SO_REUSEPORT" ).get( null );
+		} catch( ReflectiveOperationException | ClassCastException e ) {
+			return null;
+		}
+	}
+
+	private final Acceptor[] acceptors;
+	private final LongAdder acceptedCount = new LongAdder();
+	private final LongAdder batchCount = new LongAdder();
 
 	public SocketListener(
 				Interpreter interpreter,
@@ -52,51 +88,189 @@ public class SocketListener extends CommListener
 			protocolFactory,
 			inputPort
 		);
-		
-		serverChannel = ServerSocketChannel.open();
-		final ServerSocket socket = serverChannel.socket();
+
+		final int n = interpreter.commCore().acceptors();
+		final SocketOption< Boolean > reusePort = ( n > 1 ) ? LazyReusePortHolder.option : null;
+		acceptors = new Acceptor[ n ];
+		ServerSocketChannel serverChannel = null;
+		for( int i = 0; i < n; i++ ) {
+			if ( serverChannel == null || reusePort != null ) {
+				serverChannel = bind( inputPort, reusePort, interpreter.commCore().acceptQueue() );
+			}
+			acceptors[ i ] = new Acceptor( i, serverChannel, Selector.open() );
+		}
+	}
+
+	/**
+	 * Creates a listener whose acceptor threads share a server channel that
+	 * has already been bound, for example to an address that is not an
+	 * internet one.
+	 * @param interpreter the interpreter of this listener
+	 * @param protocolFactory the factory of the protocol of the input port
+	 * @param inputPort the input port of this listener
+	 * @param serverChannel the bound server channel to accept connections from
+	 * @throws IOException if the server channel cannot be made non-blocking
+	 */
+	protected SocketListener(
+				Interpreter interpreter,
+				CommProtocolFactory protocolFactory,
+				InputPort inputPort,
+				ServerSocketChannel serverChannel
+			)
+		throws IOException
+	{
+		super(
+			interpreter,
+			protocolFactory,
+			inputPort
+		);
+
+		serverChannel.configureBlocking( false );
+		acceptors = new Acceptor[ interpreter.commCore().acceptors() ];
+		for( int i = 0; i < acceptors.length; i++ ) {
+			acceptors[ i ] = new Acceptor( i, serverChannel, Selector.open() );
+		}
+	}
+
+	private static ServerSocketChannel bind( InputPort inputPort, SocketOption< Boolean > reusePort, int backlog )
+		throws IOException
+	{
+		final ServerSocketChannel serverChannel = ServerSocketChannel.open();
 		try {
-			socket.bind( new InetSocketAddress( inputPort.location().getPort() ) );
+			if ( reusePort != null && serverChannel.supportedOptions().contains( reusePort ) ) {
+				serverChannel.setOption( reusePort, true );
+			}
+			serverChannel.socket().bind(
+				new InetSocketAddress( inputPort.location().getPort() ),
+				backlog
+			);
+			serverChannel.configureBlocking( false );
 		} catch( IOException e ) {
+			serverChannel.close();
 			final IOException exception = new IOException( e.getMessage() + " [with location: " + inputPort.location().toString() + "]" );
 			exception.setStackTrace( e.getStackTrace() );
 			throw exception;
 		}
+		return serverChannel;
+	}
+
+	/**
+	 * Returns the number of connections accepted by this listener.
+	 * @return the number of connections accepted by this listener
+	 */
+	public long acceptedCount()
+	{
+		return acceptedCount.sum();
+	}
+
+	/**
+	 * Returns the number of times this listener found connections to accept.
+	 * Together with {@link #acceptedCount()}, it tells how many connections
+	 * were pending on average.
+	 * @return the number of batches of connections accepted by this listener
+	 */
+	public long batchCount()
+	{
+		return batchCount.sum();
 	}
 
 	@Override
 	public void shutdown()
 	{
-		if ( serverChannel.isOpen() ) {
-			try {
-				serverChannel.close();
-			} catch( IOException e ) {}
+		for( Acceptor acceptor : acceptors ) {
+			if ( acceptor.serverChannel.isOpen() ) {
+				try {
+					acceptor.serverChannel.close();
+				} catch( IOException e ) {}
+			}
+			acceptor.selector.wakeup();
 		}
 	}
-	
+
 	@Override
 	public void run()
 	{
-		try {
-			SocketChannel socketChannel;
-			while ( (socketChannel = serverChannel.accept()) != null ) {
-				final CommChannel channel = new SocketCommChannel(
-							socketChannel,
-							inputPort().location(),
-							createProtocol() );
-				channel.setParentInputPort( inputPort() );
+		for( int i = 1; i < acceptors.length; i++ ) {
+			final Thread thread = new NativeJolieThread( interpreter(), acceptors[ i ] );
+			thread.setName( getName() + "-Acceptor-" + i );
+			thread.start();
+		}
+		acceptors[ 0 ].run();
+	}
+
+	private class Acceptor implements Runnable
+	{
+		private final ServerSocketChannel serverChannel;
+		private final Selector selector;
+		// The selector threads receiving the channels accepted by this acceptor
+		private final int[] selectorIndexes;
+		private int nextSelector = 0;
+
+		private Acceptor( int index, ServerSocketChannel serverChannel, Selector selector )
+		{
+			this.serverChannel = serverChannel;
+			this.selector = selector;
+			final int selectors = interpreter().commCore().selectorCount();
+			final int n = interpreter().commCore().acceptors();
+			if ( n >= selectors ) {
+				selectorIndexes = new int[] { index % selectors };
+			} else {
+				selectorIndexes = new int[ ( selectors - index + n - 1 ) / n ];
+				for( int i = 0; i < selectorIndexes.length; i++ ) {
+					selectorIndexes[ i ] = index + i * n;
+				}
+			}
+		}
+
+		private void accept( SocketChannel socketChannel )
+			throws IOException
+		{
+			final SocketCommChannel channel = new SocketCommChannel(
+						socketChannel,
+						inputPort().location(),
+						createProtocol() );
+			channel.setParentInputPort( inputPort() );
+			if ( channel.decodesFrames() ) {
+				// Wait for a complete message without holding a thread
+				final int selectorIndex = selectorIndexes[ nextSelector ];
+				Helpers.lockAndThen( channel.lock, () -> interpreter().commCore().registerForSelection( channel, selectorIndex ) );
+				nextSelector = ( nextSelector + 1 ) % selectorIndexes.length;
+			} else {
 				interpreter().commCore().scheduleReceive( channel, inputPort() );
 			}
-		} catch( ClosedByInterruptException e ) {
+		}
+
+		@Override
+		public void run()
+		{
 			try {
-				serverChannel.close();
-			} catch( IOException ioe ) {
-				interpreter().logWarning( ioe );
+				serverChannel.register( selector, SelectionKey.OP_ACCEPT );
+				while( serverChannel.isOpen() ) {
+					selector.select();
+					selector.selectedKeys().clear();
+					SocketChannel socketChannel;
+					int n = 0;
+					while( n < MAX_ACCEPT_BATCH && (socketChannel = serverChannel.accept()) != null ) {
+						accept( socketChannel );
+						n++;
+					}
+					if ( n > 0 ) {
+						acceptedCount.add( n );
+						batchCount.increment();
+					}
+				}
+			} catch( ClosedChannelException e ) {
+				// Closed by CommCore shutdown
+			} catch( IOException e ) {
+				interpreter().logWarning( e );
+			} finally {
+				try {
+					serverChannel.close();
+					selector.close();
+				} catch( IOException e ) {
+					interpreter().logWarning( e );
+				}
 			}
-		} catch( AsynchronousCloseException e ) {
-			// Closed by CommCore shutdown
-		} catch( IOException e ) {
-			interpreter().logWarning( e );
 		}
 	}
 }
@@ -54,6 +54,12 @@ public abstract class StreamingCommChannel extends AbstractCommChannel
 		return protocol.isThreadSafe();
 	}
 
+	@Override
+	protected int maxOutstandingRequests()
+	{
+		return protocol.maxOutstandingRequests();
+	}
+
 	@Override
 	protected void releaseImpl()
 		throws IOException
@@ -22,9 +22,12 @@
 package jolie.net.ports;
 
 import java.net.URI;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import jolie.lang.Constants;
 import jolie.net.AggregatedOperation;
+import jolie.runtime.Value;
 import jolie.runtime.VariablePath;
 import jolie.runtime.typing.OperationTypeDescription;
 
@@ -178,4 +181,48 @@ public class InputPort implements Port
 		
 		return ret;
 	}
+
+	private final Map< String, ResponseCache > responseCaches = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the cache of the responses for the specified operation, as
+	 * set by parameter <code>osc.operationName.cache</code> of the protocol
+	 * configuration of this port.
+	 * @param operationName the name of the operation
+	 * @return the cache of the responses for the operation, or <code>null</code> if they are not cached
+	 * @see ResponseCache
+	 */
+	public ResponseCache responseCache( String operationName )
+	{
+		final Value config = protocolConfigurationPath.getValue();
+		if ( config.hasChildren( "osc" ) ) {
+			final Value osc = config.getFirstChild( "osc" );
+			if ( osc.hasChildren( operationName ) && osc.getFirstChild( operationName ).hasChildren( ResponseCache.PARAMETER ) ) {
+				final ResponseCache ret = responseCaches.computeIfAbsent( operationName, ResponseCache::new );
+				ret.configure( osc.getFirstChild( operationName ).getFirstChild( ResponseCache.PARAMETER ) );
+				return ret;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the cache of the responses for the specified operation, if
+	 * it has been used so far, without reading the protocol configuration of this port.
+	 * @param operationName the name of the operation
+	 * @return the cache of the responses for the operation, or <code>null</code>
+	 */
+	public ResponseCache usedResponseCache( String operationName )
+	{
+		return responseCaches.get( operationName );
+	}
+
+	/**
+	 * Returns the caches of the responses used by this port so far.
+	 * @return the caches of the responses used by this port
+	 */
+	public Collection< ResponseCache > responseCaches()
+	{
+		return responseCaches.values();
+	}
 }
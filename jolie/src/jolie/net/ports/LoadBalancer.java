@@ -0,0 +1,312 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+
+package jolie.net.ports;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import jolie.net.CommCore;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Spreads the requests of an output port among a set of locations, as
+ * configured by the <code>balancer</code> parameter of its protocol:
+ * <pre>
+ * Protocol: sodep {
+ *	.balancer = "leastOutstanding";
+ *	.balancer.location[0] = "socket://replica1:8000";
+ *	.balancer.location[1] = "socket://replica2:8000"
+ * }
+ * </pre>
+ * The value of the parameter names the strategy choosing among the locations
+ * (see {@link #registerStrategy(java.lang.String, java.util.function.Supplier)}),
+ * and defaults to <code>roundRobin</code>. The resource path of requests is
+ * still taken from the location of the output port.
+ *
+ * Locations that cannot be connected to are considered unhealthy and are
+ * not chosen again until a retry delay, which doubles at every consecutive
+ * failure, has passed. If no location is healthy, all of them are tried.
+ * Locations whose {@link jolie.net.CircuitBreaker circuit breaker} is open
+ * are skipped as well.
+ */
+public class LoadBalancer
+{
+	public static final String PARAMETER = "balancer";
+	private static final String LOCATION = "location";
+	private static final String DEFAULT_STRATEGY = "roundRobin";
+	private static final long MIN_RETRY_DELAY = 1000; // msecs
+	private static final long MAX_RETRY_DELAY = 30000; // msecs
+
+	/**
+	 * A location requests can be sent to, with its health state.
+	 */
+	public static class Endpoint
+	{
+		private final URI location;
+		private final CommCore commCore;
+		// Guarded by this
+		private int failures = 0;
+		private long retryTime = 0L;
+
+		private Endpoint( URI location, CommCore commCore )
+		{
+			this.location = location;
+			this.commCore = commCore;
+		}
+
+		/**
+		 * Returns the location of this endpoint.
+		 * @return the location of this endpoint
+		 */
+		public URI location()
+		{
+			return location;
+		}
+
+		/**
+		 * Returns the number of requests being sent to, or waiting for a
+		 * response from, this endpoint.
+		 * @return the number of requests in flight for this endpoint
+		 * @see CommCore#inFlightRequests(java.net.URI)
+		 */
+		public int inFlight()
+		{
+			return commCore.inFlightRequests( location );
+		}
+
+		private synchronized boolean isHealthy( long now )
+		{
+			return failures == 0 || now >= retryTime;
+		}
+
+		synchronized void failed()
+		{
+			final long delay = Math.min( MAX_RETRY_DELAY, MIN_RETRY_DELAY << Math.min( failures, 16 ) );
+			failures++;
+			retryTime = System.currentTimeMillis() + delay;
+		}
+
+		synchronized void succeeded()
+		{
+			failures = 0;
+		}
+	}
+
+	/**
+	 * A load balancing strategy. Each load balancer has its own instance.
+	 */
+	public static interface Strategy
+	{
+		/**
+		 * Chooses the endpoint to send a request to.
+		 * @param candidates the endpoints to choose from, never empty
+		 * @return the chosen endpoint
+		 */
+		public Endpoint select( List< Endpoint > candidates );
+	}
+
+	private static class RoundRobinStrategy implements Strategy
+	{
+		private final AtomicInteger next = new AtomicInteger( 0 );
+
+		@Override
+		public Endpoint select( List< Endpoint > candidates )
+		{
+			return candidates.get( Math.floorMod( next.getAndIncrement(), candidates.size() ) );
+		}
+	}
+
+	/*
+	 * Picks two endpoints at random and takes the least loaded one,
+	 * which avoids herding on the same endpoint without scanning all of them.
+	 */
+	private static class RandomOfTwoStrategy implements Strategy
+	{
+		@Override
+		public Endpoint select( List< Endpoint > candidates )
+		{
+			final int n = candidates.size();
+			if ( n == 1 ) {
+				return candidates.get( 0 );
+			}
+			final ThreadLocalRandom random = ThreadLocalRandom.current();
+			final int i = random.nextInt( n );
+			final int j = ( i + 1 + random.nextInt( n - 1 ) ) % n;
+			final Endpoint a = candidates.get( i );
+			final Endpoint b = candidates.get( j );
+			return ( b.inFlight() < a.inFlight() ) ? b : a;
+		}
+	}
+
+	private static class LeastOutstandingStrategy implements Strategy
+	{
+		// Rotates the starting point, so that ties are broken round-robin
+		private final AtomicInteger next = new AtomicInteger( 0 );
+
+		@Override
+		public Endpoint select( List< Endpoint > candidates )
+		{
+			final int n = candidates.size();
+			final int start = Math.floorMod( next.getAndIncrement(), n );
+			Endpoint ret = null;
+			int min = Integer.MAX_VALUE;
+			for( int k = 0; k < n; k++ ) {
+				final Endpoint e = candidates.get( ( start + k ) % n );
+				final int inFlight = e.inFlight();
+				if ( inFlight < min ) {
+					min = inFlight;
+					ret = e;
+				}
+			}
+			return ret;
+		}
+	}
+
+	private static final Map< String, Supplier< Strategy > > strategies = new ConcurrentHashMap<>();
+
+	static {
+		registerStrategy( "roundRobin", RoundRobinStrategy::new );
+		registerStrategy( "randomOfTwo", RandomOfTwoStrategy::new );
+		registerStrategy( "leastOutstanding", LeastOutstandingStrategy::new );
+	}
+
+	/**
+	 * Makes a load balancing strategy available to output ports.
+	 * @param name the name used to refer to the strategy in the <code>balancer</code> parameter
+	 * @param factory creates the strategy instance of each load balancer
+	 */
+	public static void registerStrategy( String name, Supplier< Strategy > factory )
+	{
+		strategies.put( name, factory );
+	}
+
+	private final String strategyName;
+	private final Strategy strategy;
+	private final List< Endpoint > endpoints;
+
+	private LoadBalancer( String strategyName, Strategy strategy, List< Endpoint > endpoints )
+	{
+		this.strategyName = strategyName;
+		this.strategy = strategy;
+		this.endpoints = endpoints;
+	}
+
+	private static String strategyName( Value config )
+	{
+		return config.isDefined() ? config.strValue() : DEFAULT_STRATEGY;
+	}
+
+	/**
+	 * Creates the load balancer described by the given <code>balancer</code>
+	 * parameter, or returns <code>null</code> if it lists no locations.
+	 * @param config the value of the <code>balancer</code> parameter
+	 * @param commCore the CommCore handling the channels to the locations
+	 * @return a new load balancer, or <code>null</code>
+	 * @throws URISyntaxException if a location is not a valid URI
+	 * @throws IOException if the strategy is unknown
+	 */
+	public static LoadBalancer create( Value config, CommCore commCore )
+		throws URISyntaxException, IOException
+	{
+		final ValueVector locations = config.getChildren( LOCATION );
+		if ( locations.isEmpty() ) {
+			return null;
+		}
+		final String name = strategyName( config );
+		final Supplier< Strategy > factory = strategies.get( name );
+		if ( factory == null ) {
+			throw new IOException( "Unknown load balancing strategy: " + name );
+		}
+		final List< Endpoint > endpoints = new ArrayList<>( locations.size() );
+		for( Value location : locations ) {
+			endpoints.add( new Endpoint( new URI( location.strValue() ), commCore ) );
+		}
+		return new LoadBalancer( name, factory.get(), Collections.unmodifiableList( endpoints ) );
+	}
+
+	/**
+	 * Returns <code>true</code> if this load balancer has been created from
+	 * a <code>balancer</code> parameter equivalent to the given one.
+	 * @param config the value of a <code>balancer</code> parameter
+	 * @return <code>true</code> if this load balancer matches <code>config</code>
+	 */
+	public boolean matches( Value config )
+	{
+		final ValueVector locations = config.getChildren( LOCATION );
+		if ( locations.size() != endpoints.size() || !strategyName.equals( strategyName( config ) ) ) {
+			return false;
+		}
+		for( int i = 0; i < endpoints.size(); i++ ) {
+			if ( !endpoints.get( i ).location.toString().equals( locations.get( i ).strValue() ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the endpoints of this load balancer.
+	 * @return the endpoints of this load balancer
+	 */
+	public List< Endpoint > endpoints()
+	{
+		return endpoints;
+	}
+
+	/**
+	 * Chooses the endpoint to send a request to, preferring healthy ones.
+	 * @param excluded endpoints that must not be chosen
+	 * @return the chosen endpoint, or <code>null</code> if all endpoints are excluded
+	 */
+	public Endpoint select( Collection< Endpoint > excluded )
+	{
+		final long now = System.currentTimeMillis();
+		final List< Endpoint > healthy = new ArrayList<>( endpoints.size() );
+		final List< Endpoint > available = new ArrayList<>( endpoints.size() );
+		for( Endpoint e : endpoints ) {
+			if ( !excluded.contains( e ) ) {
+				available.add( e );
+				if ( e.isHealthy( now ) ) {
+					healthy.add( e );
+				}
+			}
+		}
+		if ( !healthy.isEmpty() ) {
+			return strategy.select( healthy );
+		} else if ( !available.isEmpty() ) {
+			return strategy.select( available );
+		}
+		return null;
+	}
+}
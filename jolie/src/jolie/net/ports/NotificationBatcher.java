@@ -0,0 +1,211 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net.ports;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import jolie.ExecutionThread;
+import jolie.Interpreter;
+import jolie.net.CircuitBreaker;
+import jolie.net.CommChannel;
+import jolie.net.CommMessage;
+import jolie.runtime.TimeoutHandler;
+import jolie.runtime.Value;
+
+/**
+ * Sends the notifications of an output port in batches, as configured by
+ * the <code>batch</code> parameter of its protocol:
+ * <pre>
+ * Protocol: sodep {
+ *	.batch.size = 64;	// maximum number of notifications in a batch
+ *	.batch.delay = 1	// msecs to wait for more notifications before sending a batch
+ * }
+ * </pre>
+ * The values above are the defaults. Notifications are sent by a single
+ * flusher, one batch at a time: while a batch waits for its acknowledgement,
+ * the following notifications are queued and sent together in the next one.
+ *
+ * A notification process completes as soon as its message is queued, so
+ * delivery errors can not be reported to it: they are logged instead.
+ * Senders are blocked if too many notifications are queued.
+ * Batches require a protocol supporting them on both sides (e.g., sodep).
+ */
+public class NotificationBatcher
+{
+	public static final String PARAMETER = "batch";
+	private static final int MAX_QUEUED_BATCHES = 16;
+
+	private final OutputPort port;
+	private final Interpreter interpreter;
+
+	/*
+	 * Explicit locks instead of monitors: senders wait for the queue
+	 * to have room, which would pin the carrier of a virtual thread.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+	// Guarded by lock
+	private final Deque< CommMessage > queue = new ArrayDeque<>();
+	private boolean flushing = false;
+	private TimeoutHandler timeoutHandler = null;
+	private int size = 64;
+	private long delay = 1L;
+
+	NotificationBatcher( OutputPort port, Interpreter interpreter )
+	{
+		this.port = port;
+		this.interpreter = interpreter;
+	}
+
+	void configure( Value config )
+	{
+		lock.lock();
+		try {
+			size = Math.max( 1, config.hasChildren( "size" ) ? config.getFirstChild( "size" ).intValue() : 64 );
+			delay = Math.max( 0L, config.hasChildren( "delay" ) ? config.getFirstChild( "delay" ).longValue() : 1L );
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Queues a notification, to be sent in the next batch.
+	 * @param message the notification to send
+	 * @throws IOException if the sender is interrupted while waiting for room in the queue
+	 */
+	public void add( CommMessage message )
+		throws IOException
+	{
+		lock.lock();
+		try {
+			while( queue.size() >= size * MAX_QUEUED_BATCHES ) {
+				notFull.await();
+			}
+			queue.add( message );
+			if ( flushing ) {
+				// The flusher is going to send it
+			} else if ( queue.size() >= size || delay == 0 ) {
+				startFlushing();
+			} else if ( timeoutHandler == null ) {
+				timeoutHandler = new TimeoutHandler( delay ) {
+					@Override
+					public void onTimeout()
+					{
+						lock.lock();
+						try {
+							if ( timeoutHandler == this ) {
+								timeoutHandler = null;
+								if ( !flushing && !queue.isEmpty() ) {
+									startFlushing();
+								}
+							}
+						} finally {
+							lock.unlock();
+						}
+					}
+				};
+				interpreter.addTimeoutHandler( timeoutHandler );
+			}
+		} catch( InterruptedException e ) {
+			throw new IOException( e );
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Must be called holding lock
+	private void startFlushing()
+	{
+		if ( timeoutHandler != null ) {
+			timeoutHandler.cancel();
+			timeoutHandler = null;
+		}
+		flushing = true;
+		interpreter.commCore().execute( this::flush );
+	}
+
+	private void flush()
+	{
+		// Channels need a Jolie execution context
+		ExecutionThread.setCurrentThread( interpreter.initThread() );
+		while( true ) {
+			final List< CommMessage > batch;
+			lock.lock();
+			try {
+				if ( queue.isEmpty() ) {
+					flushing = false;
+					return;
+				}
+				batch = new ArrayList<>( Math.min( size, queue.size() ) );
+				while( batch.size() < size && !queue.isEmpty() ) {
+					batch.add( queue.poll() );
+				}
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			send( batch );
+		}
+	}
+
+	private void send( List< CommMessage > messages )
+	{
+		final CommMessage batch = CommMessage.createBatch( CommMessage.getNewMessageId(), messages );
+		final long startTime = System.nanoTime();
+		CommChannel channel = null;
+		CircuitBreaker breaker = null;
+		boolean responded = false;
+		try {
+			channel = port.getCommChannel();
+			breaker = channel.circuitBreaker();
+			channel.send( batch );
+			CommMessage response;
+			do {
+				response = channel.recvResponseFor( batch );
+			} while( response == null );
+			responded = true;
+			if ( response.isFault() ) {
+				interpreter.logWarning( "A batch of notifications for output port " + port.id() + " was not fully delivered: " + response.fault().value().strValue() );
+			}
+		} catch( IOException | URISyntaxException e ) {
+			interpreter.logWarning( "Lost a batch of " + messages.size() + " notifications for output port " + port.id() + ": " + e.getMessage() );
+		} finally {
+			if ( breaker != null ) {
+				breaker.record( responded, System.nanoTime() - startTime );
+			}
+			if ( channel != null ) {
+				try {
+					channel.release();
+				} catch( IOException e ) {
+					interpreter.logWarning( e );
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net.ports;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the one-way requests that an output port sends ahead of the
+ * receiver, as configured by the <code>credits</code> parameter of its protocol:
+ * <pre>
+ * Protocol: sodep {
+ *	.credits = 64	// one-way requests that may be sent before the first grant
+ * }
+ * </pre>
+ * The receiver sets the same parameter, as the maximum number of received
+ * messages that may wait for its sessions (see {@link jolie.Interpreter#queuedMessages()}).
+ * The acknowledgement of each one-way request grants the sender the room
+ * left, so that a fast sender can not fill the memory of a slow receiver.
+ *
+ * A notification process out of credits waits for a grant, or faults with
+ * a timeout when the deadline of its request expires (see parameter <code>timeout</code>).
+ * If no request is waiting for an acknowledgement, one is sent anyway every
+ * {@link #PROBE_INTERVAL} milliseconds to receive a new grant.
+ * Credits require a protocol supporting them on both sides (e.g., sodep).
+ */
+public class NotificationCredits
+{
+	public static final String PARAMETER = "credits";
+	public static final long PROBE_INTERVAL = 100; // msecs
+
+	/*
+	 * Explicit locks instead of monitors: senders wait for credits,
+	 * which would pin the carrier of a virtual thread.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition granted = lock.newCondition();
+	// Guarded by lock
+	private int available;
+	private int outstanding = 0;
+	private long lastGrantTime = System.currentTimeMillis();
+	private final LongAdder waits = new LongAdder();
+
+	public NotificationCredits( int credits )
+	{
+		this.available = credits;
+	}
+
+	/**
+	 * Takes a credit for sending a one-way request, waiting for a grant if
+	 * there is none left.
+	 * @param deadline the time (in milliseconds since the epoch) by which a credit must be taken, or 0 for waiting indefinitely
+	 * @return <code>true</code> if a credit was taken, <code>false</code> if the deadline expired
+	 * @throws IOException if the sender is interrupted while waiting for a grant
+	 */
+	public boolean acquire( long deadline )
+		throws IOException
+	{
+		lock.lock();
+		try {
+			if ( available <= 0 ) {
+				waits.increment();
+			}
+			while( available <= 0 ) {
+				final long now = System.currentTimeMillis();
+				long wait = Long.MAX_VALUE;
+				if ( outstanding == 0 ) {
+					// No acknowledgement is coming with a grant: probe the receiver
+					wait = lastGrantTime + PROBE_INTERVAL - now;
+					if ( wait <= 0 ) {
+						break;
+					}
+				}
+				if ( deadline > 0 ) {
+					if ( deadline <= now ) {
+						return false;
+					}
+					wait = Math.min( wait, deadline - now );
+				}
+				if ( wait == Long.MAX_VALUE ) {
+					granted.await();
+				} else {
+					granted.await( wait, TimeUnit.MILLISECONDS );
+				}
+			}
+			available--;
+			outstanding++;
+			return true;
+		} catch( InterruptedException e ) {
+			throw new IOException( e );
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the credit taken for a one-way request, when its acknowledgement
+	 * is received or the request fails.
+	 * @param grant the credits granted by the acknowledgement (see {@link jolie.net.CommMessage#credits()}), or -1 if there is no grant
+	 */
+	public void release( int grant )
+	{
+		lock.lock();
+		try {
+			outstanding--;
+			if ( grant >= 0 ) {
+				// The requests still waiting for acknowledgement are going to use part of the grant
+				available = grant - outstanding;
+				lastGrantTime = System.currentTimeMillis();
+			} else {
+				available++;
+			}
+			if ( available > 0 || outstanding == 0 ) {
+				granted.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of requests that had to wait for a grant.
+	 * @return the number of requests that had to wait for a grant
+	 */
+	public long waits()
+	{
+		return waits.sum();
+	}
+}
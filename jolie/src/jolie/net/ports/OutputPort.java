@@ -24,13 +24,23 @@ package jolie.net.ports;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import jolie.ExecutionThread;
 import jolie.Interpreter;
+import jolie.SessionThread;
 import jolie.lang.Constants;
+import jolie.net.CircuitBreaker;
+import jolie.net.CircuitOpenException;
 import jolie.net.CommChannel;
+import jolie.net.CommChannelPool;
 import jolie.net.CommMessage;
 import jolie.net.protocols.CommProtocol;
 import jolie.process.AssignmentProcess;
@@ -53,12 +63,16 @@ import jolie.util.LocationParser;
  */
 public class OutputPort extends AbstractIdentifiableObject implements Port
 {
+	// Connections to open in advance for each location, see prewarm()
+	private static final String PREWARM_PARAMETER = "prewarm";
+
 	private final Interpreter interpreter;
 	private final Process configurationProcess;
 	private Expression locationExpression;
 	private final VariablePath locationVariablePath, protocolVariablePath;
 	private final boolean isConstant;
 	private final Interface iface;
+	private volatile LoadBalancer loadBalancer = null;
 
 	/* To be called at runtime, after main is run.
 	 * Requires the caller to set the variables by itself.
@@ -167,13 +181,9 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 	public CommMessage createAggregatedRequest( CommMessage message )
 		throws URISyntaxException
 	{
-		return new CommMessage(
-			CommMessage.getNewMessageId(),
-			message.operationName(),
-			getResourcePath(),
-			message.value(),
-			message.fault()
-		);
+		final CommMessage request = CommMessage.createForward( message, CommMessage.getNewMessageId(), getResourcePath() );
+		request.setDeadline( message.deadline() );
+		return request;
 	}
 
 	@Override
@@ -203,6 +213,20 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 	 */
 	public CommProtocol getProtocol()
 		throws IOException, URISyntaxException
+	{
+		return getProtocol( new URI( locationExpression.evaluate().strValue() ) );
+	}
+
+	/**
+	 * Gets the protocol to be used for communicating with the given location
+	 * of this output port, which may differ from the location of the port
+	 * if a {@link LoadBalancer} is configured.
+	 * @param location the location the protocol communicates with
+	 * @return the protocol to be used for communicating with the given location
+	 * @throws java.io.IOException
+	 */
+	public CommProtocol getProtocol( URI location )
+		throws IOException
 	{
 		String protocolId = protocolVariablePath.getValue().strValue();
 		if ( protocolId.isEmpty() ) {
@@ -211,11 +235,92 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		return interpreter.commCore().createOutputCommProtocol(
 			protocolId,
 			protocolVariablePath,
-			new URI( locationExpression.evaluate().strValue() )
+			location
 		);
 	}
 
-	
+	/**
+	 * Returns the load balancer configured for this output port, or
+	 * <code>null</code> if its requests all go to its location.
+	 * @return the load balancer of this output port, or <code>null</code>
+	 * @throws URISyntaxException if a location of the load balancer is not a valid URI
+	 * @throws IOException if the load balancing strategy is unknown
+	 */
+	public LoadBalancer loadBalancer()
+		throws URISyntaxException, IOException
+	{
+		final Value config = protocolVariablePath.getValue();
+		if ( !config.hasChildren( LoadBalancer.PARAMETER ) ) {
+			return null;
+		}
+		final Value balancerConfig = config.getFirstChild( LoadBalancer.PARAMETER );
+		LoadBalancer ret = loadBalancer;
+		if ( ret == null || !ret.matches( balancerConfig ) ) {
+			// The configuration has been changed
+			final boolean rebound = ret != null;
+			ret = LoadBalancer.create( balancerConfig, interpreter.commCore() );
+			loadBalancer = ret;
+			if ( rebound ) {
+				prewarm( ret.endpoints().stream().map( LoadBalancer.Endpoint::location ).collect( Collectors.toList() ) );
+			}
+		}
+		return ret;
+	}
+
+	private CommChannel getCommChannel( URI uri, boolean forceNew )
+		throws IOException
+	{
+		final CircuitBreaker breaker = interpreter.commCore().circuitBreaker( id(), uri, protocolVariablePath.getValue() );
+		if ( breaker != null ) {
+			breaker.acquire();
+		}
+		final CommChannel ret;
+		try {
+			if ( forceNew ) {
+				// A fresh channel was requested
+				ret = interpreter.commCore().createCommChannel( uri, this );
+			} else {
+				// Try reusing an existing channel first
+				String protocol = protocolVariablePath.getValue().strValue();
+				ret = interpreter.commCore().getPersistentChannel( uri, protocol, this );
+			}
+		} catch( IOException e ) {
+			if ( breaker != null ) {
+				breaker.record( false, 0L );
+			}
+			throw e;
+		}
+		ret.setCircuitBreaker( breaker );
+		return ret;
+	}
+
+	/*
+	 * Tries the endpoints chosen by balancer until a channel is obtained.
+	 */
+	private CommChannel getBalancedCommChannel( LoadBalancer balancer, boolean forceNew )
+		throws IOException
+	{
+		final List< LoadBalancer.Endpoint > failed = new ArrayList<>();
+		IOException exception = null;
+		LoadBalancer.Endpoint endpoint;
+		while( (endpoint = balancer.select( failed )) != null ) {
+			try {
+				final CommChannel channel = getCommChannel( endpoint.location(), forceNew );
+				endpoint.succeeded();
+				return channel;
+			} catch( CircuitOpenException e ) {
+				// The endpoint is ejected until its circuit breaker lets requests through again
+				failed.add( endpoint );
+				exception = e;
+			} catch( IOException e ) {
+				endpoint.failed();
+				failed.add( endpoint );
+				exception = e;
+			}
+		}
+		throw exception;
+	}
+
 	private CommChannel getCommChannel( boolean forceNew )
 		throws URISyntaxException, IOException
 	{
@@ -228,17 +333,14 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 				ret = ret.createDuplicate();
 			}
 		} else {
-			URI uri = getLocation( loc );
-			if ( forceNew ) {
-				// A fresh channel was requested
-				ret = interpreter.commCore().createCommChannel( uri, this );
+			final LoadBalancer balancer = loadBalancer();
+			if ( balancer == null ) {
+				final URI location = getLocation( loc );
+				// The port may have been bound to a new location
+				prewarm( Collections.singletonList( location ) );
+				ret = getCommChannel( location, forceNew );
 			} else {
-				// Try reusing an existing channel first
-				String protocol = protocolVariablePath.getValue().strValue();
-				ret = interpreter.commCore().getPersistentChannel( uri, protocol );
-				if ( ret == null ) {
-					ret = interpreter.commCore().createCommChannel( uri, this );
-				}
+				ret = getBalancedCommChannel( balancer, forceNew );
 			}
 		}
 
@@ -246,6 +348,247 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		return ret;
 	}
 
+	/**
+	 * Returns the channel of this output port if its location is a channel,
+	 * as for embedded services, <code>null</code> otherwise.
+	 * @return the channel of this output port, or <code>null</code>
+	 */
+	public CommChannel locationChannel()
+	{
+		final Value loc = locationExpression.evaluate();
+		return loc.isChannel() ? loc.channelValue() : null;
+	}
+
+	/**
+	 * Returns how long (in milliseconds) requests for the specified operation
+	 * wait for a response, as set by parameter <code>osc.operationName.timeout</code>
+	 * or else <code>timeout</code> of the protocol configuration of this port.
+	 * @param operationName the name of the operation
+	 * @return the timeout for the operation, or 0 if requests wait indefinitely
+	 */
+	public long requestTimeout( String operationName )
+	{
+		final Value config = protocolVariablePath.getValue();
+		if ( config.hasChildren( "osc" ) ) {
+			final Value osc = config.getFirstChild( "osc" );
+			if ( osc.hasChildren( operationName ) && osc.getFirstChild( operationName ).hasChildren( "timeout" ) ) {
+				return osc.getFirstChild( operationName ).getFirstChild( "timeout" ).longValue();
+			}
+		}
+		if ( config.hasChildren( "timeout" ) ) {
+			return config.getFirstChild( "timeout" ).longValue();
+		}
+		return 0L;
+	}
+
+	/**
+	 * Opens in the background the connections requested by parameter
+	 * <code>prewarm</code> of the protocol configuration of this port,
+	 * for each of its locations, and caches them for its first requests.
+	 * Ports bound to a new location open them again for that location
+	 * when they are first used, unless the pool of persistent channels
+	 * has already opened them for another session.
+	 * @see CommChannelPool#markPrewarmed(java.net.URI, java.lang.String, jolie.net.ports.OutputPort)
+	 */
+	public void prewarm()
+	{
+		final Value loc = locationExpression.evaluate();
+		if ( loc.isChannel() || loc.strValue().isEmpty() ) {
+			return;
+		}
+		try {
+			final LoadBalancer balancer = loadBalancer();
+			if ( balancer == null ) {
+				prewarm( Collections.singletonList( getLocation( loc ) ) );
+			} else {
+				prewarm( balancer.endpoints().stream().map( LoadBalancer.Endpoint::location ).collect( Collectors.toList() ) );
+			}
+		} catch( URISyntaxException | IOException e ) {
+			interpreter.logWarning( e );
+		}
+	}
+
+	private void prewarm( List< URI > locations )
+	{
+		final Value config = protocolVariablePath.getValue();
+		if ( !config.hasChildren( PREWARM_PARAMETER ) ) {
+			return;
+		}
+		final int count = config.getFirstChild( PREWARM_PARAMETER ).intValue();
+		if ( count <= 0 ) {
+			return;
+		}
+		final String protocol = config.strValue();
+		final CommChannelPool pool = interpreter.commCore().channelPool();
+		final List< URI > coldLocations = new ArrayList<>();
+		for( URI location : locations ) {
+			try {
+				if ( pool.markPrewarmed( location, protocol, this ) ) {
+					coldLocations.add( location );
+				}
+			} catch( IOException e ) {
+				interpreter.logWarning( "Could not open connections in advance for output port " + id() + " at " + location + ": " + e.getMessage() );
+			}
+		}
+		if ( coldLocations.isEmpty() ) {
+			return;
+		}
+		// The protocol configuration is read in a copy of the state of the caller,
+		// which may go on changing it (or end) meanwhile
+		final ExecutionThread ethread = new SessionThread( NullProcess.getInstance(), ExecutionThread.currentThread() );
+		interpreter.commCore().execute( () -> {
+			ExecutionThread.setCurrentThread( ethread );
+			try {
+				for( URI location : coldLocations ) {
+					try {
+						pool.prewarm( location, protocol, this, count );
+					} catch( IOException e ) {
+						interpreter.logWarning( "Could not open connections in advance for output port " + id() + " at " + location + ": " + e.getMessage() );
+					}
+				}
+			} finally {
+				ExecutionThread.setCurrentThread( null );
+			}
+		} );
+	}
+
+	private NotificationBatcher notificationBatcher = null;
+
+	/**
+	 * Returns the batcher of the notifications of this port, if enabled by
+	 * the <code>batch</code> parameter of its protocol configuration.
+	 * @return the batcher of the notifications of this port, or <code>null</code> if they are not batched
+	 * @throws IOException if the protocol of this port does not support batches
+	 * @throws URISyntaxException if the location of this port is not a valid URI
+	 * @see NotificationBatcher
+	 */
+	public NotificationBatcher notificationBatcher()
+		throws IOException, URISyntaxException
+	{
+		final Value config = protocolVariablePath.getValue();
+		if ( !config.hasChildren( NotificationBatcher.PARAMETER ) || locationChannel() != null ) {
+			return null;
+		}
+		final Value batchConfig = config.getFirstChild( NotificationBatcher.PARAMETER );
+		if ( batchConfig.isDefined() && !batchConfig.boolValue() ) {
+			return null;
+		}
+		final NotificationBatcher ret;
+		synchronized( this ) {
+			if ( notificationBatcher == null ) {
+				if ( !getProtocol().canSendBatches() ) {
+					throw new IOException( "The protocol of output port " + id() + " does not support batches" );
+				}
+				notificationBatcher = new NotificationBatcher( this, interpreter );
+			}
+			ret = notificationBatcher;
+		}
+		ret.configure( batchConfig );
+		return ret;
+	}
+
+	private volatile NotificationCredits notificationCredits = null;
+
+	/**
+	 * Returns the credits limiting the notifications of this port, if enabled
+	 * by the <code>credits</code> parameter of its protocol configuration.
+	 * @return the credits of the notifications of this port, or <code>null</code> if they are not limited
+	 * @see NotificationCredits
+	 */
+	public NotificationCredits notificationCredits()
+	{
+		final Value config = protocolVariablePath.getValue();
+		if ( !config.hasChildren( NotificationCredits.PARAMETER ) || locationChannel() != null ) {
+			return null;
+		}
+		final int credits = config.getFirstChild( NotificationCredits.PARAMETER ).intValue();
+		if ( credits <= 0 ) {
+			return null;
+		}
+		synchronized( this ) {
+			if ( notificationCredits == null ) {
+				notificationCredits = new NotificationCredits( credits );
+			}
+			return notificationCredits;
+		}
+	}
+
+	/**
+	 * Returns the credits used by the notifications of this port so far,
+	 * without reading its protocol configuration.
+	 * @return the credits used by the notifications of this port, or <code>null</code>
+	 */
+	public NotificationCredits usedNotificationCredits()
+	{
+		return notificationCredits;
+	}
+
+	private final Map< String, RequestHedging > hedgings = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the hedging of the requests for the specified operation, as
+	 * set by parameter <code>osc.operationName.hedge</code> of the protocol
+	 * configuration of this port.
+	 * @param operationName the name of the operation
+	 * @return the hedging of the requests for the operation, or <code>null</code> if they are not hedged
+	 * @see RequestHedging
+	 */
+	public RequestHedging requestHedging( String operationName )
+	{
+		final Value config = protocolVariablePath.getValue();
+		if ( config.hasChildren( "osc" ) ) {
+			final Value osc = config.getFirstChild( "osc" );
+			if ( osc.hasChildren( operationName ) && osc.getFirstChild( operationName ).hasChildren( RequestHedging.PARAMETER ) ) {
+				final RequestHedging ret = hedgings.computeIfAbsent( operationName, RequestHedging::new );
+				ret.configure( osc.getFirstChild( operationName ).getFirstChild( RequestHedging.PARAMETER ) );
+				return ret;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the hedgings used by the requests of this port so far.
+	 * @return the hedgings used by the requests of this port
+	 */
+	public Collection< RequestHedging > requestHedgings()
+	{
+		return hedgings.values();
+	}
+
+	private final Map< String, RequestCoalescing > coalescings = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the coalescing of the requests for the specified operation, as
+	 * set by parameter <code>osc.operationName.coalesce</code> of the protocol
+	 * configuration of this port.
+	 * @param operationName the name of the operation
+	 * @return the coalescing of the requests for the operation, or <code>null</code> if they are not coalesced
+	 * @see RequestCoalescing
+	 */
+	public RequestCoalescing requestCoalescing( String operationName )
+	{
+		final Value config = protocolVariablePath.getValue();
+		if ( config.hasChildren( "osc" ) ) {
+			final Value osc = config.getFirstChild( "osc" );
+			if ( osc.hasChildren( operationName )
+				&& osc.getFirstChild( operationName ).hasChildren( RequestCoalescing.PARAMETER )
+				&& osc.getFirstChild( operationName ).getFirstChild( RequestCoalescing.PARAMETER ).boolValue() ) {
+				return coalescings.computeIfAbsent( operationName, RequestCoalescing::new );
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the coalescings used by the requests of this port so far.
+	 * @return the coalescings used by the requests of this port
+	 */
+	public Collection< RequestCoalescing > requestCoalescings()
+	{
+		return coalescings.values();
+	}
+
 	private static class LazyLocalUriHolder {
 		private LazyLocalUriHolder() {}
 		private static final URI uri = URI.create( "local" );
@@ -268,6 +611,17 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		return LocationParser.getResourcePath( getLocation( location ) );
 	}
 
+	/**
+	 * Returns the location this output port is bound to in the current session.
+	 * @return the location of this output port, or the <code>local</code> URI if it is a channel
+	 * @throws java.net.URISyntaxException
+	 */
+	public URI getLocation()
+		throws URISyntaxException
+	{
+		return getLocation( locationExpression.evaluate() );
+	}
+
 	private URI getLocation( Value location )
 		throws URISyntaxException
 	{
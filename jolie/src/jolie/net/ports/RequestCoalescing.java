@@ -0,0 +1,116 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.ports;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import jolie.net.CommMessage;
+import jolie.net.MessageKey;
+
+/**
+ * Coalescing of the requests for an operation of an output port: while a
+ * request is waiting for its response, the identical requests (same location,
+ * protocol, operation, resource path and value, see {@link MessageKey}) are not
+ * sent, but receive a copy of the response (or fault) of the request in flight.
+ * Requests to embedded services bound by channel are never coalesced. Coalescing is
+ * meant for operations without side effects, and is enabled with the
+ * <code>coalesce</code> parameter of their operation-specific protocol configuration:
+ * <pre>
+ * Protocol: sodep {
+ *	.osc.getProfile.coalesce = true
+ * }
+ * </pre>
+ */
+public class RequestCoalescing
+{
+	public static final String PARAMETER = "coalesce";
+
+	private final String operationName;
+	private final Map< MessageKey, CompletableFuture< CommMessage > > inFlight = new ConcurrentHashMap<>();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	RequestCoalescing( String operationName )
+	{
+		this.operationName = operationName;
+	}
+
+	/**
+	 * Returns the name of the operation whose requests are coalesced.
+	 * @return the name of the operation whose requests are coalesced
+	 */
+	public String operationName()
+	{
+		return operationName;
+	}
+
+	/**
+	 * Joins the flight of the requests with the specified key.
+	 * If an identical request is already in flight, the future of its
+	 * response is returned. Otherwise, the caller becomes the one sending
+	 * the request: <code>flight</code> is registered for the key and
+	 * <code>null</code> is returned. The caller must then complete
+	 * <code>flight</code> and {@link #leave(jolie.net.MessageKey, java.util.concurrent.CompletableFuture) leave}.
+	 * @param key the key of the request
+	 * @param flight the future of the response, should the caller send the request
+	 * @return the future of the response of the identical request in flight, or <code>null</code>
+	 */
+	public CompletableFuture< CommMessage > join( MessageKey key, CompletableFuture< CommMessage > flight )
+	{
+		requests.increment();
+		final CompletableFuture< CommMessage > ret = inFlight.putIfAbsent( key, flight );
+		if ( ret != null ) {
+			coalesced.increment();
+		}
+		return ret;
+	}
+
+	/**
+	 * Ends the flight of a request, so that the next identical request is sent.
+	 * @param key the key of the request
+	 * @param flight the future of the response of the request
+	 */
+	public void leave( MessageKey key, CompletableFuture< CommMessage > flight )
+	{
+		inFlight.remove( key, flight );
+	}
+
+	/**
+	 * Returns the number of requests for the operation.
+	 * @return the number of requests for the operation
+	 */
+	public long requestCount()
+	{
+		return requests.sum();
+	}
+
+	/**
+	 * Returns the number of requests that received the response of an identical request.
+	 * @return the number of coalesced requests
+	 */
+	public long coalescedCount()
+	{
+		return coalesced.sum();
+	}
+}
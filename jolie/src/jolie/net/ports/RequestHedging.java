@@ -0,0 +1,166 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net.ports;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import jolie.runtime.Value;
+
+/**
+ * Hedging of the requests for an operation of an output port: if no response
+ * arrives within a delay, a second copy of the request is sent (to the same
+ * location, or to another one if the port has a {@link LoadBalancer}) and
+ * the first response received is used. Hedging is meant for idempotent
+ * operations, and is enabled with the <code>hedge</code> parameter of their
+ * operation-specific protocol configuration:
+ * <pre>
+ * Protocol: sodep {
+ *	.osc.getProfile.hedge.percentile = 95;	// hedge after the 95th percentile of recent response times
+ *	.osc.getProfile.hedge.delay = 50;	// msecs to hedge after, until enough response times are known
+ *	.osc.getProfile.hedge.budget = 10	// maximum percentage of the requests that are hedged
+ * }
+ * </pre>
+ * Without <code>percentile</code>, requests are always hedged after
+ * <code>delay</code>. The default budget is 10%.
+ */
+public class RequestHedging
+{
+	public static final String PARAMETER = "hedge";
+	private static final int SAMPLES = 256;
+	private static final int MIN_SAMPLES = 20;
+	private static final int UPDATE_INTERVAL = 16; // samples between delay updates
+
+	private final String operationName;
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder won = new LongAdder();
+
+	private volatile double percentile = 0.0;
+	private volatile long fixedDelay = -1L;
+	private volatile double budget = 10.0;
+
+	// Guarded by this
+	private long issued = 0L;
+	private final long[] samples = new long[ SAMPLES ]; // msecs
+	private int sampleCount = 0;
+	private long percentileDelay = -1L;
+
+	RequestHedging( String operationName )
+	{
+		this.operationName = operationName;
+	}
+
+	void configure( Value config )
+	{
+		percentile = config.hasChildren( "percentile" ) ? config.getFirstChild( "percentile" ).doubleValue() : 0.0;
+		fixedDelay = config.hasChildren( "delay" ) ? config.getFirstChild( "delay" ).longValue() : -1L;
+		budget = config.hasChildren( "budget" ) ? config.getFirstChild( "budget" ).doubleValue() : 10.0;
+	}
+
+	/**
+	 * Returns the name of the operation whose requests are hedged.
+	 * @return the name of the operation whose requests are hedged
+	 */
+	public String operationName()
+	{
+		return operationName;
+	}
+
+	/**
+	 * Returns the delay (in milliseconds) after which a request being sent
+	 * is to be hedged, or -1 if it is not to be hedged.
+	 * @return the hedging delay for a new request, or -1
+	 */
+	public long nextDelay()
+	{
+		requests.increment();
+		if ( percentile > 0 ) {
+			synchronized( this ) {
+				if ( percentileDelay >= 0 ) {
+					return percentileDelay;
+				}
+			}
+		}
+		return fixedDelay;
+	}
+
+	/**
+	 * Counts a hedged request, if the budget allows it.
+	 * @return <code>true</code> if the request can be hedged, <code>false</code> otherwise
+	 */
+	public synchronized boolean tryHedge()
+	{
+		if ( issued * 100.0 >= budget * requests.sum() ) {
+			return false;
+		}
+		issued++;
+		return true;
+	}
+
+	/**
+	 * Counts a hedged request whose hedge responded first.
+	 */
+	public void hedgeWon()
+	{
+		won.increment();
+	}
+
+	/**
+	 * Records how long a request took to get its response.
+	 * @param latency the response time of the request, in nanoseconds
+	 */
+	public void addLatency( long latency )
+	{
+		if ( percentile <= 0 ) {
+			return;
+		}
+		synchronized( this ) {
+			samples[ sampleCount % SAMPLES ] = TimeUnit.NANOSECONDS.toMillis( latency );
+			sampleCount++;
+			if ( sampleCount >= MIN_SAMPLES && sampleCount % UPDATE_INTERVAL == 0 ) {
+				final long[] sorted = Arrays.copyOf( samples, Math.min( sampleCount, SAMPLES ) );
+				Arrays.sort( sorted );
+				final int i = (int) Math.ceil( Math.min( percentile, 100.0 ) / 100.0 * sorted.length ) - 1;
+				percentileDelay = sorted[ Math.max( 0, i ) ];
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of hedged requests.
+	 * @return the number of hedged requests
+	 */
+	public synchronized long issuedCount()
+	{
+		return issued;
+	}
+
+	/**
+	 * Returns the number of hedged requests whose hedge responded first.
+	 * @return the number of hedges that responded first
+	 */
+	public long wonCount()
+	{
+		return won.sum();
+	}
+}
@@ -0,0 +1,280 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.ports;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import jolie.lang.Constants;
+import jolie.net.CommMessage;
+import jolie.net.MessageKey;
+import jolie.runtime.ByteArray;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Caches the responses of a request-response operation of an input port,
+ * so that a request identical to a recent one (same value, see {@link MessageKey})
+ * is answered directly, without starting a session.
+ * Caching is meant for operations whose response depends only on their
+ * request, and is enabled with the <code>cache</code> parameter of their
+ * operation-specific protocol configuration:
+ * <pre>
+ * Protocol: sodep {
+ *	.osc.getProfile.cache.ttl = 60000;	// msecs a response is kept for
+ *	.osc.getProfile.cache.maxEntries = 1000;	// responses kept at most
+ *	.osc.getProfile.cache.maxBytes = 1048576	// estimated size of the responses kept at most
+ * }
+ * </pre>
+ * When the limits are reached, the least recently used responses are evicted.
+ * Faults are not cached. Cached responses can be invalidated with operation
+ * <code>invalidateResponseCache</code> of the Runtime service.
+ */
+public class ResponseCache
+{
+	public static final String PARAMETER = "cache";
+	private static final long DEFAULT_TTL = 60000L; // msecs
+	private static final int DEFAULT_MAX_ENTRIES = 1000;
+	private static final long DEFAULT_MAX_BYTES = 16L * 1024L * 1024L;
+
+	private static class Entry {
+		private final Value value;
+		private final long expirationTime;
+		private final long size;
+
+		private Entry( Value value, long expirationTime, long size )
+		{
+			this.value = value;
+			this.expirationTime = expirationTime;
+			this.size = size;
+		}
+	}
+
+	private final String operationName;
+	private volatile long ttl = DEFAULT_TTL;
+	private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+	private volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+	// Guarded by this, in access order for LRU eviction
+	private final LinkedHashMap< MessageKey, Entry > entries = new LinkedHashMap<>( 16, 0.75f, true );
+	private long bytes = 0L;
+
+	// The keys of the requests being served by a session, taken when they were received
+	private final Map< CommMessage, MessageKey > pending = Collections.synchronizedMap( new WeakHashMap<>() );
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	ResponseCache( String operationName )
+	{
+		this.operationName = operationName;
+	}
+
+	void configure( Value config )
+	{
+		ttl = config.hasChildren( "ttl" ) ? config.getFirstChild( "ttl" ).longValue() : DEFAULT_TTL;
+		maxEntries = config.hasChildren( "maxEntries" ) ? config.getFirstChild( "maxEntries" ).intValue() : DEFAULT_MAX_ENTRIES;
+		maxBytes = config.hasChildren( "maxBytes" ) ? config.getFirstChild( "maxBytes" ).longValue() : DEFAULT_MAX_BYTES;
+	}
+
+	/**
+	 * Returns the name of the operation whose responses are cached.
+	 * @return the name of the operation whose responses are cached
+	 */
+	public String operationName()
+	{
+		return operationName;
+	}
+
+	private static MessageKey keyOf( String operationName, Value value )
+	{
+		return new MessageKey( operationName, Constants.ROOT_RESOURCE_PATH, value );
+	}
+
+	/**
+	 * Returns the cached response for a received request, or <code>null</code>
+	 * if there is none. In that case, the request is expected to be served
+	 * by a session, which will {@link #put(jolie.net.CommMessage, jolie.net.CommMessage) put}
+	 * its response in the cache.
+	 * @param request the received request
+	 * @return the cached response value, which must not be changed, or <code>null</code>
+	 */
+	public Value get( CommMessage request )
+	{
+		final MessageKey key = keyOf( operationName, request.value() );
+		synchronized( this ) {
+			final Entry entry = entries.get( key );
+			if ( entry != null ) {
+				if ( entry.expirationTime > System.currentTimeMillis() ) {
+					hits.increment();
+					return entry.value;
+				}
+				remove( key );
+			}
+		}
+		misses.increment();
+		// The session may change the request value: the key needs a copy of it
+		pending.put( request, keyOf( operationName, Value.createDeepCopy( request.value() ) ) );
+		return null;
+	}
+
+	/**
+	 * Caches the response to a request that missed the cache.
+	 * Faults are not cached.
+	 * @param request the request, as passed to {@link #get(jolie.net.CommMessage)}
+	 * @param response the response to the request
+	 */
+	public void put( CommMessage request, CommMessage response )
+	{
+		final MessageKey key = pending.remove( request );
+		if ( key == null || response.isFault() || ttl <= 0 ) {
+			return;
+		}
+		final Value value = response.value();
+		final Entry entry = new Entry( value, System.currentTimeMillis() + ttl, sizeOf( value ) );
+		if ( entry.size > maxBytes ) {
+			return;
+		}
+		synchronized( this ) {
+			remove( key );
+			entries.put( key, entry );
+			bytes += entry.size;
+			final Iterator< Entry > it = entries.values().iterator();
+			while( it.hasNext() && ( entries.size() > maxEntries || bytes > maxBytes ) ) {
+				bytes -= it.next().size;
+				it.remove();
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Forgets about a request that will not be answered with a response.
+	 * @param request the request, as passed to {@link #get(jolie.net.CommMessage)}
+	 */
+	public void discard( CommMessage request )
+	{
+		pending.remove( request );
+	}
+
+	// Must be called while holding the lock of this
+	private void remove( MessageKey key )
+	{
+		final Entry entry = entries.remove( key );
+		if ( entry != null ) {
+			bytes -= entry.size;
+		}
+	}
+
+	/**
+	 * Removes all the cached responses.
+	 */
+	public synchronized void invalidate()
+	{
+		entries.clear();
+		bytes = 0L;
+	}
+
+	/**
+	 * Removes the cached response for the request with the specified value, if any.
+	 * @param request the value of the request
+	 */
+	public synchronized void invalidate( Value request )
+	{
+		remove( keyOf( operationName, request ) );
+	}
+
+	/**
+	 * Returns the number of requests answered from this cache.
+	 * @return the number of requests answered from this cache
+	 */
+	public long hitCount()
+	{
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of requests that were not answered from this cache.
+	 * @return the number of requests that were not answered from this cache
+	 */
+	public long missCount()
+	{
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of responses evicted to respect the limits of this cache.
+	 * @return the number of evicted responses
+	 */
+	public long evictionCount()
+	{
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the number of responses in this cache, including expired ones not removed yet.
+	 * @return the number of responses in this cache
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Returns the estimated size of the responses in this cache, in bytes.
+	 * @return the estimated size of the responses in this cache
+	 */
+	public synchronized long bytes()
+	{
+		return bytes;
+	}
+
+	/*
+	 * Estimates the memory taken by a value: a rough figure, meant only
+	 * for bounding the size of the cache.
+	 */
+	private static long sizeOf( Value value )
+	{
+		long size = 32L;
+		final Object content = value.valueObject();
+		if ( content instanceof String ) {
+			size += 2L * ((String) content).length();
+		} else if ( content instanceof ByteArray ) {
+			size += ((ByteArray) content).size();
+		} else if ( content != null ) {
+			size += 16L;
+		}
+		if ( value.hasChildren() ) {
+			for( Map.Entry< String, ValueVector > entry : value.children().entrySet() ) {
+				size += 32L + 2L * entry.getKey().length();
+				for( Value child : entry.getValue() ) {
+					size += sizeOf( child );
+				}
+			}
+		}
+		return size;
+	}
+}
@@ -22,6 +22,7 @@
 
 package jolie.net.protocols;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -216,8 +217,61 @@ public abstract class CommProtocol
 	abstract public CommMessage recv( InputStream istream, OutputStream ostream )
 		throws IOException;
 
+	/**
+	 * Receives a message from a frame found by the {@link #frameDecoder() frame decoder}
+	 * of this protocol. Since the whole message is available, protocols may
+	 * leave the parts of it that need not be read in their encoded form
+	 * (see {@link CommMessage#createEncoded(long, java.lang.String, java.lang.String, jolie.net.CommMessage.EncodedContent) createEncoded}).
+	 * @param frame the bytes of the message
+	 * @param ostream the stream for sending data back to the other end
+	 * @return the received message
+	 * @throws IOException if the frame does not contain a valid message
+	 */
+	public CommMessage recvFrame( byte[] frame, OutputStream ostream )
+		throws IOException
+	{
+		return recv( new ByteArrayInputStream( frame ), ostream );
+	}
+
 	abstract public void send( OutputStream ostream, CommMessage message, InputStream istream )
 		throws IOException;
 
 	abstract public boolean isThreadSafe();
+
+	/**
+	 * Returns the maximum number of requests that can be outstanding at the same
+	 * time on a channel using this protocol.
+	 * Protocols returning more than one allow output channels to be shared by
+	 * concurrent requests, whose responses are told apart by message identifiers.
+	 * @return the maximum number of outstanding requests on a channel using this protocol
+	 */
+	public int maxOutstandingRequests()
+	{
+		return 1;
+	}
+
+	/**
+	 * Returns <code>true</code> if this protocol can send messages carrying
+	 * batches of requests (see {@link CommMessage#createBatch(long, java.util.List)}),
+	 * and unpack them when receiving.
+	 * @return <code>true</code> if this protocol supports batches of requests
+	 */
+	public boolean canSendBatches()
+	{
+		return false;
+	}
+
+	/**
+	 * Returns a decoder for finding the messages received by the channel
+	 * of this protocol without blocking, or <code>null</code> if messages
+	 * can be found only by blocking in {@link #recv(java.io.InputStream, java.io.OutputStream) recv}.
+	 * Channels waiting for input assemble message frames while they are being
+	 * selected, so that no thread is bound to a channel that received only
+	 * part of a message. Complete frames are then passed to <code>recv</code>.
+	 * @return a new decoder for the channel of this protocol, or <code>null</code>
+	 */
+	public FrameDecoder frameDecoder()
+	{
+		return null;
+	}
 }
@@ -0,0 +1,52 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net.protocols;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A FrameDecoder finds the boundaries of the messages of a protocol in bytes
+ * that are received incrementally, without ever blocking for more input.
+ * The bytes of each complete message (its frame) can then be read by the
+ * protocol without blocking.
+ * Decoders are stateful: each instance serves a single channel.
+ */
+public interface FrameDecoder
+{
+	/**
+	 * Tries to extract a message frame from the bytes between the position
+	 * and the limit of <code>buffer</code>.
+	 * If a complete frame is available, its bytes are consumed (the
+	 * position of <code>buffer</code> is moved past them) and returned.
+	 * Otherwise, <code>null</code> is returned and the position is left
+	 * untouched: the decoder remembers how far it got, so that the next
+	 * invocation with the same (possibly compacted and extended) bytes
+	 * resumes scanning from there.
+	 * @param buffer the received bytes
+	 * @return the bytes of the next message, or <code>null</code> if more bytes are needed
+	 * @throws IOException if the received bytes are not a valid frame
+	 */
+	public byte[] nextFrame( ByteBuffer buffer )
+		throws IOException;
+}
@@ -73,6 +73,7 @@ public class InitDefinitionProcess extends DefinitionProcess
 					assert false;
 				}
 			}
+			interpreter.commCore().startListeners();
 			
 			// If an internal service, copy over the output port locations from the parent service
 			if ( interpreter.parentInterpreter() != null ) {
@@ -87,6 +88,10 @@ public class InitDefinitionProcess extends DefinitionProcess
 				}
 			}
 
+			for( OutputPort outputPort : interpreter.outputPorts() ) {
+				outputPort.prewarm();
+			}
+
 			try {
 				super.run();
 			} catch( ExitingException e ) {}
@@ -22,13 +22,18 @@
 package jolie.process;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.net.URISyntaxException;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.monitoring.events.OperationCallEvent;
+import jolie.net.CircuitBreaker;
+import jolie.net.CircuitOpenException;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
+import jolie.net.ports.NotificationBatcher;
+import jolie.net.ports.NotificationCredits;
 import jolie.net.ports.OutputPort;
 import jolie.runtime.FaultException;
 import jolie.runtime.Value;
@@ -87,6 +92,9 @@ public class NotificationProcess implements Process
 		}
 
 		CommChannel channel = null;
+		CircuitBreaker breaker = null; // set while waiting for the outcome of the request
+		NotificationCredits credits = null; // set while holding a credit for the request
+		int grant = -1;
 		try {
 			CommMessage message =
 				( outputExpression == null ) ?
@@ -102,7 +110,33 @@ public class NotificationProcess implements Process
 					throw( e );
 				}
 			}
+			final NotificationBatcher batcher = outputPort.notificationBatcher();
+			if ( batcher != null ) {
+				batcher.add( message );
+				log( "BATCHED", message );
+				if ( Interpreter.getInstance().isMonitoring() ) {
+					Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString( message.id() ), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
+				}
+				return;
+			}
+
+			final long deadline = SolicitResponseProcess.requestDeadline( outputPort, operationId );
+			if ( deadline > 0 ) {
+				if ( deadline <= System.currentTimeMillis() ) {
+					throw SolicitResponseProcess.createTimeoutFault( outputPort, operationId );
+				}
+				message.setDeadline( deadline );
+			}
+			final NotificationCredits portCredits = outputPort.notificationCredits();
+			if ( portCredits != null ) {
+				if ( !portCredits.acquire( deadline ) ) {
+					throw SolicitResponseProcess.createTimeoutFault( outputPort, operationId );
+				}
+				credits = portCredits;
+			}
+			final long startTime = System.nanoTime();
 			channel = outputPort.getCommChannel();
+			breaker = channel.circuitBreaker();
 
 			log( "SENDING", message );
 			
@@ -114,10 +148,23 @@ public class NotificationProcess implements Process
 			}
 			
 			CommMessage response = null;
-			do {
-				response = channel.recvResponseFor( message );
-			} while( response == null );
+			try {
+				do {
+					response = channel.recvResponseFor( message );
+				} while( response == null );
+			} catch( SocketTimeoutException e ) {
+				throw SolicitResponseProcess.createTimeoutFault( outputPort, operationId );
+			}
+			if ( breaker != null ) {
+				// Channel failures while waiting are received as IOException faults
+				breaker.record(
+					!response.isFault() || !Constants.IO_EXCEPTION_FAULT_NAME.equals( response.fault().faultName() ),
+					System.nanoTime() - startTime
+				);
+				breaker = null;
+			}
 			
+			grant = response.credits();
 			log( "RECEIVED ACK", response );
 			
 			if ( response.isFault() ) {
@@ -130,6 +177,8 @@ public class NotificationProcess implements Process
 					Interpreter.getInstance().logSevere( "Notification process for operation " + operationId + " received an unexpected fault: " + response.fault().faultName() );
 				}
 			}
+		} catch( CircuitOpenException e ) {
+			throw SolicitResponseProcess.createCircuitOpenFault( outputPort, operationId, e );
 		} catch( IOException e ) {
 			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
 		} catch( URISyntaxException e ) {
@@ -137,6 +186,13 @@ public class NotificationProcess implements Process
 		} catch( TypeCheckingException e ) {
 			throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
 		} finally {
+			if ( credits != null ) {
+				credits.release( grant );
+			}
+			if ( breaker != null ) {
+				// No acknowledgement has been received
+				breaker.record( false, 0L );
+			}
 			if ( channel != null ) {
 				try {
 					channel.release();
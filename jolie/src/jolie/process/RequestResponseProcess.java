@@ -31,6 +31,8 @@ import jolie.monitoring.events.OperationStartedEvent;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
 import jolie.net.SessionMessage;
+import jolie.net.ports.InputPort;
+import jolie.net.ports.ResponseCache;
 import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 import jolie.runtime.InputOperation;
@@ -185,10 +187,18 @@ public class RequestResponseProcess implements InputOperationProcess
 		FaultException fault = null;
 		CommMessage response;
 		try {
+			final ExecutionThread ethread = ExecutionThread.currentThread();
+			final long previousDeadline = ethread.deadline();
+			if ( message.deadline() > 0 ) {
+				// Requests sent while serving this one must not outlive it
+				ethread.setDeadline( message.deadline() );
+			}
 			try {
 				process.run();
-			} catch( ExitingException e ) {}
-			ExecutionThread ethread = ExecutionThread.currentThread();
+			} catch( ExitingException e ) {
+			} finally {
+				ethread.setDeadline( previousDeadline );
+			}
 			if ( ethread.isKilled() ) {
 				try {
 					response = createFaultMessage( message, ethread.killerFault() );
@@ -235,6 +245,13 @@ public class RequestResponseProcess implements InputOperationProcess
 
 		try {
 			channel.send( response );
+			final InputPort port = channel.parentInputPort();
+			if ( port != null ) {
+				final ResponseCache cache = port.usedResponseCache( operation.id() );
+				if ( cache != null ) {
+					cache.put( message, response );
+				}
+			}
 			Value monitorValue;
 			if ( response.isFault() ) {
 				log( "SENT FAULT", response );					
@@ -22,23 +22,38 @@
 package jolie.process;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.monitoring.events.OperationCallEvent;
 import jolie.monitoring.events.OperationReplyEvent;
+import jolie.net.AbstractCommChannel;
+import jolie.net.CircuitBreaker;
+import jolie.net.CircuitOpenException;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
+import jolie.net.MessageKey;
 import jolie.net.ports.OutputPort;
+import jolie.net.ports.RequestCoalescing;
+import jolie.net.ports.RequestHedging;
 import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
+import jolie.runtime.InvalidIdException;
+import jolie.runtime.JavaService;
 import jolie.runtime.Value;
 import jolie.runtime.VariablePath;
+import jolie.runtime.embedding.JavaCommChannel;
 import jolie.runtime.expression.Expression;
 import jolie.runtime.typing.RequestResponseTypeDescription;
 import jolie.runtime.typing.Type;
 import jolie.runtime.typing.TypeCheckingException;
+import jolie.tracer.DummyTracer;
 import jolie.tracer.MessageTraceAction;
 import jolie.tracer.Tracer;
 
@@ -90,21 +105,402 @@ public class SolicitResponseProcess implements Process
 		) );
 	}
 
+	/*
+	 * Returns the time by which the response to a request must be received:
+	 * the earliest between the expiration of the request timeout set for the
+	 * operation in the output port and the deadline of the request being
+	 * served by the current thread. Returns 0 if there is no deadline.
+	 */
+	static long requestDeadline( OutputPort outputPort, String operationId )
+	{
+		long deadline = ExecutionThread.currentThread().deadline();
+		final long timeout = outputPort.requestTimeout( operationId );
+		if ( timeout > 0 ) {
+			final long portDeadline = System.currentTimeMillis() + timeout;
+			if ( deadline == 0 || portDeadline < deadline ) {
+				deadline = portDeadline;
+			}
+		}
+		return deadline;
+	}
+
+	static FaultException createTimeoutFault( OutputPort outputPort, String operationId )
+	{
+		final Value value = Value.create( "No response received before the deadline (" + operationId + "@" + outputPort.id() + ")" );
+		value.setFirstChild( "operation", operationId );
+		value.setFirstChild( "outputPort", outputPort.id() );
+		return new FaultException( Constants.TIMEOUT_FAULT_NAME, value );
+	}
+
+	static FaultException createCircuitOpenFault( OutputPort outputPort, String operationId, CircuitOpenException e )
+	{
+		final Value value = Value.create( e.getMessage() + " (" + operationId + "@" + outputPort.id() + ")" );
+		value.setFirstChild( "operation", operationId );
+		value.setFirstChild( "outputPort", outputPort.id() );
+		value.setFirstChild( "location", e.location().toString() );
+		value.setFirstChild( "retryAfter", e.retryAfter() );
+		return new FaultException( Constants.CIRCUIT_OPEN_FAULT_NAME, value );
+	}
+
+	/*
+	 * Calls an embedded JavaService in this thread. Monitoring and tracing
+	 * need the exchanged messages, so they are not supported here.
+	 */
+	private void runJavaService( JavaService javaService )
+		throws FaultException
+	{
+		try {
+			final Value request = ( outputExpression == null ) ? Value.UNDEFINED_VALUE : outputExpression.evaluate();
+			if ( types.requestType() != null ) {
+				types.requestType().check( request );
+			}
+
+			final Value response;
+			try {
+				response = javaService.callRequestResponse( operationId, request );
+			} catch( FaultException fault ) {
+				if ( inputVarPath != null ) {
+					inputVarPath.setValue( Value.create() );
+				}
+				final Type faultType = types.getFaultType( fault.faultName() );
+				if ( faultType != null ) {
+					try {
+						faultType.check( fault.value() );
+					} catch( TypeCheckingException e ) {
+						throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Received fault " + fault.faultName() + " TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
+					}
+				}
+				throw fault;
+			}
+
+			if ( inputVarPath != null ) {
+				inputVarPath.setValue( response );
+			}
+			if ( types.responseType() != null ) {
+				try {
+					types.responseType().check( response );
+				} catch( TypeCheckingException e ) {
+					throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Received message TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
+				}
+			}
+
+			try {
+				installProcess.run();
+			} catch( ExitingException e ) { assert false; }
+		} catch( InvalidIdException | IllegalAccessException e ) {
+			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, new IOException( e ) );
+		} catch( TypeCheckingException e ) {
+			throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Output message TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
+		}
+	}
+
+	private static boolean isIOExceptionFault( CommMessage response )
+	{
+		return response.isFault() && Constants.IO_EXCEPTION_FAULT_NAME.equals( response.fault().faultName() );
+	}
+
+	/*
+	 * Returns true if future is not completed within delay msecs,
+	 * or before the deadline of the request if that comes first.
+	 */
+	private static boolean isPendingAfter( CompletableFuture< CommMessage > future, long delay, long deadline )
+	{
+		final long wait = ( deadline > 0 ) ? Math.min( delay, deadline - System.currentTimeMillis() ) : delay;
+		try {
+			if ( wait > 0 ) {
+				future.get( wait, TimeUnit.MILLISECONDS );
+			}
+		} catch( TimeoutException e ) {
+		} catch( InterruptedException | ExecutionException e ) {
+			return false;
+		}
+		return !future.isDone() && ( deadline == 0 || System.currentTimeMillis() < deadline );
+	}
+
+	private static void discardResponseFor( AbstractCommChannel channel, CommMessage request, CompletableFuture< CommMessage > future )
+	{
+		try {
+			channel.discardResponseFor( request, future );
+		} catch( IOException e ) {
+			Interpreter.getInstance().logFine( e );
+		}
+	}
+
+	/*
+	 * Sends a copy of request through a channel of the output port,
+	 * which may lead to another location. Returns null if that fails.
+	 */
+	private AbstractCommChannel sendHedge( CommMessage request )
+	{
+		CommChannel channel = null;
+		try {
+			channel = outputPort.getCommChannel();
+			if ( channel instanceof AbstractCommChannel ) {
+				channel.send( request );
+				log( "SENT HEDGE", request );
+				return (AbstractCommChannel) channel;
+			}
+		} catch( IOException | URISyntaxException e ) {
+			Interpreter.getInstance().logFine( e );
+		}
+		if ( channel != null ) {
+			try {
+				channel.release();
+			} catch( IOException e ) {
+				Interpreter.getInstance().logWarning( e );
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Waits for the response to request, sending a copy of it if no response
+	 * arrives within the hedging delay. The first response received is used
+	 * and the other one is discarded, unless the first is an IOException fault.
+	 */
+	private CommMessage recvHedgedResponse( RequestHedging hedging, AbstractCommChannel channel, CommMessage request )
+		throws IOException
+	{
+		final long delay = hedging.nextDelay();
+		final CompletableFuture< CommMessage > future = channel.responseFor( request );
+		if ( delay < 0 || !isPendingAfter( future, delay, request.deadline() ) || !hedging.tryHedge() ) {
+			return channel.awaitResponse( request, future );
+		}
+
+		final CommMessage hedgeRequest = new CommMessage(
+			CommMessage.getNewMessageId(),
+			request.operationName(),
+			request.resourcePath(),
+			request.value(),
+			null
+		);
+		hedgeRequest.setDeadline( request.deadline() );
+		final long hedgeTime = System.nanoTime();
+		final AbstractCommChannel hedgeChannel = sendHedge( hedgeRequest );
+		if ( hedgeChannel == null ) {
+			return channel.awaitResponse( request, future );
+		}
+
+		final CompletableFuture< CommMessage > hedgeFuture = hedgeChannel.responseFor( hedgeRequest );
+		try {
+			try {
+				final CompletableFuture< Object > first = CompletableFuture.anyOf( future, hedgeFuture );
+				if ( request.deadline() > 0 ) {
+					first.get( request.deadline() - System.currentTimeMillis(), TimeUnit.MILLISECONDS );
+				} else {
+					first.get();
+				}
+			} catch( TimeoutException e ) {
+				discardResponseFor( channel, request, future );
+				discardResponseFor( hedgeChannel, hedgeRequest, hedgeFuture );
+				throw new SocketTimeoutException( "No response received for operation " + request.operationName() + " before its deadline" );
+			} catch( InterruptedException | ExecutionException e ) {
+				throw new IOException( e );
+			}
+
+			final CommMessage response = future.getNow( null );
+			final CommMessage hedgeResponse = hedgeFuture.getNow( null );
+			if ( response != null && ( !isIOExceptionFault( response ) || hedgeResponse != null ) ) {
+				if ( hedgeResponse == null ) {
+					discardResponseFor( hedgeChannel, hedgeRequest, hedgeFuture );
+				}
+				return response;
+			} else if ( hedgeResponse != null && !isIOExceptionFault( hedgeResponse ) ) {
+				discardResponseFor( channel, request, future );
+				hedging.hedgeWon();
+				return hedgeResponse;
+			} else if ( response != null ) {
+				// The original request failed, the hedge is the only one left
+				hedging.hedgeWon();
+				return hedgeChannel.awaitResponse( hedgeRequest, hedgeFuture );
+			} else {
+				// The hedge failed, the original request is the only one left
+				return channel.awaitResponse( request, future );
+			}
+		} finally {
+			final CircuitBreaker hedgeBreaker = hedgeChannel.circuitBreaker();
+			if ( hedgeBreaker != null && hedgeFuture.isDone() ) {
+				hedgeBreaker.record( !isIOExceptionFault( hedgeFuture.getNow( null ) ), System.nanoTime() - hedgeTime );
+			}
+			try {
+				hedgeChannel.release();
+			} catch( IOException e ) {
+				Interpreter.getInstance().logWarning( e );
+			}
+		}
+	}
+
+	/*
+	 * Sends request through a channel of the output port and receives its response.
+	 */
+	private CommMessage sendRequest( CommMessage message )
+		throws IOException, URISyntaxException, FaultException
+	{
+		CommChannel channel = null;
+		CircuitBreaker breaker = null; // set while waiting for the outcome of the request
+		try {
+			final long startTime = System.nanoTime();
+			channel = outputPort.getCommChannel();
+			breaker = channel.circuitBreaker();
+			channel.send( message );
+			//channel.release(); TODO release channel if possible (i.e. it will not be closed)
+			log( "SENT", message );
+			if ( Interpreter.getInstance().isMonitoring() ) {
+				Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString ( message.id() ), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
+			}
+
+			final RequestHedging hedging = outputPort.requestHedging( operationId );
+			CommMessage response = null;
+			try {
+				if ( hedging != null && channel instanceof AbstractCommChannel ) {
+					response = recvHedgedResponse( hedging, (AbstractCommChannel) channel, message );
+					hedging.addLatency( System.nanoTime() - startTime );
+				} else {
+					do {
+						response = channel.recvResponseFor( message );
+					} while( response == null );
+				}
+			} catch( SocketTimeoutException e ) {
+				throw createTimeoutFault( outputPort, operationId );
+			}
+			if ( breaker != null ) {
+				// Channel failures while waiting are received as IOException faults
+				breaker.record(
+					!response.isFault() || !Constants.IO_EXCEPTION_FAULT_NAME.equals( response.fault().faultName() ),
+					System.nanoTime() - startTime
+				);
+				breaker = null;
+			}
+			return response;
+		} finally {
+			if ( breaker != null ) {
+				// No response has been received
+				breaker.record( false, 0L );
+			}
+			if ( channel != null ) {
+				try {
+					channel.release();
+				} catch( IOException e ) {
+					Interpreter.getInstance().logWarning( e );
+				}
+			}
+		}
+	}
+
+	/*
+	 * Sends request, unless an identical request is in flight: in that case,
+	 * waits for the response to the latter and returns a copy of it.
+	 * The outcome of a sent request, be it a response or an exception,
+	 * is shared with the identical requests that joined its flight meanwhile.
+	 * Sessions may bind the port to different locations and protocols, so
+	 * these are part of what makes two requests identical.
+	 */
+	private CommMessage sendCoalescedRequest( RequestCoalescing coalescing, CommMessage request )
+		throws IOException, URISyntaxException, FaultException
+	{
+		final MessageKey key = new MessageKey(
+			outputPort.getLocation(),
+			outputPort.protocolConfigurationPath().getValue().strValue(),
+			request
+		);
+		final CompletableFuture< CommMessage > flight = new CompletableFuture<>();
+		final CompletableFuture< CommMessage > leader = coalescing.join( key, flight );
+		if ( leader != null ) {
+			log( "COALESCED", request );
+			return awaitCoalescedResponse( leader, request );
+		}
+
+		try {
+			final CommMessage response = sendRequest( request );
+			flight.complete( response );
+			return copyResponse( response, request );
+		} catch( Throwable t ) {
+			flight.completeExceptionally( t );
+			throw t;
+		} finally {
+			coalescing.leave( key, flight );
+		}
+	}
+
+	private CommMessage awaitCoalescedResponse( CompletableFuture< CommMessage > leader, CommMessage request )
+		throws IOException, URISyntaxException, FaultException
+	{
+		final CommMessage response;
+		try {
+			if ( request.deadline() > 0 ) {
+				response = leader.get( request.deadline() - System.currentTimeMillis(), TimeUnit.MILLISECONDS );
+			} else {
+				response = leader.get();
+			}
+		} catch( TimeoutException e ) {
+			throw createTimeoutFault( outputPort, operationId );
+		} catch( InterruptedException e ) {
+			throw new IOException( e );
+		} catch( ExecutionException e ) {
+			final Throwable cause = e.getCause();
+			if ( cause instanceof FaultException ) {
+				final FaultException fault = (FaultException) cause;
+				throw new FaultException( fault.faultName(), Value.createDeepCopy( fault.value() ) );
+			} else if ( cause instanceof IOException ) {
+				throw (IOException) cause;
+			} else if ( cause instanceof URISyntaxException ) {
+				throw (URISyntaxException) cause;
+			} else if ( cause instanceof RuntimeException ) {
+				throw (RuntimeException) cause;
+			} else if ( cause instanceof Error ) {
+				throw (Error) cause;
+			}
+			throw new IOException( cause );
+		}
+
+		return copyResponse( response, request );
+	}
+
+	/*
+	 * Copies the response shared by coalesced requests: sessions may change
+	 * what they receive, so each one gets its own copy.
+	 */
+	private static CommMessage copyResponse( CommMessage response, CommMessage request )
+	{
+		final FaultException fault = response.fault();
+		return new CommMessage(
+			request.id(),
+			response.operationName(),
+			response.resourcePath(),
+			Value.createDeepCopy( response.value() ),
+			( fault == null ) ? null : new FaultException( fault.faultName(), Value.createDeepCopy( fault.value() ) )
+		);
+	}
+
 	public void run()
 		throws FaultException
 	{
 		if ( ExecutionThread.currentThread().isKilled() ) {
 			return;
 		}
-		CommChannel channel = null;
-		try {
 
+		final Interpreter interpreter = Interpreter.getInstance();
+		final CommChannel locationChannel = outputPort.locationChannel();
+		if ( locationChannel instanceof JavaCommChannel
+			&& !interpreter.isMonitoring() && interpreter.tracer() instanceof DummyTracer ) {
+			runJavaService( ((JavaCommChannel)locationChannel).javaService() );
+			return;
+		}
+
+		try {
 			CommMessage message =
 				CommMessage.createRequest(
 					operationId,
 					outputPort.getResourcePath(),
 					( outputExpression == null ) ? Value.UNDEFINED_VALUE : outputExpression.evaluate()
 				);
+			final long deadline = requestDeadline( outputPort, operationId );
+			if ( deadline > 0 ) {
+				if ( deadline <= System.currentTimeMillis() ) {
+					throw createTimeoutFault( outputPort, operationId );
+				}
+				message.setDeadline( deadline );
+			}
 
 			log( "SENDING", message );
 			if ( types.requestType() != null ) {
@@ -119,18 +515,9 @@ public class SolicitResponseProcess implements Process
 				}
 			}
 
-			channel = outputPort.getCommChannel();
-			channel.send( message );
-			//channel.release(); TODO release channel if possible (i.e. it will not be closed)
-			log( "SENT", message );
-			if ( Interpreter.getInstance().isMonitoring() ) {
-				Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString ( message.id() ), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
-			}
-
-			CommMessage response = null;
-			do {
-				response = channel.recvResponseFor( message );
-			} while( response == null );
+			// Channel locations cannot be told apart by their URI: their requests are not coalesced
+			final RequestCoalescing coalescing = ( locationChannel == null ) ? outputPort.requestCoalescing( operationId ) : null;
+			final CommMessage response = ( coalescing == null ) ? sendRequest( message ) : sendCoalescedRequest( coalescing, message );
 			log( "RECEIVED", response );
 
 			if ( inputVarPath != null )	 {
@@ -180,20 +567,14 @@ public class SolicitResponseProcess implements Process
 			try {
 				installProcess.run();
 			} catch( ExitingException e ) { assert false; }
+		} catch( CircuitOpenException e ) {
+			throw createCircuitOpenFault( outputPort, operationId, e );
 		} catch( IOException e ) {
 			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
 		} catch( URISyntaxException e ) {
 			Interpreter.getInstance().logSevere( e );
 		} catch( TypeCheckingException e ) {
 			throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Output message TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
-		} finally {
-			if ( channel != null ) {
-				try {
-					channel.release();
-				} catch( IOException e ) {
-					Interpreter.getInstance().logWarning( e );
-				}
-			}
 		}
 	}
 
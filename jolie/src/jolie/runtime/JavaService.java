@@ -56,17 +56,20 @@ public abstract class JavaService
 		private final Method parameterConstructor;
 		private final Method returnValueConstructor;
 		private final JavaOperationCallable callable;
+		private final boolean isRequestResponse;
 
 		private JavaOperation(
 				Method method,
 				Method parameterConstructor,
 				Method returnValueConstructor,
-				JavaOperationCallable callable
+				JavaOperationCallable callable,
+				boolean isRequestResponse
 		) {
 			this.method = method;
 			this.parameterConstructor = parameterConstructor;
 			this.returnValueConstructor = returnValueConstructor;
 			this.callable = callable;
+			this.isRequestResponse = isRequestResponse;
 		}
 	}
 
@@ -224,7 +227,14 @@ public abstract class JavaService
 	private static CommMessage oneWayCallable( JavaService javaService, JavaOperation javaOperation, CommMessage message )
 		throws IllegalAccessException
 	{
-		final Object[] args = getArguments( javaOperation, message );
+		runOneWay( javaService, javaOperation, message.value() );
+		return CommMessage.createEmptyResponse( message );
+	}
+
+	private static void runOneWay( JavaService javaService, JavaOperation javaOperation, Value value )
+		throws IllegalAccessException
+	{
+		final Object[] args = getArguments( javaOperation, value );
 		javaService.interpreter.execute( () -> {
 			try {
 				javaOperation.method.invoke( javaService, args );
@@ -233,29 +243,36 @@ public abstract class JavaService
 				javaService.interpreter.logSevere( e );
 			}
 		} );
-		return CommMessage.createEmptyResponse( message );
 	}
 	
 	private static CommMessage requestResponseCallable( JavaService javaService, JavaOperation javaOperation, CommMessage message )
 		throws IllegalAccessException
 	{
-		final Object[] args = getArguments( javaOperation, message );
+		try {
+			return CommMessage.createResponse( message, runRequestResponse( javaService, javaOperation, message.value() ) );
+		} catch( FaultException fault ) {
+			return CommMessage.createFaultResponse(
+				message,
+				fault
+			);
+		}
+	}
+
+	private static Value runRequestResponse( JavaService javaService, JavaOperation javaOperation, Value value )
+		throws IllegalAccessException, FaultException
+	{
+		final Object[] args = getArguments( javaOperation, value );
 		try {
 			final Object retObject = javaOperation.method.invoke( javaService, args );
 			if ( retObject == null ) {
-				return CommMessage.createEmptyResponse( message );
+				return Value.create();
 			} else {
-				return CommMessage.createResponse( message, (Value)javaOperation.returnValueConstructor.invoke( null, retObject ) );
+				return (Value)javaOperation.returnValueConstructor.invoke( null, retObject );
 			}
 		} catch( InvocationTargetException e ) {
-			final FaultException fault =
-				( e.getCause() instanceof FaultException )
+			throw ( e.getCause() instanceof FaultException )
 				? (FaultException)e.getCause()
 				: new FaultException( e.getCause() );
-			return CommMessage.createFaultResponse(
-				message,
-				fault
-			);
 		}
 	}
 
@@ -276,7 +293,8 @@ public abstract class JavaService
 						method,
 						parameterConstructor,
 						null,
-						JavaService::requestResponseCallable
+						JavaService::requestResponseCallable,
+						true
 					)
 				);
 			} else if ( exceptions.length == 0 ) {
@@ -286,7 +304,8 @@ public abstract class JavaService
 						method,
 						parameterConstructor,
 						null,
-						JavaService::oneWayCallable
+						JavaService::oneWayCallable,
+						false
 					)
 				);
 			}
@@ -304,7 +323,8 @@ public abstract class JavaService
 							method,
 							parameterConstructor,
 							returnValueConstructor,
-							JavaService::requestResponseCallable
+							JavaService::requestResponseCallable,
+							true
 						)
 					);
 				}
@@ -312,14 +332,14 @@ public abstract class JavaService
 		}
 	}
 
-	private static Object[] getArguments( final JavaOperation javaOperation, final CommMessage message )
+	private static Object[] getArguments( final JavaOperation javaOperation, final Value value )
 		throws IllegalAccessException
 	{
 		if ( javaOperation.parameterConstructor == null ) {
 			return new Object[0];
 		} else {
 			try {
-				return new Object[] { javaOperation.parameterConstructor.invoke( null, message.value() ) };
+				return new Object[] { javaOperation.parameterConstructor.invoke( null, value ) };
 			} catch( InvocationTargetException e ) {
 				throw new IllegalAccessException( e.getMessage() );
 			}
@@ -336,6 +356,35 @@ public abstract class JavaService
 
 		return javaOperation.callable.call( this, javaOperation, message );
 	}
+
+	/**
+	 * Invokes an operation of this service in the calling thread, waiting for
+	 * its response. As for {@link #callOperation(jolie.net.CommMessage) callOperation},
+	 * one-way operations are started asynchronously and get an empty response.
+	 * Request and response values are copied, as they would be by messages,
+	 * so that neither side sees later changes made by the other.
+	 * @param operationName the name of the operation to invoke
+	 * @param value the request value
+	 * @return the response value
+	 * @throws InvalidIdException if this service has no such operation
+	 * @throws IllegalAccessException if the request value could not be converted
+	 * @throws FaultException if the operation throws a fault
+	 */
+	public Value callRequestResponse( String operationName, Value value )
+		throws InvalidIdException, IllegalAccessException, FaultException
+	{
+		final JavaOperation javaOperation = operations.get( operationName );
+		if ( javaOperation == null ) {
+			throw new InvalidIdException( operationName );
+		}
+
+		final Value request = Value.createDeepCopy( value );
+		if ( javaOperation.isRequestResponse ) {
+			return Value.createDeepCopy( runRequestResponse( this, javaOperation, request ) );
+		}
+		runOneWay( this, javaOperation, request );
+		return Value.create();
+	}
 	
 	public final void setInterpreter( Interpreter interpreter )
 	{
@@ -24,6 +24,9 @@ package jolie.runtime;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import jolie.ExecutionThread;
 import jolie.TransparentExecutionThread;
 import jolie.process.Process;
@@ -54,6 +57,9 @@ public class ParallelExecution
 	final private Collection< ParallelThread > threads = new HashSet< ParallelThread >();
 	private FaultException fault = null;
 	private boolean isKilled = false;
+	// Not a monitor: waiting on one would pin the carrier of a virtual thread
+	private final Lock lock = new ReentrantLock();
+	private final Condition condition = lock.newCondition();
 
 	public ParallelExecution( Process[] procs )
 	{
@@ -65,7 +71,8 @@ public class ParallelExecution
 	public void run()
 		throws FaultException
 	{
-		synchronized( this ) {
+		lock.lock();
+		try {
 			for( ParallelThread t : threads ) {
 				t.start();
 			}
@@ -75,19 +82,17 @@ public class ParallelExecution
 				ethread = ExecutionThread.currentThread();
 				try {
 					ethread.setCanBeInterrupted( true );
-					wait();
+					condition.await();
 					ethread.setCanBeInterrupted( false );
 				} catch( InterruptedException e ) {
-					synchronized( this ) {
-						if ( ethread.isKilled() && !threads.isEmpty() ) {
-							isKilled = true;
-							for( ParallelThread t : threads ) {
-								t.kill( ethread.killerFault() );
-							}
-							try {
-								wait();
-							} catch( InterruptedException ie ) {}
+					if ( ethread.isKilled() && !threads.isEmpty() ) {
+						isKilled = true;
+						for( ParallelThread t : threads ) {
+							t.kill( ethread.killerFault() );
 						}
+						try {
+							condition.await();
+						} catch( InterruptedException ie ) {}
 					}
 				}
 			}
@@ -98,42 +103,50 @@ public class ParallelExecution
 				}
 				while ( !threads.isEmpty() ) {
 					try {
-						wait();
+						condition.await();
 					} catch( InterruptedException e ) {}
 				}
 				throw fault;
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
 	private void terminationNotify( ParallelThread thread )
 	{
-		synchronized( this ) {
+		lock.lock();
+		try {
 			threads.remove( thread );
 			
 			if ( threads.isEmpty() ) {
-				notify();
+				condition.signal();
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
 		
 	private void signalFault( ParallelThread thread, FaultException f )
 	{
-		synchronized( this ) {
+		lock.lock();
+		try {
 			threads.remove( thread );
 			if ( isKilled ) {
 				if ( threads.isEmpty() ) {
-					notify();
+					condition.signal();
 				}
 			} else {
 				if ( fault == null ) {
 					fault = f;
-					notify();
+					condition.signal();
 				} else if ( threads.isEmpty() ) {
-					notify();
+					condition.signal();
 				}
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -21,9 +21,9 @@
 
 package jolie.runtime;
 
-import java.lang.ref.WeakReference;
-
 /**
+ * A task to be run when a timeout expires, unless it is cancelled before.
+ * @see TimeoutWheel
  * @author Fabrizio Montesi
  */
 public abstract class TimeoutHandler implements Runnable
@@ -31,6 +31,12 @@ public abstract class TimeoutHandler implements Runnable
 	private final long time;
 	private volatile boolean cancelled = false;
 
+	// Managed by TimeoutWheel under the lock of the shard
+	volatile TimeoutWheel.Shard shard = null;
+	TimeoutHandler prev = null;
+	TimeoutHandler next = null;
+	long tick;
+
 	public TimeoutHandler( long timeout )
 	{
 		this.time = System.currentTimeMillis() + timeout;
@@ -44,6 +50,10 @@ public abstract class TimeoutHandler implements Runnable
 	public void cancel()
 	{
 		cancelled = true;
+		final TimeoutWheel.Shard s = shard;
+		if ( s != null ) {
+			s.remove( this );
+		}
 	}
 	
 	public void run()
@@ -54,32 +64,4 @@ public abstract class TimeoutHandler implements Runnable
 	}
 
 	protected abstract void onTimeout();
-
-	/**
-	 * Note: this comparator imposes orderings that are inconsistent with equals.
-	 */
-	public static class Comparator implements java.util.Comparator< WeakReference< TimeoutHandler > >
-	{
-		@Override
-		public int compare( WeakReference< TimeoutHandler > wt1, WeakReference< TimeoutHandler > wt2 )
-		{
-			TimeoutHandler t1 = ( wt1 != null ) ? wt1.get() : null;
-			TimeoutHandler t2 = ( wt2 != null ) ? wt2.get() : null;
-			if ( t1 == null ) {
-				return -1;
-			} else if ( t2 == null ) {
-				return 1;
-			}
-			
-			// Both are not null after this
-
-			if ( t1.time < t2.time ) {
-				return -1;
-			} else if ( t1.time == t2.time ) {
-				return 0;
-			} else {
-				return 1;
-			}
-		}
-	}
 }
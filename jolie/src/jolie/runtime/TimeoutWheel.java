@@ -0,0 +1,338 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by the Jolie contributors                          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel for {@link TimeoutHandler} objects.
+ *
+ * Handlers are hashed by their expiration tick into the buckets of a wheel,
+ * so that adding and cancelling a handler take constant time. The wheel is
+ * split in shards, each with its own lock, and each thread adds its handlers
+ * to the shard chosen by its identifier, so that threads do not contend for
+ * a single lock. A {@link Ticker} thread, which may be shared by several
+ * wheels, advances all the shards every {@link #TICK_DURATION} milliseconds and passes expired handlers to an
+ * executor; it sleeps while no handler is pending.
+ *
+ * Handlers expire at most one tick after their expiration time.
+ */
+public class TimeoutWheel
+{
+	/**
+	 * The duration of a tick, in milliseconds.
+	 */
+	public static final long TICK_DURATION = 10;
+
+	private static final int WHEEL_SIZE = 512; // Must be a power of 2
+
+	static class Shard
+	{
+		private final TimeoutHandler[] buckets = new TimeoutHandler[ WHEEL_SIZE ];
+		private long lastTick = 0;
+		private volatile int size = 0;
+
+		private synchronized void add( TimeoutHandler handler, long tick )
+		{
+			handler.tick = Math.max( tick, lastTick + 1 );
+			final int index = (int) ( handler.tick & ( WHEEL_SIZE - 1 ) );
+			handler.shard = this;
+			handler.prev = null;
+			handler.next = buckets[ index ];
+			if ( handler.next != null ) {
+				handler.next.prev = handler;
+			}
+			buckets[ index ] = handler;
+			size++;
+		}
+
+		synchronized void remove( TimeoutHandler handler )
+		{
+			if ( handler.shard != this ) {
+				return; // Already expired
+			}
+			unlink( handler );
+		}
+
+		private void unlink( TimeoutHandler handler )
+		{
+			if ( handler.prev == null ) {
+				buckets[ (int) ( handler.tick & ( WHEEL_SIZE - 1 ) ) ] = handler.next;
+			} else {
+				handler.prev.next = handler.next;
+			}
+			if ( handler.next != null ) {
+				handler.next.prev = handler.prev;
+			}
+			handler.shard = null;
+			handler.prev = null;
+			handler.next = null;
+			size--;
+		}
+
+		private synchronized void advance( long tick, Executor executor )
+		{
+			if ( tick - lastTick >= WHEEL_SIZE ) {
+				for( int i = 0; i < WHEEL_SIZE; i++ ) {
+					expire( i, tick, executor );
+				}
+			} else {
+				for( long t = lastTick + 1; t <= tick; t++ ) {
+					expire( (int) ( t & ( WHEEL_SIZE - 1 ) ), tick, executor );
+				}
+			}
+			lastTick = tick;
+		}
+
+		private void expire( int index, long tick, Executor executor )
+		{
+			TimeoutHandler handler = buckets[ index ];
+			while( handler != null ) {
+				final TimeoutHandler next = handler.next;
+				if ( handler.tick <= tick ) {
+					unlink( handler );
+					executor.execute( handler );
+				}
+				handler = next;
+			}
+		}
+
+		private synchronized boolean take( TimeoutHandler handler )
+		{
+			if ( handler.shard != this ) {
+				return false; // Expired by TimeoutWheel.stop()
+			}
+			unlink( handler );
+			return true;
+		}
+
+		private synchronized List< TimeoutHandler > takeAll()
+		{
+			final List< TimeoutHandler > handlers = new ArrayList< TimeoutHandler >( size );
+			for( int i = 0; i < WHEEL_SIZE; i++ ) {
+				while( buckets[ i ] != null ) {
+					final TimeoutHandler handler = buckets[ i ];
+					unlink( handler );
+					handlers.add( handler );
+				}
+			}
+			return handlers;
+		}
+	}
+
+	/**
+	 * The thread advancing one or more wheels, for example those of the
+	 * interpreters sharing a {@link jolie.SharedRuntime}. All the wheels of a
+	 * ticker count their ticks from its start time, so that they expire
+	 * their handlers together.
+	 */
+	public static class Ticker
+	{
+		private final Set< TimeoutWheel > wheels = ConcurrentHashMap.newKeySet();
+		private final long startTime = System.currentTimeMillis();
+		private volatile Thread thread = null;
+		private volatile boolean idle = false;
+		private volatile boolean stopped = false;
+
+		/**
+		 * Starts the thread of this ticker, if it has not been started yet.
+		 * @param threadFactory the factory of the thread of this ticker
+		 */
+		public synchronized void start( ThreadFactory threadFactory )
+		{
+			if ( thread == null ) {
+				final Thread t = threadFactory.newThread( this::tick );
+				t.setName( t.getName() + "-TimeoutWheel" );
+				t.setDaemon( true );
+				thread = t;
+				t.start();
+			}
+		}
+
+		public void stop()
+		{
+			stopped = true;
+			LockSupport.unpark( thread );
+		}
+
+		private void wakeUp()
+		{
+			if ( idle ) {
+				idle = false;
+				LockSupport.unpark( thread );
+			}
+		}
+
+		private int pendingCount()
+		{
+			int count = 0;
+			for( TimeoutWheel wheel : wheels ) {
+				count += wheel.pendingCount();
+			}
+			return count;
+		}
+
+		private void tick()
+		{
+			long tick = 0;
+			while( !stopped ) {
+				idle = true;
+				if ( pendingCount() == 0 ) {
+					LockSupport.park( this );
+					continue;
+				}
+				idle = false;
+
+				final long sleepTime = startTime + ( tick + 1 ) * TICK_DURATION - System.currentTimeMillis();
+				if ( sleepTime > 0 ) {
+					LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( sleepTime ) );
+					if ( startTime + ( tick + 1 ) * TICK_DURATION > System.currentTimeMillis() ) {
+						continue; // Woken up before time
+					}
+				}
+				tick = ( System.currentTimeMillis() - startTime ) / TICK_DURATION;
+				for( TimeoutWheel wheel : wheels ) {
+					try {
+						for( Shard shard : wheel.shards ) {
+							shard.advance( tick, wheel.executor );
+						}
+					} catch( RejectedExecutionException e ) {
+						// The owner of the wheel is shutting down
+					}
+				}
+			}
+		}
+	}
+
+	private final Shard[] shards;
+	private final Executor executor;
+	private final Ticker ticker;
+	private final boolean ownsTicker;
+	private volatile boolean stopped = false;
+
+	/**
+	 * Creates a wheel with its own ticker, which is started by {@link #start(java.util.concurrent.ThreadFactory)}.
+	 * @param executor the executor running the expired handlers
+	 */
+	public TimeoutWheel( Executor executor )
+	{
+		this( executor, new Ticker(), true );
+	}
+
+	/**
+	 * Creates a wheel advanced by the given ticker, which is started and
+	 * stopped by its owner.
+	 * @param executor the executor running the expired handlers
+	 * @param ticker the ticker advancing this wheel
+	 */
+	public TimeoutWheel( Executor executor, Ticker ticker )
+	{
+		this( executor, ticker, false );
+	}
+
+	private TimeoutWheel( Executor executor, Ticker ticker, boolean ownsTicker )
+	{
+		this.executor = executor;
+		this.ticker = ticker;
+		this.ownsTicker = ownsTicker;
+		int n = 1;
+		while( n < Runtime.getRuntime().availableProcessors() ) {
+			n <<= 1;
+		}
+		shards = new Shard[ n ];
+		for( int i = 0; i < n; i++ ) {
+			shards[ i ] = new Shard();
+		}
+		ticker.wheels.add( this );
+	}
+
+	public void start( ThreadFactory threadFactory )
+	{
+		ticker.start( threadFactory );
+	}
+
+	public void add( TimeoutHandler handler )
+	{
+		final long tick = ( handler.time() - ticker.startTime + TICK_DURATION - 1 ) / TICK_DURATION;
+		final Shard shard = shards[ (int) Thread.currentThread().getId() & ( shards.length - 1 ) ];
+		shard.add( handler, tick );
+		if ( stopped ) {
+			// Added while stopping, after the ticker let go of this wheel
+			if ( shard.take( handler ) ) {
+				expire( handler );
+			}
+		} else {
+			ticker.wakeUp();
+		}
+	}
+
+	/*
+	 * Runs an expired handler in the executor, or in the calling thread if
+	 * the executor is shutting down: pending handlers must run anyway, as
+	 * their owners may be waiting for them to stop. Never called while
+	 * holding the lock of a shard, as handlers may add other handlers.
+	 */
+	private void expire( TimeoutHandler handler )
+	{
+		try {
+			executor.execute( handler );
+		} catch( RejectedExecutionException e ) {
+			handler.run();
+		}
+	}
+
+	public int pendingCount()
+	{
+		int count = 0;
+		for( Shard shard : shards ) {
+			count += shard.size;
+		}
+		return count;
+	}
+
+	/**
+	 * Detaches this wheel from its ticker (stopping the ticker if it is
+	 * owned by this wheel) and runs all the pending handlers.
+	 */
+	public void stop()
+	{
+		stopped = true;
+		ticker.wheels.remove( this );
+		if ( ownsTicker ) {
+			ticker.stop();
+		}
+		for( Shard shard : shards ) {
+			for( TimeoutHandler handler : shard.takeAll() ) {
+				expire( handler );
+			}
+		}
+	}
+}
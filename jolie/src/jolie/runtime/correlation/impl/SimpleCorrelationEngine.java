@@ -54,12 +54,21 @@ public class SimpleCorrelationEngine extends CorrelationEngine
 
 	public boolean routeMessage( CommMessage message, CommChannel channel )
 	{
-		for( SessionThread session : sessions ) {
-			if ( correlate( session, message ) ) {
-				session.pushMessage( new SessionMessage( message, channel ) );
-				return true;
+		boolean retry;
+		do {
+			retry = false;
+			for( SessionThread session : sessions ) {
+				if ( correlate( session, message ) ) {
+					if ( session.pushMessage( new SessionMessage( message, channel ) ) ) {
+						return true;
+					}
+					// The session ended meanwhile: look for the one replacing it, if any
+					sessions.remove( session );
+					retry = true;
+					break;
+				}
 			}
-		}
+		} while( retry );
 		return false;
 	}
 
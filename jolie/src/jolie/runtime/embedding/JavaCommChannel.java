@@ -24,6 +24,7 @@ package jolie.runtime.embedding;
 import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import jolie.Interpreter;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
@@ -31,9 +32,6 @@ import jolie.net.PollableCommChannel;
 import jolie.runtime.InvalidIdException;
 import jolie.runtime.JavaService;
 
-
-// TODO: this should not be polled
-
 /**
  * @author Fabrizio Montesi
  */
@@ -41,18 +39,43 @@ public class JavaCommChannel extends CommChannel implements PollableCommChannel
 {
 	private final JavaService javaService;
 	private final Map< Long, CommMessage > messages = new ConcurrentHashMap<>();
+	private final AtomicReference< Runnable > readyListener = new AtomicReference<>();
 	
 	public JavaCommChannel( JavaService javaService )
 	{
 		this.javaService = javaService;
 	}
 
+	/**
+	 * Returns the service this channel communicates with.
+	 * @return the service this channel communicates with
+	 */
+	public JavaService javaService()
+	{
+		return javaService;
+	}
+
 	@Override
 	public boolean isReady()
 	{
 		return messages.isEmpty() == false;
 	}
 
+	@Override
+	public boolean setReadyListener( Runnable listener )
+	{
+		readyListener.set( listener );
+		return true;
+	}
+
+	private void notifyReady()
+	{
+		final Runnable listener = readyListener.getAndSet( null );
+		if ( listener != null ) {
+			listener.run();
+		}
+	}
+
 	@Override
 	protected void disposeForInputImpl()
 		throws IOException
@@ -80,6 +103,7 @@ public class JavaCommChannel extends CommChannel implements PollableCommChannel
 		try {
 			final CommMessage response = javaService.callOperation( message );
 			messages.put( message.id(), response );
+			notifyReady();
 		} catch( IllegalAccessException | InvalidIdException e ) {
 			throw new IOException( e );
 		}
@@ -50,7 +50,8 @@ public class JolieServiceLoader extends EmbeddedServiceLoader
 		interpreter = new Interpreter(
 			newArgs,
 			currInterpreter.getClassLoader(),
-			currInterpreter.programDirectory()
+			currInterpreter.programDirectory(),
+			currInterpreter.sharedRuntime()
 		);
 	}
 
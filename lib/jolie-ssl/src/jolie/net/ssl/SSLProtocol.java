@@ -231,6 +231,12 @@ public class SSLProtocol extends SequentialCommProtocol
 		return wrappedProtocol.name() + "s";
 	}
 
+	@Override
+	public boolean canSendBatches()
+	{
+		return wrappedProtocol.canSendBatches();
+	}
+
 	private String getSSLStringParameter( String parameterName, String defaultValue )
 	{
 		if ( hasParameter( "ssl" ) ) {
@@ -105,6 +105,9 @@ public final class Constants
 
 	public static final String TYPE_MISMATCH_FAULT_NAME = "TypeMismatch";
 	public static final String IO_EXCEPTION_FAULT_NAME = "IOException";
+	public static final String SERVICE_OVERLOADED_FAULT_NAME = "ServiceOverloaded";
+	public static final String TIMEOUT_FAULT_NAME = "Timeout";
+	public static final String CIRCUIT_OPEN_FAULT_NAME = "CircuitOpen";
 
 	public static final String MONITOR_OUTPUTPORT_NAME = "#Monitor";
 	public static final String INPUT_PORTS_NODE_NAME = "inputPorts";